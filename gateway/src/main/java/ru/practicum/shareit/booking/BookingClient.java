@@ -3,14 +3,19 @@ package ru.practicum.shareit.booking;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.web.util.DefaultUriBuilderFactory;
 import ru.practicum.shareit.booking.dto.BookItemRequestDto;
 import ru.practicum.shareit.booking.dto.BookingState;
+import ru.practicum.shareit.booking.dto.StatusDecisionDto;
 import ru.practicum.shareit.client.BaseClient;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.List;
 import java.util.Map;
 
 @Service
@@ -27,16 +32,26 @@ public class BookingClient extends BaseClient {
         );
     }
 
-    public ResponseEntity<Object> getBookings(Integer userId, BookingState state, Integer from, Integer size) {
+    public ResponseEntity<Object> getBookings(Integer userId, BookingState state, Integer from, Integer size,
+                                              String cursor) {
         Map<String, Object> parameters = Map.of(
                 "state", state.name(),
                 "from", from,
-                "size", size
+                "size", size,
+                "cursor", cursor == null ? "" : cursor
         );
-        return get("?state={state}&from={from}&size={size}", userId, parameters);
+        return get("?state={state}&from={from}&size={size}&cursor={cursor}", userId, parameters);
     }
 
 
+    public ResponseEntity<Object> getSummary(Integer userId) {
+        return get("/summary", userId);
+    }
+
+    public ResponseEntity<Object> getOwnerSummary(Integer userId) {
+        return get("/owner/summary", userId);
+    }
+
     public ResponseEntity<Object> bookItem(Integer userId, BookItemRequestDto requestDto) {
         return post("", userId, requestDto);
     }
@@ -52,12 +67,22 @@ public class BookingClient extends BaseClient {
         return patch("/" + bookingId + "?approved={approved}", userId, parameters);
     }
 
-    public ResponseEntity<Object> getByOwner(Integer userId, BookingState state, Integer from, Integer size) {
+    public ResponseEntity<Object> setStatuses(Integer userId, List<StatusDecisionDto> decisions) {
+        return patch("/batch", userId, decisions);
+    }
+
+    public ResponseEntity<Object> getByOwner(Integer userId, BookingState state, Integer from, Integer size,
+                                             String cursor) {
         Map<String, Object> parameters = Map.of(
                 "state", state.name(),
                 "from", from,
-                "size", size
+                "size", size,
+                "cursor", cursor == null ? "" : cursor
         );
-        return get("/owner?state={state}&from={from}&size={size}", userId, parameters);
+        return get("/owner?state={state}&from={from}&size={size}&cursor={cursor}", userId, parameters);
+    }
+
+    public void exportByOwner(Integer userId, HttpServletResponse response) throws IOException {
+        pipe("/owner/export", userId, MediaType.APPLICATION_NDJSON, response);
     }
-}
\ No newline at end of file
+}
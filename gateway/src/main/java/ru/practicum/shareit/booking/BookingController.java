@@ -3,17 +3,24 @@ package ru.practicum.shareit.booking;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import ru.practicum.shareit.booking.dto.BookItemRequestDto;
 import ru.practicum.shareit.booking.dto.BookingState;
+import ru.practicum.shareit.booking.dto.StatusDecisionDto;
 import ru.practicum.shareit.handler.model.BookingBadRequest;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
+import javax.validation.constraints.NotEmpty;
 import javax.validation.constraints.Positive;
 import javax.validation.constraints.PositiveOrZero;
+import javax.validation.constraints.Size;
+import java.io.IOException;
+import java.util.List;
 
 @Controller
 @RequestMapping(path = "/bookings")
@@ -21,16 +28,19 @@ import javax.validation.constraints.PositiveOrZero;
 @Slf4j
 @Validated
 public class BookingController {
+    private static final int MAX_BATCH_SIZE = 100;
+
     private final BookingClient bookingClient;
 
     @GetMapping
     public ResponseEntity<Object> getBookings(@RequestHeader("X-Sharer-User-Id") Integer userId,
                                               @RequestParam(name = "state", defaultValue = "ALL") String stateParam,
                                               @PositiveOrZero @RequestParam(name = "from", defaultValue = "0") Integer from,
-                                              @Positive @RequestParam(name = "size", defaultValue = "10") Integer size) {
+                                              @Positive @RequestParam(name = "size", defaultValue = "10") Integer size,
+                                              @RequestParam(name = "cursor", required = false) String cursor) {
         BookingState state = BookingState.parseState(stateParam);
         log.info("Get booking with state {}, userId={}, from={}, size={}", stateParam, userId, from, size);
-        return bookingClient.getBookings(userId, state, from, size);
+        return bookingClient.getBookings(userId, state, from, size, cursor);
     }
 
     @PostMapping
@@ -41,6 +51,28 @@ public class BookingController {
         return bookingClient.bookItem(userId, requestDto);
     }
 
+    @GetMapping("/summary")
+    public ResponseEntity<Object> getSummary(@RequestHeader("X-Sharer-User-Id") Integer userId) {
+        log.info("Get booking summary, userId={}", userId);
+        return bookingClient.getSummary(userId);
+    }
+
+    /**
+     * All bookings of the owner's items as NDJSON, passed on from the server without buffering.
+     */
+    @GetMapping(path = "/owner/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void exportByOwner(@RequestHeader("X-Sharer-User-Id") Integer userId,
+                              HttpServletResponse response) throws IOException {
+        log.info("Export bookings of owner userId={}", userId);
+        bookingClient.exportByOwner(userId, response);
+    }
+
+    @GetMapping("/owner/summary")
+    public ResponseEntity<Object> getOwnerSummary(@RequestHeader("X-Sharer-User-Id") Integer userId) {
+        log.info("Get owner booking summary, userId={}", userId);
+        return bookingClient.getOwnerSummary(userId);
+    }
+
     @GetMapping("/{bookingId}")
     public ResponseEntity<Object> getBooking(@RequestHeader("X-Sharer-User-Id") Integer userId,
                                              @PathVariable Integer bookingId) {
@@ -56,6 +88,14 @@ public class BookingController {
         return bookingClient.setStatus(userId, bookingId, approved);
     }
 
+    @PatchMapping("/batch")
+    public ResponseEntity<Object> setStatuses(@RequestHeader("X-Sharer-User-Id") Integer userId,
+                                              @RequestBody @NotEmpty @Size(max = MAX_BATCH_SIZE)
+                                              List<@Valid StatusDecisionDto> decisions) {
+        log.info("Patch {} bookings, user={}", decisions.size(), userId);
+        return bookingClient.setStatuses(userId, decisions);
+    }
+
     @GetMapping("/owner")
     public ResponseEntity<Object> getAllByOwner(@RequestHeader("X-Sharer-User-Id") Integer userId,
                                                 @RequestParam(name = "state", required = false, defaultValue = "ALL")
@@ -63,10 +103,11 @@ public class BookingController {
                                                 @RequestParam(value = "from", defaultValue = "0")
                                                 @PositiveOrZero Integer from,
                                                 @RequestParam(value = "size", defaultValue = "10")
-                                                @Positive Integer size) {
+                                                @Positive Integer size,
+                                                @RequestParam(value = "cursor", required = false) String cursor) {
         log.info("Get bookings by owner, userId={}, state={}", userId, stateParam);
         BookingState state = BookingState.parseState(stateParam);
-        return bookingClient.getByOwner(userId, state, from, size);
+        return bookingClient.getByOwner(userId, state, from, size, cursor);
     }
 
     private void checkBookingsDates(BookItemRequestDto booking) {
@@ -0,0 +1,17 @@
+package ru.practicum.shareit.booking.dto;
+
+import javax.validation.constraints.NotNull;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+public class StatusDecisionDto {
+    @NotNull
+    private Integer bookingId;
+    @NotNull
+    private Boolean approved;
+}
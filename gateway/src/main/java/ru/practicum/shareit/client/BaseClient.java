@@ -1,5 +1,7 @@
 package ru.practicum.shareit.client;
 
+import java.io.IOException;
+import java.util.Enumeration;
 import java.util.List;
 import java.util.Map;
 
@@ -9,8 +11,14 @@ import org.springframework.http.HttpMethod;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.lang.Nullable;
+import org.springframework.util.StreamUtils;
 import org.springframework.web.client.HttpStatusCodeException;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 
 public class BaseClient {
     protected final RestTemplate rest;
@@ -86,9 +94,42 @@ public class BaseClient {
         return makeAndSendRequest(HttpMethod.DELETE, path, userId, parameters, null);
     }
 
+    /**
+     * Copies the response of a GET to the client as it arrives, so a long body is never held by the gateway.
+     */
+    protected void pipe(String path, Integer userId, MediaType accept, HttpServletResponse target)
+            throws IOException {
+        try {
+            rest.execute(path, HttpMethod.GET, request -> {
+                request.getHeaders().setAccept(List.of(accept, MediaType.APPLICATION_JSON));
+                if (userId != null) {
+                    request.getHeaders().set("X-Sharer-User-Id", String.valueOf(userId));
+                }
+            }, response -> {
+                target.setStatus(response.getRawStatusCode());
+                MediaType contentType = response.getHeaders().getContentType();
+                if (contentType != null) {
+                    target.setContentType(contentType.toString());
+                }
+                StreamUtils.copy(response.getBody(), target.getOutputStream());
+                return null;
+            });
+        } catch (HttpStatusCodeException e) {
+            target.setStatus(e.getRawStatusCode());
+            if (e.getResponseHeaders() != null && e.getResponseHeaders().getContentType() != null) {
+                target.setContentType(e.getResponseHeaders().getContentType().toString());
+            }
+            StreamUtils.copy(e.getResponseBodyAsByteArray(), target.getOutputStream());
+        }
+    }
+
     private <T> ResponseEntity<Object> makeAndSendRequest(HttpMethod method, String path, Integer userId,
                                                           @Nullable Map<String, Object> parameters, @Nullable T body) {
-        HttpEntity<T> requestEntity = new HttpEntity<>(body, defaultHeaders(userId));
+        HttpHeaders headers = defaultHeaders(userId);
+        if (method == HttpMethod.GET) {
+            addConditionalHeaders(headers);
+        }
+        HttpEntity<T> requestEntity = new HttpEntity<>(body, headers);
 
         ResponseEntity<Object> shareitServerResponse;
         try {
@@ -113,12 +154,33 @@ public class BaseClient {
         return headers;
     }
 
+    /**
+     * Passes the validators the client holds on to the server, which answers 304 while they still match.
+     */
+    private static void addConditionalHeaders(HttpHeaders headers) {
+        if (!(RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes)) {
+            return;
+        }
+        HttpServletRequest request = ((ServletRequestAttributes) RequestContextHolder.getRequestAttributes())
+                .getRequest();
+        for (String name : List.of(HttpHeaders.IF_NONE_MATCH, HttpHeaders.IF_MODIFIED_SINCE)) {
+            Enumeration<String> values = request.getHeaders(name);
+            while (values != null && values.hasMoreElements()) {
+                headers.add(name, values.nextElement());
+            }
+        }
+    }
+
     private static ResponseEntity<Object> prepareGatewayResponse(ResponseEntity<Object> response) {
         if (response.getStatusCode().is2xxSuccessful()) {
             return response;
         }
 
         ResponseEntity.BodyBuilder responseBuilder = ResponseEntity.status(response.getStatusCode());
+        //304 обновляет закэшированный у клиента ответ, тег ему нужен и здесь
+        if (response.getHeaders().getETag() != null) {
+            responseBuilder.eTag(response.getHeaders().getETag());
+        }
 
         if (response.hasBody()) {
             return responseBuilder.body(response.getBody());
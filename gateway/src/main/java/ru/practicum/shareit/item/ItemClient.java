@@ -3,14 +3,24 @@ package ru.practicum.shareit.item;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.RestTemplate;
 import org.springframework.web.util.DefaultUriBuilderFactory;
 import ru.practicum.shareit.client.BaseClient;
 import ru.practicum.shareit.item.dto.CreateCommentDto;
 import ru.practicum.shareit.item.dto.CreateItemRequest;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Map;
 
 @Service
@@ -18,6 +28,11 @@ public class ItemClient extends BaseClient {
 
     private static final String API_PREFIX = "/items";
 
+    /**
+     * Sends request bodies as they are written instead of buffering them, for imports.
+     */
+    private final RestTemplate streamingRest;
+
     @Autowired
     public ItemClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
         super(
@@ -26,12 +41,40 @@ public class ItemClient extends BaseClient {
                         .requestFactory(HttpComponentsClientHttpRequestFactory::new)
                         .build()
         );
+        this.streamingRest = builder
+                .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
+                .requestFactory(() -> {
+                    HttpComponentsClientHttpRequestFactory factory = new HttpComponentsClientHttpRequestFactory();
+                    factory.setBufferRequestBody(false);
+                    return factory;
+                })
+                .build();
     }
 
     public ResponseEntity<Object> createItem(Integer userId, CreateItemRequest body) {
         return post("", userId, body);
     }
 
+    /**
+     * Passes the payload on to the server while it is being received.
+     */
+    public ResponseEntity<Object> importItems(Integer userId, MediaType contentType, InputStream body) {
+        try {
+            return streamingRest.execute("/import", HttpMethod.POST, request -> {
+                request.getHeaders().setContentType(contentType);
+                request.getHeaders().setAccept(List.of(MediaType.APPLICATION_JSON));
+                request.getHeaders().set("X-Sharer-User-Id", String.valueOf(userId));
+                StreamUtils.copy(body, request.getBody());
+            }, streamingRest.responseEntityExtractor(Object.class));
+        } catch (HttpStatusCodeException e) {
+            return ResponseEntity.status(e.getStatusCode()).body(e.getResponseBodyAsByteArray());
+        }
+    }
+
+    public void exportItems(Integer userId, HttpServletResponse response) throws IOException {
+        pipe("/export", userId, MediaType.APPLICATION_NDJSON, response);
+    }
+
     public ResponseEntity<Object> editItem(Integer userId, Integer itemId, CreateItemRequest body) {
         return patch("/" + itemId, userId, body);
     }
@@ -40,21 +83,47 @@ public class ItemClient extends BaseClient {
         return get("/" + itemId, userId);
     }
 
-    public ResponseEntity<Object> getAllItems(Integer userId, Integer from, Integer size) {
+    public ResponseEntity<Object> getAllItems(Integer userId, Integer from, Integer size, String cursor,
+                                              String commentsMode) {
         Map<String, Object> parameters = Map.of(
                 "from", from,
-                "size", size
+                "size", size,
+                "cursor", cursor == null ? "" : cursor,
+                "commentsMode", commentsMode
         );
-        return get("/?from={from}&size={size}", userId, parameters);
+        return get("/?from={from}&size={size}&cursor={cursor}&commentsMode={commentsMode}", userId, parameters);
     }
 
-    public ResponseEntity<Object> search(Integer userId, Integer from, Integer size, String text) {
+    public ResponseEntity<Object> search(Integer userId, Integer from, Integer size, String cursor,
+                                         String text, Boolean approximate, String commentsMode) {
         Map<String, Object> parameters = Map.of(
                 "text", text,
                 "from", from,
-                "size", size
+                "size", size,
+                "cursor", cursor == null ? "" : cursor,
+                "approximate", approximate,
+                "commentsMode", commentsMode
+        );
+        return get("/search?text={text}&from={from}&size={size}&cursor={cursor}&approximate={approximate}" +
+                "&commentsMode={commentsMode}", userId, parameters);
+    }
+
+    public ResponseEntity<Object> getAvailability(Integer userId, Integer itemId, LocalDateTime from, LocalDateTime to) {
+        Map<String, Object> parameters = Map.of(
+                "from", from,
+                "to", to
+        );
+        return get("/" + itemId + "/availability?from={from}&to={to}", userId, parameters);
+    }
+
+    public ResponseEntity<Object> getComments(Integer userId, Integer itemId, Integer from, Integer size,
+                                              String cursor) {
+        Map<String, Object> parameters = Map.of(
+                "from", from,
+                "size", size,
+                "cursor", cursor == null ? "" : cursor
         );
-        return get("/search?text={text}&from={from}&size={size}", userId, parameters);
+        return get("/" + itemId + "/comments?from={from}&size={size}&cursor={cursor}", userId, parameters);
     }
 
     public ResponseEntity<Object> sendComment(Integer userId, Integer itemId, CreateCommentDto comment) {
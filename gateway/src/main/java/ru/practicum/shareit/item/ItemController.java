@@ -2,7 +2,9 @@ package ru.practicum.shareit.item;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.validation.annotation.Validated;
@@ -12,9 +14,15 @@ import ru.practicum.shareit.item.dto.CreateItemRequest;
 import ru.practicum.shareit.validate.Create;
 import ru.practicum.shareit.validate.Update;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
+import javax.validation.ValidationException;
+import javax.validation.constraints.Pattern;
 import javax.validation.constraints.Positive;
 import javax.validation.constraints.PositiveOrZero;
+import java.io.IOException;
+import java.time.LocalDateTime;
 import java.util.Collections;
 
 @Controller
@@ -24,6 +32,9 @@ import java.util.Collections;
 @Validated
 public class ItemController {
 
+    private static final int MAX_AVAILABILITY_DAYS = 366;
+    private static final String COMMENTS_MODES = "full|summary";
+
     private final ItemClient itemClient;
 
     @PostMapping
@@ -33,6 +44,17 @@ public class ItemController {
         return itemClient.createItem(userId, itemDto);
     }
 
+    /**
+     * Rows are validated by the server while it reads them, the payload is passed on as a stream.
+     */
+    @PostMapping(path = "/import", consumes = {MediaType.APPLICATION_NDJSON_VALUE, "text/csv"})
+    public ResponseEntity<Object> importItems(HttpServletRequest request,
+                                              @RequestHeader("X-Sharer-User-Id") Integer userId) throws IOException {
+        log.info("Import items, content type={}, userId={}", request.getContentType(), userId);
+        return itemClient.importItems(userId, MediaType.parseMediaType(request.getContentType()),
+                request.getInputStream());
+    }
+
     @PatchMapping("/{itemId}")
     public ResponseEntity<Object> edit(@RequestBody @Validated(Update.class) CreateItemRequest itemDto,
                                        @RequestHeader("X-Sharer-User-Id") Integer userId,
@@ -53,9 +75,23 @@ public class ItemController {
                                          @RequestParam(value = "from", defaultValue = "0", required = false)
                                          @PositiveOrZero Integer from,
                                          @RequestParam(value = "size", defaultValue = "10", required = false)
-                                         @Positive Integer size) {
+                                         @Positive Integer size,
+                                         @RequestParam(value = "cursor", required = false) String cursor,
+                                         @RequestParam(value = "commentsMode", defaultValue = "full")
+                                         @Pattern(regexp = COMMENTS_MODES, flags = Pattern.Flag.CASE_INSENSITIVE)
+                                         String commentsMode) {
         log.info("Get all items for userId={}, from={}, size={}", userId, from, size);
-        return itemClient.getAllItems(userId, from, size);
+        return itemClient.getAllItems(userId, from, size, cursor, commentsMode);
+    }
+
+    /**
+     * All items of the owner as NDJSON, passed on from the server without buffering.
+     */
+    @GetMapping(path = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void export(@RequestHeader("X-Sharer-User-Id") Integer userId,
+                       HttpServletResponse response) throws IOException {
+        log.info("Export items of userId={}", userId);
+        itemClient.exportItems(userId, response);
     }
 
     @GetMapping("/search")
@@ -64,10 +100,45 @@ public class ItemController {
                                          @PositiveOrZero Integer from,
                                          @RequestParam(value = "size", defaultValue = "10")
                                          @Positive Integer size,
+                                         @RequestParam(value = "cursor", required = false) String cursor,
+                                         @RequestParam(value = "approximate", defaultValue = "false")
+                                         Boolean approximate,
+                                         @RequestParam(value = "commentsMode", defaultValue = "full")
+                                         @Pattern(regexp = COMMENTS_MODES, flags = Pattern.Flag.CASE_INSENSITIVE)
+                                         String commentsMode,
                                          @RequestHeader("X-Sharer-User-Id") Integer userId) {
         log.info("Search items, text={}, userId={}", text, userId);
         if (text.isBlank()) return new ResponseEntity<>(Collections.emptyList(), HttpStatus.OK);
-        return itemClient.search(userId, from, size, text);
+        return itemClient.search(userId, from, size, cursor, text, approximate, commentsMode);
+    }
+
+    @GetMapping("/{itemId}/availability")
+    public ResponseEntity<Object> getAvailability(@PathVariable Integer itemId,
+                                                  @RequestParam("from")
+                                                  @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                                                  LocalDateTime from,
+                                                  @RequestParam("to")
+                                                  @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                                                  LocalDateTime to,
+                                                  @RequestHeader("X-Sharer-User-Id") Integer userId) {
+        log.info("Get availability of item id={}, from={}, to={}, userId={}", itemId, from, to, userId);
+        if (!from.isBefore(to))
+            throw new ValidationException("Availability range must start before its end.");
+        if (from.plusDays(MAX_AVAILABILITY_DAYS).isBefore(to))
+            throw new ValidationException("Availability range is longer than " + MAX_AVAILABILITY_DAYS + " days.");
+        return itemClient.getAvailability(userId, itemId, from, to);
+    }
+
+    @GetMapping("/{itemId}/comments")
+    public ResponseEntity<Object> getComments(@PathVariable Integer itemId,
+                                              @RequestParam(value = "from", defaultValue = "0")
+                                              @PositiveOrZero Integer from,
+                                              @RequestParam(value = "size", defaultValue = "10")
+                                              @Positive Integer size,
+                                              @RequestParam(value = "cursor", required = false) String cursor,
+                                              @RequestHeader("X-Sharer-User-Id") Integer userId) {
+        log.info("Get comments of item id={}, from={}, size={}, userId={}", itemId, from, size, userId);
+        return itemClient.getComments(userId, itemId, from, size, cursor);
     }
 
     @PostMapping("/{itemId}/comment")
@@ -35,12 +35,13 @@ public class ItemRequestClient extends BaseClient {
         return get("", userId);
     }
 
-    public ResponseEntity<Object> getAll(Integer userId, Integer from, Integer size) {
+    public ResponseEntity<Object> getAll(Integer userId, Integer from, Integer size, String cursor) {
         Map<String, Object> parameters = Map.of(
                 "from", from,
-                "size", size
+                "size", size,
+                "cursor", cursor == null ? "" : cursor
         );
-        return get("/all?from={from}&size={size}", userId, parameters);
+        return get("/all?from={from}&size={size}&cursor={cursor}", userId, parameters);
     }
 
     public ResponseEntity<Object> getById(Integer userId, Integer requestId) {
@@ -37,9 +37,10 @@ public class ItemRequestController {
     @GetMapping("/all")
     public ResponseEntity<Object> getAll(@RequestHeader("X-Sharer-User-Id") @Positive Integer userId,
                                          @RequestParam(value = "from", defaultValue = "0") @PositiveOrZero Integer from,
-                                         @RequestParam(value = "size", defaultValue = "10") @Positive Integer size) {
+                                         @RequestParam(value = "size", defaultValue = "10") @Positive Integer size,
+                                         @RequestParam(value = "cursor", required = false) String cursor) {
         log.info("Get all requests, by user id={}, from={}, size={}", userId, from, size);
-        return itemRequestClient.getAll(userId, from, size);
+        return itemRequestClient.getAll(userId, from, size, cursor);
     }
 
     @GetMapping("/{requestId}")
@@ -41,6 +41,14 @@ public class Booking {
     @Column(name = "status")
     private BookingStatus status;
 
+    @Version
+    @Column(name = "version")
+    private Long version;
+
+    public Booking(Integer id, LocalDateTime start, LocalDateTime end, Item item, User booker, BookingStatus status) {
+        this(id, start, end, item, booker, status, null);
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -2,11 +2,21 @@ package ru.practicum.shareit.booking;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.WebAsyncTask;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingRequest;
+import ru.practicum.shareit.booking.dto.BookingSummaryDto;
+import ru.practicum.shareit.booking.dto.StatusDecision;
+import ru.practicum.shareit.booking.dto.StatusDecisionResult;
 import ru.practicum.shareit.booking.exception.BookingCreateException;
+import ru.practicum.shareit.export.OwnerExport;
+import ru.practicum.shareit.paging.Cursor;
+import ru.practicum.shareit.paging.PageResult;
 
+import javax.servlet.http.HttpServletResponse;
 import java.util.List;
 
 @Slf4j
@@ -15,10 +25,12 @@ import java.util.List;
 public class BookingController {
 
     private final BookingService bookingService;
+    private final OwnerExport ownerExport;
 
     @Autowired
-    public BookingController(BookingService bookingService) {
+    public BookingController(BookingService bookingService, OwnerExport ownerExport) {
         this.bookingService = bookingService;
+        this.ownerExport = ownerExport;
     }
 
     @PostMapping //bookItem
@@ -38,6 +50,32 @@ public class BookingController {
         return bookingService.changeStatusByOwner(bookingId, approved, ownerId);
     }
 
+    @PatchMapping("/batch") //setStatuses
+    public List<StatusDecisionResult> setStatusesByOwner(@RequestBody List<StatusDecision> decisions,
+                                                         @RequestHeader("X-Sharer-User-Id") Integer ownerId) {
+        log.debug("PATCH-request at /bookings/batch, {} decisions", decisions.size());
+        return bookingService.changeStatusBatch(decisions, ownerId);
+    }
+
+    @GetMapping("/summary") //getSummary
+    public BookingSummaryDto getSummary(@RequestHeader("X-Sharer-User-Id") Integer userId) {
+        log.debug("GET-request at /bookings/summary");
+        return bookingService.getSummary(userId);
+    }
+
+    @GetMapping("/owner/summary") //getOwnerSummary
+    public BookingSummaryDto getOwnerSummary(@RequestHeader("X-Sharer-User-Id") Integer userId) {
+        log.debug("GET-request at /bookings/owner/summary");
+        return bookingService.getOwnerSummary(userId);
+    }
+
+    @GetMapping(value = "/owner/export", produces = MediaType.APPLICATION_NDJSON_VALUE) //exportByOwner
+    public WebAsyncTask<Void> exportByOwner(@RequestHeader("X-Sharer-User-Id") Integer userId,
+                                            HttpServletResponse response) {
+        log.debug("GET-request at /bookings/owner/export");
+        return ownerExport.respond(ownerExport.bookings(userId), response);
+    }
+
     @GetMapping("/{bookingId}") //getBooking
     public BookingDto getById(@PathVariable Integer bookingId,
                               @RequestHeader("X-Sharer-User-Id") Integer userId) {
@@ -46,21 +84,26 @@ public class BookingController {
     }
 
     @GetMapping //getBookings
-    public List<BookingDto> getAll(@RequestParam(name = "state") String state,
-                                   @RequestHeader("X-Sharer-User-Id") Integer userId,
-                                   @RequestParam(value = "from") Integer from,
-                                   @RequestParam(value = "size") Integer size) {
+    public ResponseEntity<List<BookingDto>> getAll(@RequestParam(name = "state") String state,
+                                                   @RequestHeader("X-Sharer-User-Id") Integer userId,
+                                                   @RequestParam(value = "from") Integer from,
+                                                   @RequestParam(value = "size") Integer size,
+                                                   @RequestParam(value = "cursor", required = false) String cursor) {
         log.debug("GET-request at /bookings");
-        return bookingService.getAllByUser(state, userId, from, size);
+        PageResult<BookingDto> result = bookingService.getAllByUser(state, userId, from, size, Cursor.decode(cursor));
+        return ResponseEntity.ok().headers(result.headers()).body(result.getContent());
     }
 
     @GetMapping("/owner") //getAllByOwner
-    public List<BookingDto> getOwnerBookings(
+    public ResponseEntity<List<BookingDto>> getOwnerBookings(
             @RequestParam(name = "state") String state,
             @RequestHeader("X-Sharer-User-Id") Integer userId,
             @RequestParam(value = "from") Integer from,
-            @RequestParam(value = "size") Integer size) {
+            @RequestParam(value = "size") Integer size,
+            @RequestParam(value = "cursor", required = false) String cursor) {
         log.debug("GET-request at /bookings/owner");
-        return bookingService.getAllByUserOwner(state, userId, from, size);
+        PageResult<BookingDto> result = bookingService.getAllByUserOwner(state, userId, from, size,
+                Cursor.decode(cursor));
+        return ResponseEntity.ok().headers(result.headers()).body(result.getContent());
     }
 }
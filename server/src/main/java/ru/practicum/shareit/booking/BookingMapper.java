@@ -8,6 +8,7 @@ import ru.practicum.shareit.user.User;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingDtoShort;
 import ru.practicum.shareit.booking.dto.BookingRequest;
+import ru.practicum.shareit.booking.dto.BookingShortColumns;
 import ru.practicum.shareit.user.UserMapper;
 
 import java.util.List;
@@ -22,6 +23,8 @@ public interface BookingMapper {
     @Mapping(target = "bookerId", source = "booker.id")
     BookingDtoShort toDtoShort(Booking booking);
 
+    BookingDtoShort toDtoShort(BookingShortColumns booking);
+
     @Mapping(target = "bookerId", source = "booker.id")
     BookingDtoShort dtoToDtoShort(BookingDto bookingDto);
 
@@ -0,0 +1,12 @@
+package ru.practicum.shareit.booking;
+
+public interface BookingRef {
+
+    Integer getId();
+
+    Integer getItemId();
+
+    Integer getBookerId();
+
+    Integer getOwnerId();
+}
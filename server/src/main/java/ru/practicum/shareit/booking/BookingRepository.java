@@ -1,42 +1,84 @@
 package ru.practicum.shareit.booking;
 
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import ru.practicum.shareit.booking.dto.BookingShortColumns;
+import ru.practicum.shareit.booking.schedule.BookingInterval;
+import ru.practicum.shareit.booking.summary.BookingCounts;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
-
-public interface BookingRepository extends JpaRepository<Booking, Integer> {
-    List<Booking> findByBookerId(Integer bookerId, Pageable pageable);
-
-    List<Booking> findByBookerIdAndStartIsBeforeAndEndIsAfter(Integer bookerId,
-                                                              LocalDateTime start, LocalDateTime end, Pageable pageable);
-
-    List<Booking> findByBookerIdAndEndIsBefore(Integer bookerId, LocalDateTime end, Pageable pageable);
-
-    List<Booking> findByBookerIdAndStartIsAfter(Integer bookerId, LocalDateTime start, Pageable pageable);
-
-    List<Booking> findByBookerIdAndStatusEquals(Integer bookerId, BookingStatus status, Pageable pageable);
-
-    List<Booking> findByItemIdIn(List<Integer> items, Pageable pageable);
-
-    List<Booking> findByItemIdInAndStatusIs(List<Integer> items, BookingStatus status, Pageable pageable);
-
-    List<Booking> findByItemIdInAndStatusIs(List<Integer> items, BookingStatus status, Sort sort);
-
-    List<Booking> findByItemIdInAndStartIsBeforeAndEndIsAfter(List<Integer> items,
-                                                              LocalDateTime start, LocalDateTime end, Pageable pageable);
-
-    List<Booking> findByItemIdInAndEndIsBefore(List<Integer> items, LocalDateTime end, Pageable pageable);
-
-    List<Booking> findByItemIdInAndStartIsAfter(List<Integer> items, LocalDateTime start, Pageable pageable);
-
-    List<Booking> findByItemIdInAndStatusEquals(List<Integer> items, BookingStatus status, Pageable pageable);
-
-    Booking findTopByItemIdAndEndIsBefore(Integer itemId, LocalDateTime end);
-
-    Booking findTopByItemIdAndStartIsAfter(Integer itemId, LocalDateTime start);
+import java.util.Optional;
+
+public interface BookingRepository extends JpaRepository<Booking, Integer>, JpaSpecificationExecutor<Booking>,
+        BookingRepositoryCustom {
+
+    @Override
+    @EntityGraph(attributePaths = {"item", "booker"})
+    Optional<Booking> findById(Integer id);
+
+    @Query("select b from Booking b join fetch b.item i join fetch b.booker " +
+            "where b.id in ?1 and i.owner.id = ?2 order by b.id")
+    List<Booking> findAllOwnedBy(Collection<Integer> bookingIds, Integer ownerId);
+
+    @Query("select b.id as id, b.item.id as itemId, b.booker.id as bookerId, b.item.owner.id as ownerId " +
+            "from Booking b where b.status = ?1 and b.start < ?2 " +
+            "order by b.start")
+    List<BookingRef> findRefsByStatusAndStartBefore(BookingStatus status, LocalDateTime moment, Pageable pageable);
+
+    List<Booking> findAllByIdInAndStatus(Collection<Integer> bookingIds, BookingStatus status);
+
+    @Modifying
+    @Query("update Booking b set b.status = ?3, b.version = b.version + 1 where b.id in ?1 and b.status = ?2")
+    int changeStatus(Collection<Integer> bookingIds, BookingStatus from, BookingStatus to);
+
+    /**
+     * For every item the last APPROVED booking ended before the moment and the next one starting after it.
+     */
+    @Query(value = "select n.id as id, n.item_id as itemId, n.start_date as start, n.end_date as \"end\", " +
+            "n.status as status, n.booker_id as bookerId from (select b.*, row_number() over (" +
+            "partition by b.item_id, case when b.end_date < ?2 then 0 else 1 end " +
+            "order by case when b.end_date < ?2 then b.end_date end desc, b.start_date, b.id) as rn " +
+            "from bookings b where b.item_id in ?1 and b.status = 'APPROVED' " +
+            "and (b.end_date < ?2 or b.start_date > ?2)) n " +
+            "where n.rn = 1", nativeQuery = true)
+    List<BookingShortColumns> findLastAndNext(Collection<Integer> itemIds, LocalDateTime moment);
 
     List<Booking> findAllByBookerIdAndItemIdAndEndIsBefore(Integer bookerId, Integer itemId, LocalDateTime end);
+
+    List<Booking> findByItemIdAndStatusInAndEndIsAfterOrderByStart(Integer itemId, Collection<BookingStatus> statuses,
+                                                                   LocalDateTime end);
+
+    @Query("select new ru.practicum.shareit.booking.schedule.BookingInterval(b.id, b.start, b.end) " +
+            "from Booking b where b.item.id = ?1 and b.status in ?2 and b.end > ?3 and b.start < ?4 order by b.start")
+    List<BookingInterval> findIntervals(Integer itemId, Collection<BookingStatus> statuses,
+                                        LocalDateTime from, LocalDateTime to);
+
+    @Query("select count(b) > 0 from Booking b where b.item.id = ?1 and b.id <> ?2 and b.status in ?3 " +
+            "and b.start < ?5 and b.end > ?4")
+    boolean existsOverlap(Integer itemId, Integer bookingId, Collection<BookingStatus> statuses,
+                          LocalDateTime start, LocalDateTime end);
+
+    String COUNTS = "select new ru.practicum.shareit.booking.summary.BookingCounts(count(b), " +
+            "sum(case when b.start < ?2 and b.start >= ?3 and b.end > ?2 then 1 else 0 end), " +
+            "sum(case when b.start < ?2 and b.end < ?2 then 1 else 0 end), " +
+            "sum(case when b.start > ?2 then 1 else 0 end), " +
+            "sum(case when b.status = ru.practicum.shareit.booking.BookingStatus.WAITING then 1 else 0 end), " +
+            "sum(case when b.status = ru.practicum.shareit.booking.BookingStatus.REJECTED then 1 else 0 end), " +
+            "min(case when b.start >= ?2 then b.start end), min(case when b.end >= ?2 then b.end end)) " +
+            "from Booking b ";
+
+    /**
+     * @param longestStart the earliest start a current booking may have
+     */
+    @Query(COUNTS + "where b.booker.id = ?1")
+    BookingCounts countByBooker(Integer bookerId, LocalDateTime moment, LocalDateTime longestStart);
+
+    @Query(COUNTS + "where b.item.owner.id = ?1")
+    BookingCounts countByOwner(Integer ownerId, LocalDateTime moment, LocalDateTime longestStart);
 }
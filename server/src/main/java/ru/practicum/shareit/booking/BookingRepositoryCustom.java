@@ -0,0 +1,14 @@
+package ru.practicum.shareit.booking;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.domain.Specification;
+import ru.practicum.shareit.booking.dto.BookingDto;
+
+public interface BookingRepositoryCustom {
+
+    /**
+     * Like {@code findAll(spec, pageable)}, but one extra row is fetched instead of the count query.
+     */
+    Slice<BookingDto> findSlice(Specification<Booking> spec, Pageable pageable);
+}
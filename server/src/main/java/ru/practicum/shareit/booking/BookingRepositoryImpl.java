@@ -0,0 +1,44 @@
+package ru.practicum.shareit.booking;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import ru.practicum.shareit.booking.dto.BookingDto;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Join;
+import javax.persistence.criteria.Root;
+import java.util.List;
+
+import static ru.practicum.shareit.booking.BookingSpecifications.join;
+
+public class BookingRepositoryImpl implements BookingRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Slice<BookingDto> findSlice(Specification<Booking> spec, Pageable pageable) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<BookingDto> query = cb.createQuery(BookingDto.class);
+        Root<Booking> root = query.from(Booking.class);
+        Join<Booking, ?> item = join(root, "item");
+        Join<Booking, ?> booker = join(root, "booker");
+        query.select(cb.construct(BookingDto.class, root.get("id"), root.get("start"), root.get("end"),
+                        root.get("status"), item.get("id"), item.get("name"), booker.get("id"), booker.get("name")))
+                .where(spec.toPredicate(root, query, cb))
+                .orderBy(QueryUtils.toOrders(pageable.getSort(), root, cb));
+        List<BookingDto> bookings = entityManager.createQuery(query)
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize() + 1)
+                .getResultList();
+        boolean hasNext = bookings.size() > pageable.getPageSize();
+        if (hasNext) bookings = bookings.subList(0, pageable.getPageSize());
+        return new SliceImpl<>(bookings, pageable, hasNext);
+    }
+}
@@ -2,27 +2,51 @@ package ru.practicum.shareit.booking;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.PageRequest;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.client.HttpStatusCodeException;
 import ru.practicum.shareit.item.ItemRepository;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingRequest;
-import ru.practicum.shareit.booking.exception.BookingBadRequest;
+import ru.practicum.shareit.booking.dto.BookingSummaryDto;
+import ru.practicum.shareit.booking.dto.StatusDecision;
+import ru.practicum.shareit.booking.dto.StatusDecisionResult;
 import ru.practicum.shareit.booking.exception.BookingCreateException;
+import ru.practicum.shareit.booking.exception.BookingOverlapException;
 import ru.practicum.shareit.booking.exception.BookingStatusChangeException;
+import ru.practicum.shareit.booking.partition.BookingArchive;
+import ru.practicum.shareit.booking.partition.BookingPartitions;
+import ru.practicum.shareit.booking.schedule.AvailabilityCalendar;
+import ru.practicum.shareit.booking.schedule.BookingIntervalIndex;
+import ru.practicum.shareit.booking.schedule.ItemLocks;
+import ru.practicum.shareit.booking.summary.BookingSummaries;
 import ru.practicum.shareit.handler.exception.NotFoundException;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.outbox.Outbox;
+import ru.practicum.shareit.outbox.OutboxEvent;
+import ru.practicum.shareit.paging.Cursor;
+import ru.practicum.shareit.paging.InvalidCursorException;
+import ru.practicum.shareit.paging.OffsetPageRequest;
+import ru.practicum.shareit.paging.PageResult;
+import ru.practicum.shareit.retry.ConflictRetry;
 import ru.practicum.shareit.user.User;
 import ru.practicum.shareit.user.UserRepository;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
-import java.util.List;
-import java.util.Optional;
+import java.util.*;
+import java.util.function.IntFunction;
 import java.util.stream.Collectors;
 
+import static ru.practicum.shareit.booking.BookingSpecifications.*;
+
 @Slf4j
 @Service
 public class BookingService {
@@ -31,24 +55,52 @@ public class BookingService {
     private final BookingMapper bookingMapper;
     private final UserRepository userRepository;
     private final ItemRepository itemRepository;
+    private final BookingIntervalIndex intervalIndex;
+    private final ItemLocks itemLocks;
+    private final AvailabilityCalendar availabilityCalendar;
+    private final BookingPartitions partitions;
+    private final BookingArchive bookingArchive;
+    private final Outbox outbox;
+    private final ConflictRetry conflictRetry;
+    private final BookingSummaries summaries;
+    private final Duration maxDuration;
 
     @Autowired
     public BookingService(BookingRepository bookingRepository, BookingMapper bookingMapper,
-                          UserRepository userRepository, ItemRepository itemRepository) {
+                          UserRepository userRepository, ItemRepository itemRepository,
+                          BookingIntervalIndex intervalIndex, ItemLocks itemLocks,
+                          AvailabilityCalendar availabilityCalendar, BookingPartitions partitions,
+                          BookingArchive bookingArchive, Outbox outbox, ConflictRetry conflictRetry,
+                          BookingSummaries summaries,
+                          @Value("${shareit.booking.max-duration:P365D}") Duration maxDuration) {
         this.bookingRepository = bookingRepository;
         this.bookingMapper = bookingMapper;
         this.userRepository = userRepository;
         this.itemRepository = itemRepository;
+        this.intervalIndex = intervalIndex;
+        this.itemLocks = itemLocks;
+        this.availabilityCalendar = availabilityCalendar;
+        this.partitions = partitions;
+        this.bookingArchive = bookingArchive;
+        this.outbox = outbox;
+        this.conflictRetry = conflictRetry;
+        this.summaries = summaries;
+        this.maxDuration = maxDuration;
     }
 
     @Transactional
     public BookingDto create(BookingRequest request, Integer requesterId) {
+        //Длина брони ограничена: на этом держится отсечение старых секций при поиске текущих броней
+        if (Duration.between(request.getStart(), request.getEnd()).compareTo(maxDuration) > 0)
+            throw new BookingCreateException("Booking can not be longer than " + maxDuration.toDays() + " days.");
+        partitions.ensure(request.getStart());
         Optional<Item> item = itemRepository.findById(request.getItemId());
         if (item.isEmpty()) throw new NotFoundException("Item not found.");
         if (item.get().getOwner().getId().equals(requesterId))
             throw new NotFoundException("Booking your item? Why?");
         if (item.get().getAvailable().equals(Boolean.FALSE))
             throw new BookingCreateException("This item not available.");
+        itemLocks.lock(item.get().getId());
         Booking booking = bookingMapper.toEntityFromRequest(request);
         booking.setItem(item.get());
 
@@ -57,33 +109,79 @@ public class BookingService {
         booking.setBooker(requester.get());
         booking.setStatus(BookingStatus.WAITING);
         log.info("Saving new booking: {}", booking);
-        return bookingMapper.toDto(bookingRepository.save(booking));
+        Booking savedBooking = bookingRepository.save(booking);
+        intervalIndex.reserve(savedBooking);
+        availabilityCalendar.invalidate(item.get().getId());
+        summaries.invalidate(requesterId, item.get().getOwner().getId());
+        BookingDto created = bookingMapper.toDto(savedBooking);
+        outbox.publish(OutboxEvent.AggregateType.BOOKING, created.getId(), OutboxEvent.EventType.BOOKING_CREATED,
+                created);
+        return created;
     }
 
-    @Transactional
     public BookingDto changeStatusByOwner(Integer bookingId, Boolean approved, Integer ownerId) {
-        Optional<Booking> booking = bookingRepository.findById(bookingId);
-        if (booking.isEmpty()) throw new NotFoundException("Booking not found.");
+        return conflictRetry.execute("booking.status", () -> {
+            Optional<Booking> booking = bookingRepository.findById(bookingId);
+            if (booking.isEmpty()) throw new NotFoundException("Booking not found.");
 
-        User owner = booking.get().getItem().getOwner();
-        if (!owner.getId().equals(ownerId)) throw new NotFoundException("This is not user's item.");
-        if (booking.get().getStatus().equals(BookingStatus.APPROVED))
-            throw new BookingStatusChangeException("Booking already approved");
+            User owner = booking.get().getItem().getOwner();
+            if (!owner.getId().equals(ownerId)) throw new NotFoundException("This is not user's item.");
+            BookingDto changed = applyStatus(booking.get(), approved);
+            availabilityCalendar.invalidate(booking.get().getItem().getId());
+            return changed;
+        });
+    }
 
-        if (approved.equals(Boolean.TRUE)) {
-            log.info("Approve booking id:{}", bookingId);
-            booking.get().setStatus(BookingStatus.APPROVED);
-        } else {
-            log.info("Reject booking id:{}", bookingId);
-            booking.get().setStatus(BookingStatus.REJECTED);
+    public List<StatusDecisionResult> changeStatusBatch(List<StatusDecision> decisions, Integer ownerId) {
+        return conflictRetry.execute("booking.status.batch", () -> decide(decisions, ownerId));
+    }
+
+    private List<StatusDecisionResult> decide(List<StatusDecision> decisions, Integer ownerId) {
+        Map<Integer, Boolean> approvals = new TreeMap<>();
+        Map<Integer, StatusDecisionResult> results = new HashMap<>();
+        List<StatusDecisionResult> ordered = new ArrayList<>(decisions.size());
+        for (StatusDecision decision : decisions) {
+            StatusDecisionResult result = new StatusDecisionResult(decision.getBookingId(), null, null, null);
+            ordered.add(result);
+            if (approvals.putIfAbsent(decision.getBookingId(), decision.getApproved()) != null) {
+                fail(result, new BookingStatusChangeException("Duplicate decision for the booking."));
+            } else {
+                results.put(decision.getBookingId(), result);
+            }
         }
-        return bookingMapper.toDto(booking.get());
+        List<Booking> bookings = bookingRepository.findAllOwnedBy(approvals.keySet(), ownerId);
+        itemLocks.lockAll(bookings.stream()
+                .filter(booking -> booking.getStatus() == BookingStatus.REJECTED && approvals.get(booking.getId()))
+                .map(booking -> booking.getItem().getId())
+                .collect(Collectors.toSet()));
+        Set<Integer> itemIds = new TreeSet<>();
+        for (Booking booking : bookings) {
+            StatusDecisionResult result = results.remove(booking.getId());
+            try {
+                result.setBooking(applyStatus(booking, approvals.get(booking.getId())));
+                result.setStatus(HttpStatus.OK.value());
+                itemIds.add(booking.getItem().getId());
+            } catch (BookingStatusChangeException | BookingOverlapException e) {
+                fail(result, e);
+            }
+        }
+        //Остались чужие или несуществующие брони
+        results.values().forEach(result -> fail(result, new NotFoundException("Booking not found.")));
+        itemIds.forEach(availabilityCalendar::invalidate);
+        log.info("Owner id:{} decided {} bookings.", ownerId, decisions.size());
+        return ordered;
     }
 
     @Transactional(readOnly = true)
     public BookingDto getById(Integer bookingId, Integer userId) {
         Optional<Booking> booking = bookingRepository.findById(bookingId);
-        if (booking.isEmpty()) throw new NotFoundException("Booking not found.");
+        if (booking.isEmpty()) {
+            //Давно завершённая бронь могла уехать в архив вместе со своей секцией
+            BookingDto archived = bookingArchive.findById(bookingId, userId)
+                    .orElseThrow(() -> new NotFoundException("Booking not found."));
+            log.info("Found archived booking.");
+            return archived;
+        }
 
         if (!booking.get().getBooker().getId().equals(userId)
                 && !booking.get().getItem().getOwner().getId().equals(userId)) {
@@ -94,64 +192,102 @@ public class BookingService {
     }
 
     @Transactional(readOnly = true)
-    public List<BookingDto> getAllByUser(String state, Integer userId, Integer from, Integer size) {
+    public PageResult<BookingDto> getAllByUser(String state, Integer userId, Integer from, Integer size,
+                                               Cursor cursor) {
         if (userRepository.findById(userId).isEmpty())
             throw new NotFoundException("Requester not found");
         StateMode stateMode = StateMode.parseState(state);
-        Pageable page = PageRequest.of(from / size, size, Sort.by("start").descending());
-        switch (stateMode) {
-            case ALL:
-                return bookingMapper.toDtoList(bookingRepository.findByBookerId(userId, page));
-            case CURRENT:
-                LocalDateTime moment = LocalDateTime.now();
-                return bookingMapper.toDtoList(bookingRepository.findByBookerIdAndStartIsBeforeAndEndIsAfter(userId,
-                        moment, moment, page));
-            case PAST:
-                return bookingMapper.toDtoList(bookingRepository.findByBookerIdAndEndIsBefore(
-                        userId, LocalDateTime.now(), page));
-            case FUTURE:
-                return bookingMapper.toDtoList(bookingRepository.findByBookerIdAndStartIsAfter(
-                        userId, LocalDateTime.now(), page));
-            case WAITING:
-                return bookingMapper.toDtoList(bookingRepository.findByBookerIdAndStatusEquals(userId,
-                        BookingStatus.WAITING, page));
-            case REJECTED:
-                return bookingMapper.toDtoList(bookingRepository.findByBookerIdAndStatusEquals(userId,
-                        BookingStatus.REJECTED, page));
-            default:
-                throw new BookingBadRequest("There is no state");
-        }
+        LocalDateTime moment = LocalDateTime.now();
+        return findPage(bookerIs(userId), stateMode, moment, from, size, cursor, limit ->
+                bookingArchive.findByBooker(userId, stateMode, moment, cursor, 0, limit));
     }
 
     @Transactional(readOnly = true)
-    public List<BookingDto> getAllByUserOwner(String state, Integer userId, Integer from, Integer size) {
+    public PageResult<BookingDto> getAllByUserOwner(String state, Integer userId, Integer from, Integer size,
+                                                    Cursor cursor) {
         if (userRepository.findById(userId).isEmpty())
             throw new NotFoundException("Requester not found");
         StateMode stateMode = StateMode.parseState(state);
-        List<Item> userItems = itemRepository.findByOwnerId(userId);
-        List<Integer> userItemsIds = userItems.stream().map(Item::getId).collect(Collectors.toList());
-        Pageable page = PageRequest.of(from / size, size, Sort.by("start").descending());
-        switch (stateMode) {
-            case ALL:
-                return bookingMapper.toDtoList(bookingRepository.findByItemIdIn(userItemsIds, page));
-            case CURRENT:
-                LocalDateTime moment = LocalDateTime.now();
-                return bookingMapper.toDtoList(bookingRepository.findByItemIdInAndStartIsBeforeAndEndIsAfter(
-                        userItemsIds, moment, moment, page));
-            case PAST:
-                return bookingMapper.toDtoList(bookingRepository.findByItemIdInAndEndIsBefore(
-                        userItemsIds, LocalDateTime.now(), page));
-            case FUTURE:
-                return bookingMapper.toDtoList(bookingRepository.findByItemIdInAndStartIsAfter(
-                        userItemsIds, LocalDateTime.now(), page));
-            case WAITING:
-                return bookingMapper.toDtoList(bookingRepository.findByItemIdInAndStatusEquals(
-                        userItemsIds, BookingStatus.WAITING, page));
-            case REJECTED:
-                return bookingMapper.toDtoList(bookingRepository.findByItemIdInAndStatusEquals(
-                        userItemsIds, BookingStatus.REJECTED, page));
-            default:
-                throw new BookingBadRequest("There is no state");
+        LocalDateTime moment = LocalDateTime.now();
+        return findPage(itemOwnerIs(userId), stateMode, moment, from, size, cursor, limit ->
+                bookingArchive.findByOwner(userId, stateMode, moment, cursor, 0, limit));
+    }
+
+    @Transactional(readOnly = true)
+    public BookingSummaryDto getSummary(Integer userId) {
+        if (userRepository.findById(userId).isEmpty())
+            throw new NotFoundException("Requester not found");
+        return summaries.ofBooker(userId);
+    }
+
+    @Transactional(readOnly = true)
+    public BookingSummaryDto getOwnerSummary(Integer userId) {
+        if (userRepository.findById(userId).isEmpty())
+            throw new NotFoundException("Requester not found");
+        return summaries.ofOwner(userId);
+    }
+
+    private BookingDto applyStatus(Booking booking, Boolean approved) {
+        if (booking.getStatus().equals(BookingStatus.APPROVED))
+            throw new BookingStatusChangeException("Booking already approved");
+        if (booking.getStatus().equals(BookingStatus.EXPIRED))
+            throw new BookingStatusChangeException("Booking expired");
+
+        if (approved.equals(Boolean.TRUE)) {
+            log.info("Approve booking id:{}", booking.getId());
+            //Отклонённая бронь время не занимала, его могли уже забронировать
+            if (booking.getStatus().equals(BookingStatus.REJECTED)) {
+                itemLocks.lock(booking.getItem().getId());
+                intervalIndex.reserve(booking);
+            }
+            booking.setStatus(BookingStatus.APPROVED);
+        } else {
+            log.info("Reject booking id:{}", booking.getId());
+            if (booking.getStatus().equals(BookingStatus.WAITING)) intervalIndex.release(booking);
+            booking.setStatus(BookingStatus.REJECTED);
+        }
+        summaries.invalidate(booking.getBooker().getId(), booking.getItem().getOwner().getId());
+        BookingDto changed = bookingMapper.toDto(booking);
+        outbox.publish(OutboxEvent.AggregateType.BOOKING, booking.getId(), approved
+                ? OutboxEvent.EventType.BOOKING_APPROVED : OutboxEvent.EventType.BOOKING_REJECTED, changed);
+        return changed;
+    }
+
+    private static void fail(StatusDecisionResult result, HttpStatusCodeException e) {
+        result.setStatus(e.getRawStatusCode());
+        result.setError(e.getStatusText());
+    }
+
+    /**
+     * @param archived reads the first archived bookings of the list after the cursor, up to the limit
+     */
+    private PageResult<BookingDto> findPage(Specification<Booking> owner, StateMode stateMode, LocalDateTime moment,
+                                            Integer from, Integer size, Cursor cursor,
+                                            IntFunction<List<BookingDto>> archived) {
+        Pageable page = OffsetPageRequest.of(cursor, from, size, Sort.by("start", "id").descending());
+        Specification<Booking> spec = owner.and(inState(stateMode, moment, maxDuration)).and(after(cursor));
+        Slice<BookingDto> bookings = bookingRepository.findSlice(spec, page);
+        if (!bookings.hasNext() && bookingArchive.holds(stateMode)) {
+            bookings = appendArchived(bookings, page, cursor, archived);
+        }
+        return PageResult.of(bookings, booking -> Cursor.of(booking.getStart(), booking.getId()));
+    }
+
+    /**
+     * Archived bookings go after the hot ones, the archive is continued by the cursor only.
+     */
+    private Slice<BookingDto> appendArchived(Slice<BookingDto> hot, Pageable page, Cursor cursor,
+                                             IntFunction<List<BookingDto>> archived) {
+        int missing = page.getPageSize() - hot.getNumberOfElements();
+        //Смещение в архиве потребовало бы подсчёта всех оперативных броней при каждом запросе
+        if (cursor == null && hot.isEmpty() && page.getOffset() > 0) {
+            if (archived.apply(1).isEmpty()) return hot;
+            throw new InvalidCursorException("Archived bookings are paged by the cursor of the previous page.");
         }
+        List<BookingDto> older = archived.apply(missing + 1);
+        boolean hasNext = older.size() > missing;
+        List<BookingDto> content = new ArrayList<>(hot.getContent());
+        content.addAll(hasNext ? older.subList(0, missing) : older);
+        return new SliceImpl<>(content, page, hasNext);
     }
 }
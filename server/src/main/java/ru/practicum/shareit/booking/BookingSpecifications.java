@@ -0,0 +1,67 @@
+package ru.practicum.shareit.booking;
+
+import org.springframework.data.jpa.domain.Specification;
+import ru.practicum.shareit.booking.exception.BookingBadRequest;
+import ru.practicum.shareit.paging.Cursor;
+
+import javax.persistence.criteria.Join;
+import javax.persistence.criteria.Root;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Lists are ordered by start and id descending, a cursor selects the rows after the last row of a page.
+ */
+public final class BookingSpecifications {
+
+    private BookingSpecifications() {
+    }
+
+    public static Specification<Booking> bookerIs(Integer bookerId) {
+        return (root, query, cb) -> cb.equal(root.get("booker").get("id"), bookerId);
+    }
+
+    public static Specification<Booking> itemOwnerIs(Integer ownerId) {
+        return (root, query, cb) -> cb.equal(join(root, "item").get("owner").get("id"), ownerId);
+    }
+
+    static Join<Booking, ?> join(Root<Booking> root, String attribute) {
+        for (Join<Booking, ?> join : root.getJoins()) {
+            if (join.getAttribute().getName().equals(attribute)) return join;
+        }
+        return root.join(attribute);
+    }
+
+    /**
+     * @param longest the longest booking allowed, it bounds the start of current bookings for partition pruning
+     */
+    public static Specification<Booking> inState(StateMode state, LocalDateTime moment, Duration longest) {
+        switch (state) {
+            case ALL:
+                return (root, query, cb) -> cb.conjunction();
+            case CURRENT:
+                return (root, query, cb) -> cb.and(cb.lessThan(root.get("start"), moment),
+                        cb.greaterThanOrEqualTo(root.get("start"), moment.minus(longest)),
+                        cb.greaterThan(root.get("end"), moment));
+            case PAST:
+                //Начало заведомо раньше конца, условие по нему лишь ограничивает диапазон индекса по start_date
+                return (root, query, cb) -> cb.and(cb.lessThan(root.get("start"), moment),
+                        cb.lessThan(root.get("end"), moment));
+            case FUTURE:
+                return (root, query, cb) -> cb.greaterThan(root.get("start"), moment);
+            case WAITING:
+                return (root, query, cb) -> cb.equal(root.get("status"), BookingStatus.WAITING);
+            case REJECTED:
+                return (root, query, cb) -> cb.equal(root.get("status"), BookingStatus.REJECTED);
+            default:
+                throw new BookingBadRequest("There is no state");
+        }
+    }
+
+    public static Specification<Booking> after(Cursor cursor) {
+        if (cursor == null) return (root, query, cb) -> cb.conjunction();
+        LocalDateTime start = cursor.requireKey();
+        return (root, query, cb) -> cb.or(cb.lessThan(root.get("start"), start),
+                cb.and(cb.equal(root.get("start"), start), cb.lessThan(root.get("id"), cursor.getId())));
+    }
+}
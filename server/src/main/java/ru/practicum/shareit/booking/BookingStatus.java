@@ -1,5 +1,5 @@
 package ru.practicum.shareit.booking;
 
 public enum BookingStatus {
-    WAITING, APPROVED, REJECTED, CANCELLED;
+    WAITING, APPROVED, REJECTED, CANCELLED, EXPIRED;
 }
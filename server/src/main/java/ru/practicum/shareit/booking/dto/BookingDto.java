@@ -3,6 +3,7 @@ package ru.practicum.shareit.booking.dto;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import ru.practicum.shareit.booking.BookingStatus;
 
 import java.time.LocalDateTime;
 
@@ -18,6 +19,11 @@ public class BookingDto {
     private MiniItem item;
     private MiniBooker booker;
 
+    public BookingDto(Integer id, LocalDateTime start, LocalDateTime end, BookingStatus status,
+                      Integer itemId, String itemName, Integer bookerId, String bookerName) {
+        this(id, start, end, status.name(), new MiniItem(itemId, itemName), new MiniBooker(bookerId, bookerName));
+    }
+
     public Integer getItemId() {
         return item.getId();
     }
@@ -0,0 +1,18 @@
+package ru.practicum.shareit.booking.dto;
+
+import java.time.LocalDateTime;
+
+public interface BookingShortColumns {
+
+    Integer getId();
+
+    Integer getItemId();
+
+    LocalDateTime getStart();
+
+    LocalDateTime getEnd();
+
+    String getStatus();
+
+    Integer getBookerId();
+}
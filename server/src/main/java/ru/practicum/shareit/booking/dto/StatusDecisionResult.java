@@ -0,0 +1,16 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StatusDecisionResult {
+
+    private Integer bookingId;
+    private Integer status;
+    private BookingDto booking;
+    private String error;
+}
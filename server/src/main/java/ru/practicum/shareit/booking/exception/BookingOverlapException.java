@@ -0,0 +1,11 @@
+package ru.practicum.shareit.booking.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpStatusCodeException;
+
+public class BookingOverlapException extends HttpStatusCodeException {
+
+    public BookingOverlapException(String statusText) {
+        super(HttpStatus.CONFLICT, statusText);
+    }
+}
@@ -0,0 +1,168 @@
+package ru.practicum.shareit.booking.partition;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.booking.StateMode;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingDtoShort;
+import ru.practicum.shareit.paging.Cursor;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Query;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Archived bookings started earlier than any hot one, so lists continue here once the hot rows end.
+ */
+@Component
+public class BookingArchive {
+
+    private static final String SELECT = "select b.id, b.start_date, b.end_date, b.status, i.id as item_id, " +
+            "i.name as item_name, u.id as booker_id, u.name as booker_name from bookings_archive b " +
+            "join items i on i.id = b.item_id join users u on u.id = b.booker_id";
+
+    private final BookingPartitions partitions;
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    public BookingArchive(BookingPartitions partitions) {
+        this.partitions = partitions;
+    }
+
+    public boolean holds(StateMode state) {
+        return partitions.isSupported() && state != StateMode.CURRENT && state != StateMode.FUTURE;
+    }
+
+    public List<BookingDto> findByBooker(Integer bookerId, StateMode state, LocalDateTime moment, Cursor cursor,
+                                         long offset, int limit) {
+        return find(SELECT + " where b.booker_id = ?1", bookerId, state, moment, cursor, offset, limit);
+    }
+
+    public List<BookingDto> findByOwner(Integer ownerId, StateMode state, LocalDateTime moment, Cursor cursor,
+                                        long offset, int limit) {
+        return find(SELECT + " where i.owner_id = ?1", ownerId, state, moment, cursor, offset, limit);
+    }
+
+    @SuppressWarnings("unchecked")
+    public Optional<BookingDto> findById(Integer bookingId, Integer userId) {
+        if (!partitions.isSupported()) return Optional.empty();
+        List<Object[]> rows = entityManager.createNativeQuery(SELECT
+                        + " where b.id = ?1 and (b.booker_id = ?2 or i.owner_id = ?2)")
+                .setParameter(1, bookingId)
+                .setParameter(2, userId)
+                .getResultList();
+        return rows.stream().findFirst().map(BookingArchive::toDto);
+    }
+
+    public boolean hasFinished(Integer bookerId, Integer itemId, LocalDateTime moment) {
+        if (!partitions.isSupported()) return false;
+        return !entityManager.createNativeQuery("select b.id from bookings_archive b where b.booker_id = ?1 " +
+                        "and b.item_id = ?2 and b.status = 'APPROVED' and b.end_date < ?3")
+                .setParameter(1, bookerId)
+                .setParameter(2, itemId)
+                .setParameter(3, moment)
+                .setMaxResults(1)
+                .getResultList().isEmpty();
+    }
+
+    @SuppressWarnings("unchecked")
+    public Map<Integer, BookingDtoShort> findLast(Collection<Integer> itemIds, LocalDateTime moment) {
+        Map<Integer, BookingDtoShort> last = new HashMap<>();
+        if (!partitions.isSupported() || itemIds.isEmpty()) return last;
+        List<Object[]> rows = entityManager.createNativeQuery("select distinct on (b.item_id) b.item_id, b.id, " +
+                        "b.start_date, b.end_date, b.status, b.booker_id from bookings_archive b " +
+                        "where b.item_id in (?1) and b.status = 'APPROVED' and b.end_date < ?2 " +
+                        "order by b.item_id, b.end_date desc, b.id")
+                .setParameter(1, itemIds)
+                .setParameter(2, moment)
+                .getResultList();
+        for (Object[] row : rows) {
+            last.put(((Number) row[0]).intValue(), new BookingDtoShort(((Number) row[1]).intValue(),
+                    toTime(row[2]), toTime(row[3]), (String) row[4], ((Number) row[5]).intValue()));
+        }
+        return last;
+    }
+
+    public Map<BookingStatus, Long> countByBooker(Integer bookerId) {
+        return count("select b.status, count(*) from bookings_archive b where b.booker_id = ?1 group by b.status",
+                bookerId);
+    }
+
+    public Map<BookingStatus, Long> countByOwner(Integer ownerId) {
+        return count("select b.status, count(*) from bookings_archive b join items i on i.id = b.item_id " +
+                "where i.owner_id = ?1 group by b.status", ownerId);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<BookingStatus, Long> count(String sql, Integer userId) {
+        Map<BookingStatus, Long> counts = new EnumMap<>(BookingStatus.class);
+        if (!partitions.isSupported()) return counts;
+        List<Object[]> rows = entityManager.createNativeQuery(sql).setParameter(1, userId).getResultList();
+        for (Object[] row : rows) {
+            counts.put(BookingStatus.valueOf((String) row[0]), ((Number) row[1]).longValue());
+        }
+        return counts;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<BookingDto> find(String select, Integer userId, StateMode state, LocalDateTime moment, Cursor cursor,
+                               long offset, int limit) {
+        if (!holds(state)) return new ArrayList<>();
+        StringBuilder sql = new StringBuilder(select);
+        List<Object> parameters = new ArrayList<>(List.of(userId));
+        switch (state) {
+            case PAST:
+                sql.append(" and b.end_date < ?").append(parameters.size() + 1);
+                parameters.add(moment);
+                break;
+            case WAITING:
+            case REJECTED:
+                sql.append(" and b.status = ?").append(parameters.size() + 1);
+                parameters.add(BookingStatus.valueOf(state.name()).name());
+                break;
+            default:
+                break;
+        }
+        if (cursor != null) {
+            int start = parameters.size() + 1;
+            sql.append(" and (b.start_date < ?").append(start)
+                    .append(" or (b.start_date = ?").append(start).append(" and b.id < ?").append(start + 1)
+                    .append("))");
+            parameters.add(cursor.requireKey());
+            parameters.add(cursor.getId());
+        }
+        sql.append(" order by b.start_date desc, b.id desc");
+        Query query = entityManager.createNativeQuery(sql.toString())
+                .setFirstResult((int) offset)
+                .setMaxResults(limit);
+        for (int i = 0; i < parameters.size(); i++) {
+            query.setParameter(i + 1, parameters.get(i));
+        }
+        List<BookingDto> bookings = new ArrayList<>();
+        for (Object[] row : (List<Object[]>) query.getResultList()) {
+            bookings.add(toDto(row));
+        }
+        return bookings;
+    }
+
+    private static BookingDto toDto(Object[] row) {
+        return new BookingDto(((Number) row[0]).intValue(), toTime(row[1]), toTime(row[2]),
+                BookingStatus.valueOf((String) row[3]), ((Number) row[4]).intValue(), (String) row[5],
+                ((Number) row[6]).intValue(), (String) row[7]);
+    }
+
+    private static LocalDateTime toTime(Object value) {
+        return value instanceof Timestamp ? ((Timestamp) value).toLocalDateTime() : (LocalDateTime) value;
+    }
+}
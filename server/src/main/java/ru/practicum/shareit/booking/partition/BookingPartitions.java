@@ -0,0 +1,133 @@
+package ru.practicum.shareit.booking.partition;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Monthly partitions of bookings on PostgreSQL, partitions older than the hot period go to bookings_archive.
+ */
+@Slf4j
+@Component
+public class BookingPartitions {
+
+    //Ключи advisory-блокировки DDL секций, чтобы реплики не создавали одну секцию одновременно
+    private static final int ADVISORY_NAMESPACE = 0x42_4F_4F_4B;
+    private static final int ADVISORY_DDL = -1;
+    private static final String PREFIX = "bookings_p";
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyy_MM");
+    private static final String PARTITIONS = "select c.relname from pg_inherits i " +
+            "join pg_class c on c.oid = i.inhrelid where i.inhparent = 'bookings'::regclass";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean supported;
+    private final int monthsAhead;
+    private final Duration hotPeriod;
+    private final Set<YearMonth> hot = ConcurrentHashMap.newKeySet();
+
+    @Autowired
+    public BookingPartitions(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                             @Value("${spring.sql.init.platform:}") String platform,
+                             @Value("${shareit.booking.partitions.months-ahead:3}") int monthsAhead,
+                             @Value("${shareit.booking.archive.after:P365D}") Duration hotPeriod,
+                             @Value("${shareit.booking.max-duration:P365D}") Duration maxBookingDuration) {
+        if (hotPeriod.compareTo(maxBookingDuration) < 0)
+            throw new IllegalArgumentException("Bookings may not be archived before they can end: "
+                    + hotPeriod + " is shorter than " + maxBookingDuration);
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.supported = "postgresql".equals(platform);
+        this.monthsAhead = monthsAhead;
+        this.hotPeriod = hotPeriod;
+    }
+
+    public boolean isSupported() {
+        return supported;
+    }
+
+    /**
+     * A missing partition is created in a transaction of its own, so call it before reading bookings.
+     */
+    public void ensure(LocalDateTime start) {
+        if (!supported) return;
+        YearMonth month = YearMonth.from(start);
+        if (hot.contains(month)) return;
+        transactionTemplate.executeWithoutResult(status -> create(month));
+        hot.add(month);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${shareit.booking.partitions.cron:0 0 3 * * *}")
+    public void maintain() {
+        if (!supported) return;
+        YearMonth current = YearMonth.now();
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int i = 0; i <= monthsAhead; i++) {
+                create(current.plusMonths(i));
+            }
+        });
+        //Секция целиком старше горячего периода, если её верхняя граница не позже начала месяца отсечки
+        YearMonth cutoff = YearMonth.from(LocalDateTime.now().minus(hotPeriod));
+        for (String partition : jdbcTemplate.queryForList(PARTITIONS, String.class)) {
+            YearMonth month = monthOf(partition);
+            if (month.isBefore(cutoff)) {
+                transactionTemplate.executeWithoutResult(status -> archive(month));
+            } else {
+                hot.add(month);
+            }
+        }
+    }
+
+    private void create(YearMonth month) {
+        lockDdl();
+        jdbcTemplate.execute("create table if not exists " + name(month) + " partition of bookings "
+                + bounds(month));
+        log.debug("Bookings partition {} is ready.", name(month));
+    }
+
+    private void archive(YearMonth month) {
+        lockDdl();
+        String name = name(month);
+        hot.remove(month);
+        //Другая реплика могла перенести секцию, пока ждали блокировку
+        if (!jdbcTemplate.queryForList(PARTITIONS + " and c.relname = ?", String.class, name).contains(name)) return;
+        jdbcTemplate.execute("alter table " + name + " add constraint " + name + "_range check (start_date >= '"
+                + month.atDay(1) + "' and start_date < '" + month.plusMonths(1).atDay(1) + "')");
+        jdbcTemplate.execute("alter table bookings detach partition " + name);
+        jdbcTemplate.execute("alter table bookings_archive attach partition " + name + " " + bounds(month));
+        log.info("Bookings partition {} moved to the archive.", name);
+    }
+
+    private void lockDdl() {
+        jdbcTemplate.queryForList("select pg_advisory_xact_lock(?, ?)", ADVISORY_NAMESPACE, ADVISORY_DDL);
+    }
+
+    private static String name(YearMonth month) {
+        return PREFIX + month.format(SUFFIX);
+    }
+
+    private static YearMonth monthOf(String partition) {
+        return YearMonth.parse(partition.substring(PREFIX.length()), SUFFIX);
+    }
+
+    private static String bounds(YearMonth month) {
+        return "for values from ('" + month.atDay(1) + "') to ('" + month.plusMonths(1).atDay(1) + "')";
+    }
+}
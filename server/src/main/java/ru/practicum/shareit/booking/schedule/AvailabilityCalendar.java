@@ -0,0 +1,88 @@
+package ru.practicum.shareit.booking.schedule;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.cache.CommitEvictedCache;
+import ru.practicum.shareit.item.dto.AvailabilityPeriodDto;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Free and busy periods of an item between two moments.
+ */
+@Component
+public class AvailabilityCalendar {
+
+    private final BookingRepository bookingRepository;
+    private final Duration ttl;
+    private final CommitEvictedCache<Integer, List<AvailabilityPeriodDto>> cache;
+
+    @Autowired
+    public AvailabilityCalendar(BookingRepository bookingRepository, MeterRegistry meterRegistry,
+                                @Value("${shareit.availability.cache.items:1000}") int maxItems,
+                                @Value("${shareit.availability.cache.ranges-per-item:8}") int maxRangesPerItem,
+                                @Value("${shareit.availability.cache.ttl:PT1M}") Duration ttl) {
+        this.bookingRepository = bookingRepository;
+        this.ttl = ttl;
+        this.cache = new CommitEvictedCache<>("availability", maxItems, maxRangesPerItem);
+        this.cache.bindTo(meterRegistry);
+    }
+
+    public List<AvailabilityPeriodDto> periods(Integer itemId, LocalDateTime from, LocalDateTime to) {
+        return cache.get(itemId, new Range(from, to), () -> CommitEvictedCache.Loaded.of(
+                Collections.unmodifiableList(sweep(from, to, bookingRepository.findIntervals(itemId,
+                        BookingIntervalIndex.TAKING_STATUSES, from, to))), ttl));
+    }
+
+    public void invalidate(Integer itemId) {
+        cache.invalidate(List.of(itemId));
+    }
+
+    /**
+     * Intervals must be sorted by start.
+     */
+    static List<AvailabilityPeriodDto> sweep(LocalDateTime from, LocalDateTime to, List<BookingInterval> intervals) {
+        List<AvailabilityPeriodDto> periods = new ArrayList<>();
+        LocalDateTime freeSince = from;
+        LocalDateTime busyStart = null;
+        LocalDateTime busyEnd = null;
+        for (BookingInterval interval : intervals) {
+            LocalDateTime start = interval.getStart().isBefore(from) ? from : interval.getStart();
+            LocalDateTime end = interval.getEnd().isAfter(to) ? to : interval.getEnd();
+            if (busyEnd != null && !start.isAfter(busyEnd)) {
+                if (end.isAfter(busyEnd)) busyEnd = end;
+                continue;
+            }
+            if (busyEnd != null) {
+                periods.add(new AvailabilityPeriodDto(busyStart, busyEnd, false));
+                freeSince = busyEnd;
+            }
+            if (freeSince.isBefore(start)) periods.add(new AvailabilityPeriodDto(freeSince, start, true));
+            busyStart = start;
+            busyEnd = end;
+        }
+        if (busyEnd != null) {
+            periods.add(new AvailabilityPeriodDto(busyStart, busyEnd, false));
+            freeSince = busyEnd;
+        }
+        if (freeSince.isBefore(to)) periods.add(new AvailabilityPeriodDto(freeSince, to, true));
+        return periods;
+    }
+
+    @EqualsAndHashCode
+    @AllArgsConstructor
+    private static class Range {
+
+        private final LocalDateTime from;
+        private final LocalDateTime to;
+    }
+}
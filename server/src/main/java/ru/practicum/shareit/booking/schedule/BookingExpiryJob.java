@@ -0,0 +1,145 @@
+package ru.practicum.shareit.booking.schedule;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.BookingRef;
+import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.booking.summary.BookingSummaries;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Moves WAITING bookings whose start has passed to EXPIRED.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(value = "shareit.booking.expiry.enabled", havingValue = "true", matchIfMissing = true)
+public class BookingExpiryJob {
+
+    private final BookingRepository bookingRepository;
+    private final BookingIntervalIndex intervalIndex;
+    private final AvailabilityCalendar availabilityCalendar;
+    private final ItemLocks itemLocks;
+    private final BookingSummaries summaries;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final int lockGroup;
+    private final Duration pause;
+    private final Counter expired;
+    private final DistributionSummary rowsPerRun;
+    private final Timer runTimer;
+
+    @Autowired
+    public BookingExpiryJob(BookingRepository bookingRepository, BookingIntervalIndex intervalIndex,
+                            AvailabilityCalendar availabilityCalendar, ItemLocks itemLocks,
+                            BookingSummaries summaries,
+                            TransactionTemplate transactionTemplate, MeterRegistry meterRegistry,
+                            @Value("${shareit.booking.expiry.batch-size:500}") int batchSize,
+                            @Value("${shareit.booking.expiry.lock-group:8}") int lockGroup,
+                            @Value("${shareit.booking.expiry.pause:PT0.1S}") Duration pause) {
+        this.bookingRepository = bookingRepository;
+        this.intervalIndex = intervalIndex;
+        this.availabilityCalendar = availabilityCalendar;
+        this.itemLocks = itemLocks;
+        this.summaries = summaries;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.lockGroup = lockGroup;
+        this.pause = pause;
+        this.expired = Counter.builder("shareit.bookings.expired")
+                .description("WAITING bookings moved to EXPIRED")
+                .register(meterRegistry);
+        this.rowsPerRun = DistributionSummary.builder("shareit.bookings.expiry.rows")
+                .description("Bookings expired by one run of the job")
+                .register(meterRegistry);
+        this.runTimer = Timer.builder("shareit.bookings.expiry.run")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.booking.expiry.interval:PT1M}",
+            initialDelayString = "${shareit.booking.expiry.interval:PT1M}")
+    public void run() {
+        runTimer.record(() -> {
+            LocalDateTime moment = LocalDateTime.now();
+            int total = 0;
+            int chunk;
+            do {
+                chunk = expireChunk(moment);
+                total += chunk;
+                if (chunk == batchSize && !sleep()) break;
+            } while (chunk == batchSize);
+            rowsPerRun.record(total);
+            if (total > 0) log.info("Expired {} waiting bookings started before {}.", total, moment);
+        });
+    }
+
+    /**
+     * @return number of candidates read, a full batch means more may be left
+     */
+    int expireChunk(LocalDateTime moment) {
+        List<BookingRef> candidates = bookingRepository.findRefsByStatusAndStartBefore(BookingStatus.WAITING,
+                moment, PageRequest.of(0, batchSize));
+        if (candidates.isEmpty()) return 0;
+        Map<Integer, List<BookingRef>> byItem = candidates.stream()
+                .collect(Collectors.groupingBy(BookingRef::getItemId, TreeMap::new, Collectors.toList()));
+        Map<Integer, List<BookingRef>> group = new TreeMap<>();
+        for (Map.Entry<Integer, List<BookingRef>> entry : byItem.entrySet()) {
+            group.put(entry.getKey(), entry.getValue());
+            if (group.size() == lockGroup) {
+                expireGroup(group);
+                group = new TreeMap<>();
+            }
+        }
+        if (!group.isEmpty()) expireGroup(group);
+        return candidates.size();
+    }
+
+    private void expireGroup(Map<Integer, List<BookingRef>> group) {
+        transactionTemplate.executeWithoutResult(status -> {
+            itemLocks.lockAll(group.keySet());
+            List<BookingRef> refs = group.values().stream().flatMap(List::stream).collect(Collectors.toList());
+            //Пока блокировки не были взяты, владелец мог успеть принять решение по части броней
+            List<Booking> stale = bookingRepository.findAllByIdInAndStatus(
+                    refs.stream().map(BookingRef::getId).collect(Collectors.toList()), BookingStatus.WAITING);
+            if (stale.isEmpty()) return;
+            int updated = bookingRepository.changeStatus(
+                    stale.stream().map(Booking::getId).collect(Collectors.toList()),
+                    BookingStatus.WAITING, BookingStatus.EXPIRED);
+            stale.forEach(intervalIndex::release);
+            group.keySet().forEach(availabilityCalendar::invalidate);
+            Set<Integer> staleIds = stale.stream().map(Booking::getId).collect(Collectors.toSet());
+            refs.stream().filter(ref -> staleIds.contains(ref.getId()))
+                    .forEach(ref -> summaries.invalidate(ref.getBookerId(), ref.getOwnerId()));
+            expired.increment(updated);
+        });
+    }
+
+    private boolean sleep() {
+        if (pause.isZero()) return true;
+        try {
+            Thread.sleep(pause.toMillis());
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
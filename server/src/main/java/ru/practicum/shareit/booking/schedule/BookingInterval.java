@@ -0,0 +1,24 @@
+package ru.practicum.shareit.booking.schedule;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.LocalDateTime;
+
+/**
+ * The end is exclusive: a booking may start at the moment the previous one ends.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class BookingInterval {
+
+    private final Integer bookingId;
+    private final LocalDateTime start;
+    private final LocalDateTime end;
+
+    boolean overlaps(LocalDateTime otherStart, LocalDateTime otherEnd) {
+        return start.isBefore(otherEnd) && end.isAfter(otherStart);
+    }
+}
@@ -0,0 +1,187 @@
+package ru.practicum.shareit.booking.schedule;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.booking.exception.BookingOverlapException;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Time taken by WAITING and APPROVED bookings per item, callers hold {@link ItemLocks} of the item.
+ */
+@Slf4j
+@Component
+public class BookingIntervalIndex {
+
+    static final Set<BookingStatus> TAKING_STATUSES = EnumSet.of(BookingStatus.WAITING, BookingStatus.APPROVED);
+
+    private final BookingRepository bookingRepository;
+    private final boolean shared;
+    private final Map<Integer, ItemSchedule> schedules;
+
+    @Autowired
+    public BookingIntervalIndex(BookingRepository bookingRepository,
+                                @Value("${shareit.booking.lock.advisory:false}") boolean shared,
+                                @Value("${shareit.booking.index.items:10000}") int maxItems) {
+        this.bookingRepository = bookingRepository;
+        this.shared = shared;
+        this.schedules = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, ItemSchedule> eldest) {
+                return size() > maxItems;
+            }
+        };
+    }
+
+    /**
+     * Throws {@link BookingOverlapException} when the time is taken, the time is given back on rollback.
+     */
+    public void reserve(Booking booking) {
+        Integer itemId = booking.getItem().getId();
+        BookingInterval interval = new BookingInterval(booking.getId(), booking.getStart(), booking.getEnd());
+        ItemSchedule schedule = schedule(itemId, booking.getId());
+        synchronized (schedule) {
+            schedule.prune(LocalDateTime.now());
+            //Расписание помнит только брони, не закончившиеся к моменту загрузки, более ранние смотрим в базе.
+            //Если сервер не один, брони могли прийти через другие реплики, тогда база проверяется всегда
+            boolean checked = shared || interval.getStart().isBefore(schedule.horizon);
+            if (checked && overlapsInDatabase(booking)) throw overlap(itemId);
+            if (schedule.conflicts(interval)) {
+                //Расписание могло загрузиться, пока другая транзакция отменяла бронь: занятость подтверждает база
+                if (!checked && overlapsInDatabase(booking)) throw overlap(itemId);
+                schedule.dropConflicts(interval);
+            }
+            schedule.add(interval);
+        }
+        afterCompletion(committed -> {
+            if (!committed) remove(itemId, interval);
+        });
+    }
+
+    public void release(Booking booking) {
+        Integer itemId = booking.getItem().getId();
+        BookingInterval interval = new BookingInterval(booking.getId(), booking.getStart(), booking.getEnd());
+        afterCompletion(committed -> {
+            if (committed) remove(itemId, interval);
+        });
+    }
+
+    private ItemSchedule schedule(Integer itemId, Integer bookingId) {
+        synchronized (schedules) {
+            ItemSchedule schedule = schedules.get(itemId);
+            if (schedule != null) return schedule;
+        }
+        //Сама бронь уже сохранена в этой транзакции и видна при загрузке расписания, её пропускаем
+        ItemSchedule loaded = load(itemId, bookingId);
+        synchronized (schedules) {
+            ItemSchedule schedule = schedules.putIfAbsent(itemId, loaded);
+            return schedule == null ? loaded : schedule;
+        }
+    }
+
+    private boolean overlapsInDatabase(Booking booking) {
+        return bookingRepository.existsOverlap(booking.getItem().getId(), booking.getId(), TAKING_STATUSES,
+                booking.getStart(), booking.getEnd());
+    }
+
+    private ItemSchedule load(Integer itemId, Integer skippedBookingId) {
+        LocalDateTime horizon = LocalDateTime.now();
+        ItemSchedule schedule = new ItemSchedule(horizon);
+        for (Booking booking : bookingRepository.findByItemIdAndStatusInAndEndIsAfterOrderByStart(itemId,
+                TAKING_STATUSES, horizon)) {
+            if (Objects.equals(booking.getId(), skippedBookingId)) continue;
+            schedule.load(new BookingInterval(booking.getId(), booking.getStart(), booking.getEnd()));
+        }
+        log.debug("Loaded schedule of item id:{}, {} intervals.", itemId, schedule.intervals.size());
+        return schedule;
+    }
+
+    private void remove(Integer itemId, BookingInterval interval) {
+        ItemSchedule schedule;
+        synchronized (schedules) {
+            schedule = schedules.get(itemId);
+        }
+        if (schedule == null) return;
+        synchronized (schedule) {
+            BookingInterval current = schedule.intervals.get(interval.getStart());
+            if (current != null && Objects.equals(current.getBookingId(), interval.getBookingId())) {
+                schedule.intervals.remove(interval.getStart());
+            }
+        }
+    }
+
+    private static BookingOverlapException overlap(Integer itemId) {
+        return new BookingOverlapException("Item id:" + itemId + " is already booked for these dates.");
+    }
+
+    private static void afterCompletion(CompletionCallback callback) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            callback.completed(true);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                callback.completed(status == STATUS_COMMITTED);
+            }
+        });
+    }
+
+    private interface CompletionCallback {
+        void completed(boolean committed);
+    }
+
+    private static class ItemSchedule {
+
+        private LocalDateTime horizon;
+        private final NavigableMap<LocalDateTime, BookingInterval> intervals = new TreeMap<>();
+
+        ItemSchedule(LocalDateTime horizon) {
+            this.horizon = horizon;
+        }
+
+        boolean conflicts(BookingInterval interval) {
+            Map.Entry<LocalDateTime, BookingInterval> previous = intervals.lowerEntry(interval.getEnd());
+            return previous != null && previous.getValue().overlaps(interval.getStart(), interval.getEnd());
+        }
+
+        void prune(LocalDateTime moment) {
+            while (!intervals.isEmpty() && !intervals.firstEntry().getValue().getEnd().isAfter(moment)) {
+                intervals.pollFirstEntry();
+            }
+            if (moment.isAfter(horizon)) horizon = moment;
+        }
+
+        void dropConflicts(BookingInterval interval) {
+            while (conflicts(interval)) {
+                intervals.remove(intervals.lowerKey(interval.getEnd()));
+            }
+        }
+
+        void add(BookingInterval interval) {
+            intervals.put(interval.getStart(), interval);
+        }
+
+        /**
+         * Overlapping bookings made before the check are merged into one interval which is never released.
+         */
+        void load(BookingInterval interval) {
+            Map.Entry<LocalDateTime, BookingInterval> last = intervals.lastEntry();
+            if (last == null || !last.getValue().overlaps(interval.getStart(), interval.getEnd())) {
+                add(interval);
+                return;
+            }
+            BookingInterval merged = last.getValue();
+            LocalDateTime end = merged.getEnd().isAfter(interval.getEnd()) ? merged.getEnd() : interval.getEnd();
+            add(new BookingInterval(null, merged.getStart(), end));
+        }
+    }
+}
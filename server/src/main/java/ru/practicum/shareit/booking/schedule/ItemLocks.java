@@ -0,0 +1,77 @@
+package ru.practicum.shareit.booking.schedule;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Serializes changes of bookings of one item until the end of the current transaction.
+ */
+@Slf4j
+@Component
+public class ItemLocks {
+
+    //Первый ключ advisory-блокировки, чтобы не пересекаться с другими блокировками по id
+    static final int ADVISORY_NAMESPACE = 0x42_4F_4F_4B;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean advisory;
+    private final ReentrantLock[] stripes;
+
+    @Autowired
+    public ItemLocks(JdbcTemplate jdbcTemplate,
+                     @Value("${shareit.booking.lock.stripes:64}") int stripes,
+                     @Value("${shareit.booking.lock.advisory:false}") boolean advisory) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.advisory = advisory;
+        this.stripes = new ReentrantLock[stripes];
+        for (int i = 0; i < stripes; i++) {
+            this.stripes[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Must be called inside a transaction: the lock is released when it completes.
+     */
+    public void lock(Integer itemId) {
+        lockAll(List.of(itemId));
+    }
+
+    /**
+     * Stripes are taken in the order of their index and advisory locks in the order of item ids, so transactions never
+     * wait for each other in a cycle. Items locked later in the same transaction must be among these.
+     */
+    public void lockAll(Collection<Integer> itemIds) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive())
+            throw new IllegalStateException("Item lock requires an active transaction.");
+        //Разные вещи попадают в одну полосу: порядок id вещей не задаёт порядок полос
+        SortedSet<Integer> indexes = new TreeSet<>();
+        itemIds.forEach(itemId -> indexes.add(Math.floorMod(itemId.hashCode(), stripes.length)));
+        for (Integer index : indexes) {
+            ReentrantLock lock = stripes[index];
+            lock.lock();
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    lock.unlock();
+                }
+            });
+        }
+        if (advisory) {
+            for (Integer itemId : new TreeSet<>(itemIds)) {
+                jdbcTemplate.queryForList("select pg_advisory_xact_lock(?, ?)", ADVISORY_NAMESPACE, itemId);
+            }
+        }
+        log.trace("Locked items {}", itemIds);
+    }
+}
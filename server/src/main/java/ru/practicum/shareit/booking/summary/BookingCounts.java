@@ -0,0 +1,38 @@
+package ru.practicum.shareit.booking.summary;
+
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.LocalDateTime;
+
+/**
+ * Until the nearest start or end after the query no booking moves to another time state.
+ */
+@Getter
+@ToString
+public class BookingCounts {
+
+    private final long all;
+    private final long current;
+    private final long past;
+    private final long future;
+    private final long waiting;
+    private final long rejected;
+    private final LocalDateTime nextChange;
+
+    public BookingCounts(Long all, Long current, Long past, Long future, Long waiting, Long rejected,
+                         LocalDateTime nextStart, LocalDateTime nextEnd) {
+        //У пользователя без броней суммы приходят как null
+        this.all = valueOf(all);
+        this.current = valueOf(current);
+        this.past = valueOf(past);
+        this.future = valueOf(future);
+        this.waiting = valueOf(waiting);
+        this.rejected = valueOf(rejected);
+        this.nextChange = nextStart == null || nextEnd != null && nextEnd.isBefore(nextStart) ? nextEnd : nextStart;
+    }
+
+    private static long valueOf(Long count) {
+        return count == null ? 0 : count;
+    }
+}
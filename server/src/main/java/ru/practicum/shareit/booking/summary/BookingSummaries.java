@@ -0,0 +1,91 @@
+package ru.practicum.shareit.booking.summary;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.booking.dto.BookingSummaryDto;
+import ru.practicum.shareit.booking.partition.BookingArchive;
+import ru.practicum.shareit.cache.CommitEvictedCache;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Numbers of bookings of a user in every list state, as a booker and as an owner of items.
+ */
+@Component
+public class BookingSummaries {
+
+    private final BookingRepository bookingRepository;
+    private final BookingArchive bookingArchive;
+    private final Duration maxDuration;
+    private final Duration ttl;
+    private final CommitEvictedCache<Key, BookingSummaryDto> cache;
+
+    @Autowired
+    public BookingSummaries(BookingRepository bookingRepository, BookingArchive bookingArchive,
+                            MeterRegistry meterRegistry,
+                            @Value("${shareit.booking.max-duration:P365D}") Duration maxDuration,
+                            @Value("${shareit.booking.summary.cache.ttl:PT1M}") Duration ttl,
+                            @Value("${shareit.booking.summary.cache.users:10000}") int maxUsers) {
+        this.bookingRepository = bookingRepository;
+        this.bookingArchive = bookingArchive;
+        this.maxDuration = maxDuration;
+        this.ttl = ttl;
+        this.cache = new CommitEvictedCache<>("booking-summaries", maxUsers, 1);
+        this.cache.bindTo(meterRegistry);
+    }
+
+    public BookingSummaryDto ofBooker(Integer bookerId) {
+        return get(new Key(bookerId, false));
+    }
+
+    public BookingSummaryDto ofOwner(Integer ownerId) {
+        return get(new Key(ownerId, true));
+    }
+
+    public void invalidate(Integer bookerId, Integer ownerId) {
+        cache.invalidate(List.of(new Key(bookerId, false), new Key(ownerId, true)));
+    }
+
+    private BookingSummaryDto get(Key key) {
+        return cache.get(key, () -> count(key));
+    }
+
+    private CommitEvictedCache.Loaded<BookingSummaryDto> count(Key key) {
+        LocalDateTime moment = LocalDateTime.now();
+        LocalDateTime longestStart = moment.minus(maxDuration);
+        BookingCounts counts = key.owner
+                ? bookingRepository.countByOwner(key.userId, moment, longestStart)
+                : bookingRepository.countByBooker(key.userId, moment, longestStart);
+        Map<BookingStatus, Long> archived = key.owner
+                ? bookingArchive.countByOwner(key.userId)
+                : bookingArchive.countByBooker(key.userId);
+        long archivedAll = archived.values().stream().mapToLong(Long::longValue).sum();
+        //Архивные брони давно закончились: все они прошедшие
+        BookingSummaryDto summary = new BookingSummaryDto(counts.getAll() + archivedAll, counts.getCurrent(),
+                counts.getPast() + archivedAll, counts.getFuture(),
+                counts.getWaiting() + archived.getOrDefault(BookingStatus.WAITING, 0L),
+                counts.getRejected() + archived.getOrDefault(BookingStatus.REJECTED, 0L));
+        LocalDateTime validUntil = moment.plus(ttl);
+        if (counts.getNextChange() != null && counts.getNextChange().isBefore(validUntil)) {
+            validUntil = counts.getNextChange();
+        }
+        return CommitEvictedCache.Loaded.of(summary, Duration.between(moment, validUntil));
+    }
+
+    @EqualsAndHashCode
+    @AllArgsConstructor
+    private static class Key {
+
+        private final Integer userId;
+        private final boolean owner;
+    }
+}
@@ -0,0 +1,135 @@
+package ru.practicum.shareit.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Values read from the database for the most recently used keys. A key is evicted once the transaction changing it
+ * commits, and a value is read again at the latest when its lifetime ends: changes made by other instances of the
+ * server are seen after it.
+ */
+@Slf4j
+public class CommitEvictedCache<K, V> implements MeterBinder {
+
+    private final String name;
+    private final int maxVariants;
+    private final Map<K, Holder<V>> holders;
+    private Counter hits;
+    private Counter misses;
+
+    public CommitEvictedCache(String name, int maxKeys, int maxVariants) {
+        this.name = name;
+        this.maxVariants = maxVariants;
+        this.holders = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Holder<V>> eldest) {
+                return size() > maxKeys;
+            }
+        };
+    }
+
+    @Override
+    public void bindTo(MeterRegistry meterRegistry) {
+        hits = Counter.builder("cache.gets").tag("cache", name).tag("result", "hit")
+                .description("Values served from the cache")
+                .register(meterRegistry);
+        misses = Counter.builder("cache.gets").tag("cache", name).tag("result", "miss")
+                .description("Values read from the database")
+                .register(meterRegistry);
+        Gauge.builder("cache.size", this, CommitEvictedCache::size).tag("cache", name).register(meterRegistry);
+    }
+
+    public V get(K key, Supplier<Loaded<V>> loader) {
+        return get(key, key, loader);
+    }
+
+    /**
+     * @param loader reads the value, it may throw and then nothing is cached
+     */
+    public V get(K key, Object variant, Supplier<Loaded<V>> loader) {
+        //Контейнер берём до запроса: если ключ выбросят во время чтения, прочитанное уйдёт вместе с контейнером
+        Holder<V> holder;
+        synchronized (holders) {
+            holder = holders.computeIfAbsent(key, k -> new Holder<>());
+        }
+        long now = System.nanoTime();
+        Entry<V> entry = holder.variants.get(variant);
+        if (entry != null && entry.expiresAt - now > 0) {
+            if (hits != null) hits.increment();
+            return entry.value;
+        }
+        if (misses != null) misses.increment();
+        Loaded<V> loaded = loader.get();
+        if (holder.variants.size() >= maxVariants) holder.variants.clear();
+        holder.variants.put(variant, new Entry<>(loaded.value, now + loaded.lifetime.toNanos()));
+        return loaded.value;
+    }
+
+    public V reload(K key, Supplier<Loaded<V>> loader) {
+        evict(List.of(key));
+        return get(key, loader);
+    }
+
+    /**
+     * Drops the keys once the surrounding transaction commits, or at once outside of a transaction.
+     */
+    public void invalidate(Collection<K> keys) {
+        if (keys.isEmpty()) return;
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            evict(keys);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                evict(keys);
+            }
+        });
+    }
+
+    public int size() {
+        synchronized (holders) {
+            return holders.size();
+        }
+    }
+
+    private void evict(Collection<K> keys) {
+        synchronized (holders) {
+            keys.forEach(holders::remove);
+        }
+        log.trace("Keys {} of cache {} evicted.", keys, name);
+    }
+
+    @AllArgsConstructor(staticName = "of")
+    public static class Loaded<V> {
+
+        private final V value;
+        private final Duration lifetime;
+    }
+
+    private static class Holder<V> {
+
+        private final Map<Object, Entry<V>> variants = new ConcurrentHashMap<>();
+    }
+
+    @AllArgsConstructor
+    private static class Entry<V> {
+
+        private final V value;
+        private final long expiresAt;
+    }
+}
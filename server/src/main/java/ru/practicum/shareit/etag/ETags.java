@@ -0,0 +1,19 @@
+package ru.practicum.shareit.etag;
+
+/**
+ * Weak entity tags made of the values that change together with the response.
+ */
+public final class ETags {
+
+    private ETags() {
+    }
+
+    public static String weak(Object... parts) {
+        StringBuilder tag = new StringBuilder("W/\"");
+        for (int i = 0; i < parts.length; i++) {
+            if (i > 0) tag.append('-');
+            tag.append(parts[i]);
+        }
+        return tag.append('"').toString();
+    }
+}
@@ -0,0 +1,87 @@
+package ru.practicum.shareit.export;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import javax.servlet.http.HttpServletResponse;
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Writes query results as NDJSON while a server-side cursor reads them.
+ */
+@Slf4j
+@Component
+public class NdjsonExport {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter objectWriter;
+    private final Duration timeout;
+
+    @Autowired
+    public NdjsonExport(DataSource dataSource, PlatformTransactionManager transactionManager,
+                        ObjectMapper objectMapper,
+                        @Value("${shareit.export.fetch-size:1000}") int fetchSize,
+                        @Value("${shareit.export.timeout:PT30M}") Duration timeout) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.objectMapper = objectMapper;
+        //Сброс после каждой строки отправлял бы её отдельным пакетом, буферы сбрасываются по заполнении
+        this.objectWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.timeout = timeout;
+    }
+
+    public WebAsyncTask<Void> respond(StreamingResponseBody body, HttpServletResponse response) {
+        //Время ответа StreamingResponseBody задаётся только глобально, поэтому тело пишем сами
+        return new WebAsyncTask<>(timeout.toMillis(), () -> {
+            response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+            body.writeTo(response.getOutputStream());
+            response.flushBuffer();
+            return null;
+        });
+    }
+
+    public <T> StreamingResponseBody stream(RowMapper<T> rowMapper, List<String> queries, Object... args) {
+        return out -> {
+            JsonGenerator generator = objectMapper.getFactory().createGenerator(out)
+                    .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            long[] rows = {0};
+            transactionTemplate.executeWithoutResult(status -> {
+                for (String query : queries) {
+                    jdbcTemplate.query(query, (RowCallbackHandler) rs -> {
+                        try {
+                            objectWriter.writeValue(generator, rowMapper.mapRow(rs, (int) rows[0]++));
+                            generator.writeRaw('\n');
+                        } catch (IOException e) {
+                            //Клиент закрыл соединение, курсор закрывается вместе с транзакцией
+                            throw new UncheckedIOException(e);
+                        }
+                    }, args);
+                }
+            });
+            generator.close();
+            log.debug("{} rows exported.", rows[0]);
+        };
+    }
+}
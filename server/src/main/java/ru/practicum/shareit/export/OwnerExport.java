@@ -0,0 +1,63 @@
+package ru.practicum.shareit.export;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.booking.StateMode;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.partition.BookingArchive;
+import ru.practicum.shareit.handler.exception.NotFoundException;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.user.UserRepository;
+
+import javax.servlet.http.HttpServletResponse;
+import java.util.ArrayList;
+import java.util.List;
+
+@Component
+public class OwnerExport {
+
+    private static final String ITEMS = "select i.id, i.name, i.description, i.is_available, i.request_id " +
+            "from items i where i.owner_id = ? order by i.id";
+    private static final String BOOKINGS = "select b.id, b.start_date, b.end_date, b.status, i.id as item_id, " +
+            "i.name as item_name, u.id as booker_id, u.name as booker_name from %s b " +
+            "join items i on i.id = b.item_id join users u on u.id = b.booker_id " +
+            "where i.owner_id = ? order by b.id";
+
+    private final NdjsonExport export;
+    private final UserRepository userRepository;
+    private final BookingArchive bookingArchive;
+
+    @Autowired
+    public OwnerExport(NdjsonExport export, UserRepository userRepository, BookingArchive bookingArchive) {
+        this.export = export;
+        this.userRepository = userRepository;
+        this.bookingArchive = bookingArchive;
+    }
+
+    public StreamingResponseBody items(Integer ownerId) {
+        checkOwner(ownerId);
+        return export.stream((rs, n) -> new ItemDto(rs.getInt(1), rs.getString(2), rs.getString(3),
+                rs.getBoolean(4), rs.getObject(5, Integer.class)), List.of(ITEMS), ownerId);
+    }
+
+    public StreamingResponseBody bookings(Integer ownerId) {
+        checkOwner(ownerId);
+        List<String> queries = new ArrayList<>(List.of(String.format(BOOKINGS, "bookings")));
+        if (bookingArchive.holds(StateMode.ALL)) queries.add(String.format(BOOKINGS, "bookings_archive"));
+        return export.stream((rs, n) -> new BookingDto(rs.getInt(1), rs.getTimestamp(2).toLocalDateTime(),
+                rs.getTimestamp(3).toLocalDateTime(), BookingStatus.valueOf(rs.getString(4)), rs.getInt(5),
+                rs.getString(6), rs.getInt(7), rs.getString(8)), queries, ownerId);
+    }
+
+    public WebAsyncTask<Void> respond(StreamingResponseBody body, HttpServletResponse response) {
+        return export.respond(body, response);
+    }
+
+    //Владельца проверяем до начала ответа, пока ещё можно вернуть 404
+    private void checkOwner(Integer ownerId) {
+        if (!userRepository.existsById(ownerId)) throw new NotFoundException("Owner not found.");
+    }
+}
@@ -12,13 +12,18 @@ import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 import ru.practicum.shareit.booking.exception.BookingBadRequest;
 import ru.practicum.shareit.booking.exception.BookingCreateException;
+import ru.practicum.shareit.booking.exception.BookingOverlapException;
 import ru.practicum.shareit.booking.exception.BookingStatusChangeException;
+import ru.practicum.shareit.handler.exception.ConcurrentUpdateException;
 import ru.practicum.shareit.handler.exception.NotFoundException;
 import ru.practicum.shareit.handler.model.ErrorResponse;
 import ru.practicum.shareit.handler.model.ValidationErrorResponse;
 import ru.practicum.shareit.handler.model.Violation;
 import ru.practicum.shareit.item.exception.BadCommentException;
+import ru.practicum.shareit.item.exception.ImportFormatException;
+import ru.practicum.shareit.item.exception.InvalidRangeException;
 import ru.practicum.shareit.item.exception.ItemBadRequestException;
+import ru.practicum.shareit.paging.InvalidCursorException;
 import ru.practicum.shareit.user.exception.UserCreationException;
 
 import java.util.Locale;
@@ -61,18 +66,48 @@ public class ErrorHandler {
         return new ResponseEntity<>(e.getMessage(), HttpStatus.NOT_FOUND);
     }
 
+    @ExceptionHandler
+    public ResponseEntity<String> handleConcurrentUpdateException(final ConcurrentUpdateException e) {
+        log.error("ConcurrentUpdateException: {}", e.getMessage());
+        return new ResponseEntity<>(e.getMessage(), HttpStatus.CONFLICT);
+    }
+
     @ExceptionHandler
     public ResponseEntity<String> handleBookingCreateException(final BookingCreateException e) {
         log.error("BookingCreateException: {}", e.getMessage());
         return new ResponseEntity<>(e.getMessage(), e.getStatusCode());
     }
 
+    @ExceptionHandler
+    public ResponseEntity<String> handleBookingOverlapException(final BookingOverlapException e) {
+        log.error("BookingOverlapException: {}", e.getMessage());
+        return new ResponseEntity<>(e.getMessage(), HttpStatus.CONFLICT);
+    }
+
     @ExceptionHandler
     public ResponseEntity<String> handleBookingStatusChangeException(final BookingStatusChangeException e) {
         log.error("BookingStatusChangeException: {}", e.getMessage());
         return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
     }
 
+    @ExceptionHandler
+    public ResponseEntity<String> handleInvalidCursorException(final InvalidCursorException e) {
+        log.error("InvalidCursorException: {}", e.getMessage());
+        return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler
+    public ResponseEntity<String> handleInvalidRangeException(final InvalidRangeException e) {
+        log.error("InvalidRangeException: {}", e.getMessage());
+        return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler
+    public ResponseEntity<String> handleImportFormatException(final ImportFormatException e) {
+        log.error("ImportFormatException: {}", e.getMessage());
+        return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+    }
+
     @ExceptionHandler
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public ErrorResponse handleBookingBadRequest(final BookingBadRequest e) {
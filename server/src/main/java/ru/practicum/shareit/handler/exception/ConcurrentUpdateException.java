@@ -0,0 +1,11 @@
+package ru.practicum.shareit.handler.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpStatusCodeException;
+
+public class ConcurrentUpdateException extends HttpStatusCodeException {
+
+    public ConcurrentUpdateException(String msg) {
+        super(HttpStatus.CONFLICT, msg);
+    }
+}
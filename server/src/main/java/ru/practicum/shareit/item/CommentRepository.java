@@ -1,12 +1,41 @@
 package ru.practicum.shareit.item;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import ru.practicum.shareit.item.dto.CommentColumns;
+import ru.practicum.shareit.item.dto.CommentCount;
+import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.model.Comment;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 public interface CommentRepository extends JpaRepository<Comment, Integer> {
-    List<Comment> findAllByItemIdOrderByCreatedDesc(Integer itemId);
+    //Имя автора берётся соединением, а не отдельным запросом за каждым автором
+    String COMMENT_DTO = "select new ru.practicum.shareit.item.dto.CommentDto(c.id, c.text, c.item.id, a.name, " +
+            "c.created) from Comment c join c.author a ";
 
-    List<Comment> findAllByItemIdInOrderByCreatedDesc(List<Integer> itemsIds);
+    @Query(value = "select n.id as id, n.text as text, n.item_id as itemId, a.name as authorName, " +
+            "n.creation_date as created from (select c.*, row_number() over (" +
+            "partition by c.item_id order by c.creation_date desc, c.id desc) as rn " +
+            "from comments c where c.item_id in ?1) n " +
+            "join users a on a.id = n.author_id " +
+            "where n.rn <= ?2 order by n.item_id, n.rn", nativeQuery = true)
+    List<CommentColumns> findNewest(Collection<Integer> itemIds, int limit);
+
+    @Query("select c.item.id as itemId, count(c) as total from Comment c where c.item.id in ?1 group by c.item.id")
+    List<CommentCount> countByItemIds(Collection<Integer> itemIds);
+
+    @Query(COMMENT_DTO + "where c.item.id = ?1 order by c.created desc, c.id desc")
+    Slice<CommentDto> findByItemId(Integer itemId, Pageable pageable);
+
+    @Query(COMMENT_DTO + "where c.item.id = ?1 and (c.created < ?2 or (c.created = ?2 and c.id < ?3)) " +
+            "order by c.created desc, c.id desc")
+    Slice<CommentDto> findByItemIdBefore(Integer itemId, LocalDateTime created, Integer id, Pageable pageable);
+
+    @Query("select distinct c.item.id from Comment c where c.author.id = ?1")
+    List<Integer> findItemIdsByAuthorId(Integer authorId);
 }
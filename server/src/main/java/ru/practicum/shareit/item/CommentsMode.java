@@ -0,0 +1,15 @@
+package ru.practicum.shareit.item;
+
+import ru.practicum.shareit.item.exception.ItemBadRequestException;
+
+public enum CommentsMode {
+    FULL, SUMMARY;
+
+    public static CommentsMode parse(String line) {
+        try {
+            return CommentsMode.valueOf(line.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new ItemBadRequestException("Unknown comments mode: " + line);
+        }
+    }
+}
@@ -2,12 +2,28 @@ package ru.practicum.shareit.item;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import ru.practicum.shareit.export.OwnerExport;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.CreateItemRequest;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemImportReport;
+import ru.practicum.shareit.item.imports.ItemImporter;
+import ru.practicum.shareit.paging.Cursor;
+import ru.practicum.shareit.paging.PageResult;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
 import java.util.*;
 
 @Slf4j
@@ -16,10 +32,14 @@ import java.util.*;
 public class ItemController {
 
     private final ItemService itemService;
+    private final ItemImporter itemImporter;
+    private final OwnerExport ownerExport;
 
     @Autowired
-    public ItemController(ItemService itemService) {
+    public ItemController(ItemService itemService, ItemImporter itemImporter, OwnerExport ownerExport) {
         this.itemService = itemService;
+        this.itemImporter = itemImporter;
+        this.ownerExport = ownerExport;
     }
 
     @PostMapping //createItem
@@ -30,6 +50,15 @@ public class ItemController {
         return itemService.create(itemDto, ownerId);
     }
 
+    @PostMapping(value = "/import", consumes = {MediaType.APPLICATION_NDJSON_VALUE, "text/csv"}) //importItems
+    @ResponseStatus(HttpStatus.OK)
+    public ItemImportReport importItems(InputStream body,
+                                        @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+                                        @RequestHeader("X-Sharer-User-Id") Integer ownerId) throws IOException {
+        log.debug("POST-request at /items/import, content type: {}", contentType);
+        return itemImporter.importItems(body, contentType, ownerId);
+    }
+
     @PatchMapping("/{itemId}") //editItem
     @ResponseStatus(HttpStatus.OK)
     public ItemDto patch(@RequestBody CreateItemRequest itemDto,
@@ -41,30 +70,73 @@ public class ItemController {
     }
 
     @GetMapping("/{itemId}") //getItem
-    @ResponseStatus(HttpStatus.OK)
-    public ItemDto get(@PathVariable Integer itemId,
-                       @RequestHeader("X-Sharer-User-Id") Integer requesterId) {
+    public ResponseEntity<ItemDto> get(@PathVariable Integer itemId,
+                                       @RequestHeader("X-Sharer-User-Id") Integer requesterId,
+                                       WebRequest request) {
         log.debug("GET-request at /items/{}", itemId);
-        return itemService.getItem(itemId, requesterId);
+        //Совпал тег - 304 без чтения комментариев и бронирований
+        String eTag = itemService.getItemETag(itemId, requesterId);
+        if (eTag != null && request.checkNotModified(eTag)) return null;
+        return ResponseEntity.ok(itemService.getItem(itemId, requesterId, eTag));
     }
 
     @GetMapping //getAllItems
-    @ResponseStatus(HttpStatus.OK)
-    public List<ItemDto> getAll(@RequestHeader("X-Sharer-User-Id") Integer ownerId,
-                                @RequestParam(value = "from") Integer from,
-                                @RequestParam(value = "size") Integer size) {
+    public ResponseEntity<List<ItemDto>> getAll(@RequestHeader("X-Sharer-User-Id") Integer ownerId,
+                                                @RequestParam(value = "from") Integer from,
+                                                @RequestParam(value = "size") Integer size,
+                                                @RequestParam(value = "cursor", required = false) String cursor,
+                                                @RequestParam(value = "commentsMode", defaultValue = "full")
+                                                String commentsMode) {
         log.debug("GET-request at /items. Owner ID: {}", ownerId);
-        return itemService.getAllByOwner(ownerId, from, size);
+        PageResult<ItemDto> result = itemService.getAllByOwner(ownerId, from, size, Cursor.decode(cursor),
+                CommentsMode.parse(commentsMode));
+        return ResponseEntity.ok().headers(result.headers()).body(result.getContent());
+    }
+
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE) //exportItems
+    public WebAsyncTask<Void> export(@RequestHeader("X-Sharer-User-Id") Integer ownerId,
+                                     HttpServletResponse response) {
+        log.debug("GET-request at /items/export. Owner ID: {}", ownerId);
+        return ownerExport.respond(ownerExport.items(ownerId), response);
     }
 
     @GetMapping("/search") //search
-    @ResponseStatus(HttpStatus.OK)
-    public List<ItemDto> search(@RequestParam("text") String text,
-                                @RequestParam(value = "from") Integer from,
-                                @RequestParam(value = "size") Integer size) {
+    public ResponseEntity<List<ItemDto>> search(@RequestParam("text") String text,
+                                                @RequestParam(value = "from") Integer from,
+                                                @RequestParam(value = "size") Integer size,
+                                                @RequestParam(value = "cursor", required = false) String cursor,
+                                                @RequestParam(value = "approximate", defaultValue = "false")
+                                                boolean approximate,
+                                                @RequestParam(value = "commentsMode", defaultValue = "full")
+                                                String commentsMode) {
         log.debug("GET-request at /items/search?text={}", text);
-        if (text.isBlank()) return Collections.emptyList();
-        return itemService.search(text, from, size);
+        PageResult<ItemDto> result = text.isBlank()
+                ? PageResult.empty()
+                : itemService.search(text, from, size, Cursor.decode(cursor), approximate,
+                CommentsMode.parse(commentsMode));
+        return ResponseEntity.ok().headers(result.headers()).body(result.getContent());
+    }
+
+    @GetMapping("/{itemId}/availability") //getAvailability
+    @ResponseStatus(HttpStatus.OK)
+    public ItemAvailabilityDto getAvailability(@PathVariable Integer itemId,
+                                               @RequestParam("from")
+                                               @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                               @RequestParam("to")
+                                               @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        log.debug("GET-request at /items/{}/availability", itemId);
+        return itemService.getAvailability(itemId, from, to);
+    }
+
+    @GetMapping("/{itemId}/comments") //getComments
+    public ResponseEntity<List<CommentDto>> getComments(@PathVariable Integer itemId,
+                                                        @RequestParam(value = "from") Integer from,
+                                                        @RequestParam(value = "size") Integer size,
+                                                        @RequestParam(value = "cursor", required = false)
+                                                        String cursor) {
+        log.debug("GET-request at /items/{}/comments", itemId);
+        PageResult<CommentDto> result = itemService.getComments(itemId, from, size, Cursor.decode(cursor));
+        return ResponseEntity.ok().headers(result.headers()).body(result.getContent());
     }
 
     @PostMapping("/{itemId}/comment") //sendComment
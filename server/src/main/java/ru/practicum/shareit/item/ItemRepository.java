@@ -1,25 +1,93 @@
 package ru.practicum.shareit.item;
 
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import ru.practicum.shareit.item.dto.CommentSummaryColumns;
+import ru.practicum.shareit.item.dto.ItemColumns;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemVersionColumns;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.search.IndexedItem;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface ItemRepository extends JpaRepository<Item, Integer> {
-    List<Item> findByOwnerId(Integer ownerId, Pageable pageable);
+    String ITEM_DTO = "new ru.practicum.shareit.item.dto.ItemDto(i.id, i.name, i.description, i.available, " +
+            "i.requestId)";
 
-    List<Item> findByOwnerId(Integer ownerId);
+    @Query("select " + ITEM_DTO + " from Item i where i.owner.id = ?1 and i.id > ?2")
+    Slice<ItemDto> findByOwnerIdAndIdGreaterThan(Integer ownerId, Integer afterId, Pageable pageable);
 
-    @Query(" select i from Item i " +
+    @Query("select " + ITEM_DTO + " from Item i " +
             "where (upper(i.name) like upper(concat('%', ?1, '%')) " +
             " or upper(i.description) like upper(concat('%', ?1, '%')))" +
-            "and (i.available) is true")
-    Page<Item> search(String text, Pageable pageable);
+            "and (i.available) is true " +
+            "and i.id > ?2 " +
+            "order by i.id")
+    Slice<ItemDto> search(String text, Integer afterId, Pageable pageable);
 
-    List<Item> findAllByRequestIdIn(List<Integer> requestsId);
+    //"+ 0" в сортировке не даёт планировщику идти по pk с фильтром вместо GIN-индексов
+    @Query(value = "select i.id as id, i.name as name, i.description as description, " +
+            "i.is_available as available, i.request_id as requestId from items i " +
+            "where i.is_available " +
+            "and (i.search_vector @@ plainto_tsquery('russian', :text) " +
+            " or i.name ilike '%' || :text || '%' " +
+            " or i.description ilike '%' || :text || '%') " +
+            "and i.id > :afterId " +
+            "order by i.id + 0", nativeQuery = true)
+    Slice<ItemColumns> fullTextSearch(@Param("text") String text, @Param("afterId") Integer afterId, Pageable pageable);
 
-    List<Item> findAllByRequestId(Integer requestsId);
+    @Query("select new ru.practicum.shareit.item.search.IndexedItem(i.id, i.name, i.description, " +
+            "i.available, i.requestId) from Item i where i.id > ?1 order by i.id")
+    List<IndexedItem> findIndexedItems(Integer afterId, Pageable pageable);
+
+    @Query("select " + ITEM_DTO + " from Item i where i.requestId in ?1 order by i.id")
+    List<ItemDto> findAllByRequestIdIn(List<Integer> requestsId);
+
+    @Query("select " + ITEM_DTO + " from Item i where i.requestId = ?1 order by i.id")
+    List<ItemDto> findAllByRequestId(Integer requestsId);
+
+    @Query(value = "select i.id as id, i.comment_count as commentCount, i.last_comment_id as lastCommentId, " +
+            "i.last_comment_text as lastCommentText, i.last_comment_author as lastCommentAuthor, " +
+            "i.last_comment_created as lastCommentCreated from items i where i.id in ?1", nativeQuery = true)
+    List<CommentSummaryColumns> findCommentSummaries(Collection<Integer> itemIds);
+
+    @Query(value = "select i.owner_id as ownerId, i.version as version, i.comment_count as commentCount " +
+            "from items i where i.id = ?1", nativeQuery = true)
+    Optional<ItemVersionColumns> findVersion(Integer itemId);
+
+    /**
+     * Done by one update of the row: the counter neither changes the item version nor is lost to a concurrent patch.
+     */
+    @Modifying
+    @Query(value = "update items set comment_count = comment_count + 1, " +
+            "last_comment_id = case when last_comment_created is null or last_comment_created <= :created " +
+            " then :commentId else last_comment_id end, " +
+            "last_comment_text = case when last_comment_created is null or last_comment_created <= :created " +
+            " then :text else last_comment_text end, " +
+            "last_comment_author = case when last_comment_created is null or last_comment_created <= :created " +
+            " then :author else last_comment_author end, " +
+            "last_comment_created = case when last_comment_created is null or last_comment_created <= :created " +
+            " then :created else last_comment_created end " +
+            "where id = :itemId", nativeQuery = true)
+    int addComment(@Param("itemId") Integer itemId, @Param("commentId") Integer commentId,
+                   @Param("text") String text, @Param("author") String author,
+                   @Param("created") LocalDateTime created);
+
+    @Modifying
+    @Query(value = "update items set last_comment_author = ?2 " +
+            "where last_comment_id in (select c.id from comments c where c.author_id = ?1)", nativeQuery = true)
+    int renameLastCommentAuthor(Integer authorId, String name);
+
+    @Modifying
+    @Query(value = "update items set version = version + 1 " +
+            "where id in (select c.item_id from comments c where c.author_id = ?1)", nativeQuery = true)
+    int touchCommentedBy(Integer authorId);
 }
@@ -2,7 +2,8 @@ package ru.practicum.shareit.item;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.PageRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
@@ -12,18 +13,34 @@ import ru.practicum.shareit.booking.Booking;
 import ru.practicum.shareit.booking.BookingMapper;
 import ru.practicum.shareit.booking.BookingRepository;
 import ru.practicum.shareit.booking.BookingStatus;
-import ru.practicum.shareit.booking.dto.BookingDto;
-import ru.practicum.shareit.booking.dto.BookingDtoShort;
+import ru.practicum.shareit.booking.dto.BookingShortColumns;
+import ru.practicum.shareit.booking.partition.BookingArchive;
+import ru.practicum.shareit.booking.schedule.AvailabilityCalendar;
+import ru.practicum.shareit.etag.ETags;
 import ru.practicum.shareit.handler.exception.NotFoundException;
+import ru.practicum.shareit.item.cache.ItemView;
+import ru.practicum.shareit.item.cache.ItemViewCache;
+import ru.practicum.shareit.item.dto.CommentCount;
 import ru.practicum.shareit.item.dto.CommentDto;
+import ru.practicum.shareit.item.dto.CommentSummaryColumns;
 import ru.practicum.shareit.item.dto.CreateItemRequest;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemVersionColumns;
 import ru.practicum.shareit.item.exception.BadCommentException;
+import ru.practicum.shareit.item.exception.InvalidRangeException;
 import ru.practicum.shareit.item.exception.ItemBadRequestException;
 import ru.practicum.shareit.item.mapper.CommentMapper;
 import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.search.ItemSearchEngine;
+import ru.practicum.shareit.outbox.Outbox;
+import ru.practicum.shareit.outbox.OutboxEvent;
+import ru.practicum.shareit.paging.Cursor;
+import ru.practicum.shareit.paging.OffsetPageRequest;
+import ru.practicum.shareit.paging.PageResult;
+import ru.practicum.shareit.retry.ConflictRetry;
 import ru.practicum.shareit.user.User;
 import ru.practicum.shareit.user.UserRepository;
 
@@ -35,26 +52,45 @@ import java.util.stream.Collectors;
 @Service
 public class ItemService {
 
+    private static final int MAX_AVAILABILITY_DAYS = 366;
+
     private final ItemRepository itemRepository;
     private final UserRepository userRepository;
     private final ItemMapper itemMapper;
     private final BookingRepository bookingRepository;
     private final BookingMapper bookingMapper;
+    private final BookingArchive bookingArchive;
     private final CommentMapper commentMapper;
     private final CommentRepository commentRepository;
+    private final ItemSearchEngine searchEngine;
+    private final AvailabilityCalendar availabilityCalendar;
+    private final Outbox outbox;
+    private final ConflictRetry conflictRetry;
+    private final ItemViewCache itemViewCache;
+    private final int embeddedComments;
 
     @Autowired
     public ItemService(ItemRepository itemRepository, UserRepository userRepository,
                        ItemMapper itemMapper, BookingRepository bookingRepository,
-                       BookingMapper bookingMapper, CommentMapper commentMapper,
-                       CommentRepository commentRepository) {
+                       BookingMapper bookingMapper, BookingArchive bookingArchive, CommentMapper commentMapper,
+                       CommentRepository commentRepository, ItemSearchEngine searchEngine,
+                       AvailabilityCalendar availabilityCalendar, Outbox outbox,
+                       ConflictRetry conflictRetry, ItemViewCache itemViewCache,
+                       @Value("${shareit.item.comments.embedded:10}") int embeddedComments) {
         this.itemRepository = itemRepository;
         this.userRepository = userRepository;
         this.itemMapper = itemMapper;
         this.bookingRepository = bookingRepository;
         this.bookingMapper = bookingMapper;
+        this.bookingArchive = bookingArchive;
         this.commentMapper = commentMapper;
         this.commentRepository = commentRepository;
+        this.searchEngine = searchEngine;
+        this.availabilityCalendar = availabilityCalendar;
+        this.outbox = outbox;
+        this.conflictRetry = conflictRetry;
+        this.itemViewCache = itemViewCache;
+        this.embeddedComments = embeddedComments;
     }
 
     @Transactional
@@ -64,50 +100,117 @@ public class ItemService {
         Item newItem = itemMapper.toEntity(item);
         newItem.setOwner(owner.get());
         log.debug("Saving new item: {}", newItem);
-        return itemMapper.toDto(itemRepository.save(newItem));
+        Item savedItem = itemRepository.save(newItem);
+        searchEngine.itemChanged(savedItem);
+        ItemDto created = itemMapper.toDto(savedItem);
+        outbox.publish(OutboxEvent.AggregateType.ITEM, created.getId(), OutboxEvent.EventType.ITEM_CREATED, created);
+        return created;
     }
 
-    @Transactional
     public ItemDto patchItem(CreateItemRequest itemDto, Integer ownerId) {
-        Optional<Item> oldItem = itemRepository.findById(itemDto.getId());
-        if (oldItem.isEmpty()) throw new NotFoundException("Item with ID: " + itemDto.getId() + " not found.");
-        if (!Objects.equals(oldItem.get().getOwner().getId(), ownerId))
-            throw new ItemBadRequestException(HttpStatus.FORBIDDEN, "Restricted PATCH: user not owner.");
-        Item item = patchItem(oldItem.get(), itemDto);
-        log.debug("Saving updated item: {}", item);
-        return itemMapper.toDto(item);
+        return conflictRetry.execute("item.patch", () -> {
+            Optional<Item> oldItem = itemRepository.findById(itemDto.getId());
+            if (oldItem.isEmpty()) throw new NotFoundException("Item with ID: " + itemDto.getId() + " not found.");
+            if (!Objects.equals(oldItem.get().getOwner().getId(), ownerId))
+                throw new ItemBadRequestException(HttpStatus.FORBIDDEN, "Restricted PATCH: user not owner.");
+            Item item = patchItem(oldItem.get(), itemDto);
+            log.debug("Saving updated item: {}", item);
+            searchEngine.itemChanged(item);
+            itemViewCache.invalidate(List.of(item.getId()));
+            ItemDto patched = itemMapper.toDto(item);
+            outbox.publish(OutboxEvent.AggregateType.ITEM, patched.getId(), OutboxEvent.EventType.ITEM_UPDATED,
+                    patched);
+            return patched;
+        });
+    }
+
+    /**
+     * Null for the owner: the last and next bookings move with the time, not with any version.
+     */
+    @Transactional(readOnly = true)
+    public String getItemETag(Integer itemId, Integer requesterId) {
+        Optional<ItemVersionColumns> version = itemRepository.findVersion(itemId);
+        if (version.isEmpty()) throw new NotFoundException("Item with ID: " + itemId + " not found.");
+        if (Objects.equals(version.get().getOwnerId(), requesterId)) return null;
+        return ETags.weak(version.get().getVersion(), version.get().getCommentCount());
     }
 
     @Transactional(readOnly = true)
     public ItemDto getItem(Integer itemId, Integer requesterId) {
-        Optional<Item> item = itemRepository.findById(itemId);
-        if (item.isEmpty()) throw new NotFoundException("Item with ID: " + itemId + " not found.");
-        log.debug("Item with ID: {} found successfully.", itemId);
-        ItemDto itemDto = itemMapper.toDto(item.get());
-        addComments(itemDto);
-        if (!item.get().getOwner().getId().equals(requesterId)) {
+        return getItem(itemId, requesterId, null);
+    }
+
+    /**
+     * A cached view of another version is read again, so an older body never goes out under a newer tag.
+     */
+    @Transactional(readOnly = true)
+    public ItemDto getItem(Integer itemId, Integer requesterId, String eTag) {
+        ItemView view = itemViewCache.get(itemId, this::readView);
+        if (eTag != null && !eTag.equals(ETags.weak(view.getVersion(), view.getCommentCount()))) {
+            view = itemViewCache.reload(itemId, this::readView);
+        }
+        ItemDto itemDto = view.toDto();
+        if (!view.getOwnerId().equals(requesterId)) {
             return itemDto;
         }
         return addBookings(itemDto);
     }
 
     @Transactional(readOnly = true)
-    public List<ItemDto> getAllByOwner(Integer ownerId, Integer from, Integer size) {
+    public PageResult<ItemDto> getAllByOwner(Integer ownerId, Integer from, Integer size, Cursor cursor) {
+        return getAllByOwner(ownerId, from, size, cursor, CommentsMode.FULL);
+    }
+
+    @Transactional(readOnly = true)
+    public PageResult<ItemDto> getAllByOwner(Integer ownerId, Integer from, Integer size, Cursor cursor,
+                                             CommentsMode commentsMode) {
         if (userRepository.findById(ownerId).isEmpty())
             throw new NotFoundException("Owner (id: " + ownerId + ") not found.");
         log.info("Found owner (id:{}), return items.", ownerId);
-        Pageable page = PageRequest.of(from / size, size, Sort.by("id"));
-        List<ItemDto> itemsList = itemMapper.toDtoList(itemRepository.findByOwnerId(ownerId, page));
-        addBookings(itemsList);
-        addComments(itemsList);
-        return itemsList;
+        Pageable page = OffsetPageRequest.of(cursor, from, size, Sort.by("id"));
+        int afterId = cursor == null ? 0 : cursor.getId();
+        Slice<ItemDto> items = itemRepository.findByOwnerIdAndIdGreaterThan(ownerId, afterId, page);
+        addBookings(items.getContent());
+        if (commentsMode == CommentsMode.SUMMARY) {
+            addCommentSummaries(items.getContent());
+        } else {
+            addComments(items.getContent());
+        }
+        return PageResult.of(items, item -> Cursor.of(item.getId()));
     }
 
     @Transactional(readOnly = true)
-    public List<ItemDto> search(String text, Integer from, Integer size) {
+    public PageResult<ItemDto> search(String text, Integer from, Integer size, Cursor cursor, boolean approximate) {
+        return search(text, from, size, cursor, approximate, CommentsMode.FULL);
+    }
+
+    @Transactional(readOnly = true)
+    public PageResult<ItemDto> search(String text, Integer from, Integer size, Cursor cursor, boolean approximate,
+                                      CommentsMode commentsMode) {
         log.debug("Searching: {}", text);
-        Pageable page = PageRequest.of(from / size, size);
-        return itemMapper.toDtoList(itemRepository.search(text, page).getContent());
+        Pageable page = OffsetPageRequest.of(cursor, from, size, Sort.unsorted());
+        PageResult<ItemDto> result = searchEngine.search(text, cursor, page, approximate);
+        if (commentsMode == CommentsMode.SUMMARY) addCommentSummaries(result.getContent());
+        return result;
+    }
+
+    @Transactional(readOnly = true)
+    public ItemAvailabilityDto getAvailability(Integer itemId, LocalDateTime from, LocalDateTime to) {
+        if (!from.isBefore(to)) throw new InvalidRangeException("Availability range must start before its end.");
+        if (from.plusDays(MAX_AVAILABILITY_DAYS).isBefore(to))
+            throw new InvalidRangeException("Availability range is longer than " + MAX_AVAILABILITY_DAYS + " days.");
+        if (!itemRepository.existsById(itemId)) throw new NotFoundException("Item with ID: " + itemId + " not found.");
+        return new ItemAvailabilityDto(itemId, from, to, availabilityCalendar.periods(itemId, from, to));
+    }
+
+    @Transactional(readOnly = true)
+    public PageResult<CommentDto> getComments(Integer itemId, Integer from, Integer size, Cursor cursor) {
+        if (!itemRepository.existsById(itemId)) throw new NotFoundException("Item with ID: " + itemId + " not found.");
+        Pageable page = OffsetPageRequest.of(cursor, from, size, Sort.unsorted());
+        Slice<CommentDto> comments = cursor == null
+                ? commentRepository.findByItemId(itemId, page)
+                : commentRepository.findByItemIdBefore(itemId, cursor.requireKey(), cursor.getId(), page);
+        return PageResult.of(comments, comment -> Cursor.of(comment.getCreated(), comment.getId()));
     }
 
     @Transactional
@@ -121,7 +224,11 @@ public class ItemService {
         comment.setAuthor(author.get());
         comment.setItem(itemRepository.findById(commentDto.getItemId()).get());
         comment.setCreated(LocalDateTime.now());
-        return commentMapper.toDto(commentRepository.save(comment));
+        Comment saved = commentRepository.save(comment);
+        itemRepository.addComment(commentDto.getItemId(), saved.getId(), saved.getText(), author.get().getName(),
+                saved.getCreated());
+        itemViewCache.invalidate(List.of(commentDto.getItemId()));
+        return commentMapper.toDto(saved);
     }
 
     private Item patchItem(Item item, CreateItemRequest newItem) {
@@ -144,67 +251,85 @@ public class ItemService {
         return item;
     }
 
+    private ItemView readView(Integer itemId) {
+        //Версию читаем раньше вещи и комментариев: вид тогда не старше версии, с которой он хранится
+        Optional<ItemVersionColumns> version = itemRepository.findVersion(itemId);
+        Optional<Item> item = itemRepository.findById(itemId);
+        if (version.isEmpty() || item.isEmpty()) throw new NotFoundException("Item with ID: " + itemId + " not found.");
+        log.debug("Item with ID: {} found successfully.", itemId);
+        return new ItemView(item.get().getOwner().getId(), version.get().getVersion(),
+                version.get().getCommentCount(), addComments(itemMapper.toDto(item.get())));
+    }
+
     private ItemDto addBookings(ItemDto item) {
-        LocalDateTime moment = LocalDateTime.now();
-        item.setLastBooking(bookingMapper.toDtoShort(
-                bookingRepository.findTopByItemIdAndEndIsBefore(item.getId(), moment)));
-        item.setNextBooking(bookingMapper.toDtoShort(
-                bookingRepository.findTopByItemIdAndStartIsAfter(item.getId(), moment)));
+        addBookings(List.of(item));
         return item;
     }
 
     private List<ItemDto> addBookings(List<ItemDto> items) {
-        List<Integer> itemsIds = items.stream().map(ItemDto::getId).collect(Collectors.toList());
-        List<BookingDto> shortBookings = bookingMapper.toDtoList(
-                bookingRepository.findByItemIdInAndStatusIs(itemsIds,
-                        BookingStatus.APPROVED, Sort.by("start").descending()));
-        if (shortBookings.isEmpty()) return items;
-        Map<Integer, List<BookingDtoShort>> bookingsMap = new HashMap<>();
-        for (BookingDto booking : shortBookings) {
-            final List<BookingDtoShort> bookingsByItemId = bookingsMap
-                    .computeIfAbsent(booking.getItemId(), k -> new ArrayList<>());
-            bookingsByItemId.add(bookingMapper.dtoToDtoShort(booking));
-        }
+        if (items.isEmpty()) return items;
+        Map<Integer, ItemDto> itemsById = items.stream().collect(Collectors.toMap(ItemDto::getId, item -> item));
         LocalDateTime moment = LocalDateTime.now();
-        return items.stream().peek(item -> {
-            List<BookingDtoShort> bookings = bookingsMap.getOrDefault(item.getId(), new ArrayList<>());
-            if (bookings.isEmpty()) return;
-            bookings = bookings.stream().sorted(Comparator.comparing(BookingDtoShort::getEnd)).collect(Collectors.toList());
-            //Поменял логику поиска
-            List<BookingDtoShort> previousBookings = bookings.stream().filter(b -> b.getEnd().isBefore(moment))
-                    .sorted(Comparator.comparing(BookingDtoShort::getEnd)).collect(Collectors.toList());
-            if (!previousBookings.isEmpty()) item.setLastBooking(previousBookings.get(0));
-            List<BookingDtoShort> futureBookings = bookings.stream().filter(b -> b.getStart().isAfter(moment))
-                    .sorted(Comparator.comparing(BookingDtoShort::getStart).reversed()).collect(Collectors.toList());
-            if (!futureBookings.isEmpty()) item.setNextBooking(futureBookings.get(0));
-        }).collect(Collectors.toList());
+        for (BookingShortColumns booking : bookingRepository.findLastAndNext(itemsById.keySet(), moment)) {
+            ItemDto item = itemsById.get(booking.getItemId());
+            if (booking.getEnd().isBefore(moment)) {
+                item.setLastBooking(bookingMapper.toDtoShort(booking));
+            } else {
+                item.setNextBooking(bookingMapper.toDtoShort(booking));
+            }
+        }
+        //Последняя бронь вещи, которую давно не брали, могла уехать в архив
+        Set<Integer> withoutLast = items.stream().filter(item -> item.getLastBooking() == null)
+                .map(ItemDto::getId).collect(Collectors.toSet());
+        bookingArchive.findLast(withoutLast, moment)
+                .forEach((itemId, booking) -> itemsById.get(itemId).setLastBooking(booking));
+        return items;
     }
 
     private ItemDto addComments(ItemDto item) {
-        List<Comment> comments = commentRepository.findAllByItemIdOrderByCreatedDesc(item.getId());
-        item.setComments(commentMapper.toDtoList(comments));
+        addComments(List.of(item));
         return item;
     }
 
     private List<ItemDto> addComments(List<ItemDto> items) {
-        List<Integer> itemsIds = items.stream().map(ItemDto::getId).collect(Collectors.toList());
-        List<CommentDto> comments = commentMapper.toDtoList(commentRepository
-                .findAllByItemIdInOrderByCreatedDesc(itemsIds));
-        if (comments == null || comments.isEmpty()) return items;
-
-        Map<Integer, List<CommentDto>> commentsMap = new HashMap<>();
-        for (CommentDto comment : comments) {
-            commentsMap.putIfAbsent(comment.getItemId(), new ArrayList<>());
-            commentsMap.get(comment.getItemId()).add(comment);
+        if (items.isEmpty()) return items;
+        Map<Integer, ItemDto> itemsById = items.stream().collect(Collectors.toMap(ItemDto::getId, item -> item));
+        for (ItemDto item : items) {
+            item.setComments(new ArrayList<>());
+            item.setCommentCount(0L);
         }
-        return items.stream().peek(i -> i.setComments(commentsMap.get(i.getId()))).collect(Collectors.toList());
+        for (CommentCount count : commentRepository.countByItemIds(itemsById.keySet())) {
+            itemsById.get(count.getItemId()).setCommentCount(count.getTotal());
+        }
+        //Без комментариев у вещи нет строк, и второй запрос не нужен
+        List<Integer> commented = items.stream().filter(item -> item.getCommentCount() > 0)
+                .map(ItemDto::getId).collect(Collectors.toList());
+        if (commented.isEmpty()) return items;
+        commentRepository.findNewest(commented, embeddedComments).forEach(comment ->
+                itemsById.get(comment.getItemId()).getComments().add(commentMapper.toDto(comment)));
+        return items;
+    }
+
+    private List<ItemDto> addCommentSummaries(List<ItemDto> items) {
+        if (items.isEmpty()) return items;
+        Map<Integer, ItemDto> itemsById = items.stream().collect(Collectors.toMap(ItemDto::getId, item -> item));
+        for (CommentSummaryColumns summary : itemRepository.findCommentSummaries(itemsById.keySet())) {
+            ItemDto item = itemsById.get(summary.getId());
+            item.setCommentCount(summary.getCommentCount());
+            if (summary.getLastCommentId() != null) {
+                item.setLastComment(new CommentDto(summary.getLastCommentId(), summary.getLastCommentText(),
+                        summary.getId(), summary.getLastCommentAuthor(), summary.getLastCommentCreated()));
+            }
+        }
+        return items;
     }
 
     private boolean checkCommentTruth(Integer itemId, Integer authorId) {
+        LocalDateTime moment = LocalDateTime.now();
         List<Booking> allBookings = bookingRepository.findAllByBookerIdAndItemIdAndEndIsBefore(authorId,
-                itemId, LocalDateTime.now());
+                itemId, moment);
         allBookings = allBookings.stream().filter(b -> b.getStatus().equals(BookingStatus.APPROVED))
                 .collect(Collectors.toList());
-        return allBookings.isEmpty();
+        return allBookings.isEmpty() && !bookingArchive.hasFinished(authorId, itemId, moment);
     }
 }
@@ -0,0 +1,41 @@
+package ru.practicum.shareit.item.cache;
+
+import lombok.Getter;
+import ru.practicum.shareit.item.dto.CommentDto;
+import ru.practicum.shareit.item.dto.ItemDto;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Shared between requests, so every reader gets a copy of its own.
+ */
+public class ItemView {
+
+    @Getter
+    private final Integer ownerId;
+    @Getter
+    private final Long version;
+    @Getter
+    private final Long commentCount;
+    private final ItemDto item;
+
+    public ItemView(Integer ownerId, Long version, Long commentCount, ItemDto item) {
+        this.ownerId = ownerId;
+        this.version = version;
+        this.commentCount = commentCount;
+        this.item = copy(item);
+    }
+
+    public ItemDto toDto() {
+        return copy(item);
+    }
+
+    private static ItemDto copy(ItemDto item) {
+        List<CommentDto> comments = item.getComments() == null ? null : item.getComments().stream()
+                .map(c -> new CommentDto(c.getId(), c.getText(), c.getItemId(), c.getAuthorName(), c.getCreated()))
+                .collect(Collectors.toList());
+        return new ItemDto(item.getId(), item.getName(), item.getDescription(), item.getAvailable(),
+                null, null, comments, item.getRequestId(), item.getCommentCount(), null);
+    }
+}
@@ -0,0 +1,42 @@
+package ru.practicum.shareit.item.cache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.cache.CommitEvictedCache;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.function.Function;
+
+/**
+ * Bookings are not part of a view, so booking writes leave the cache alone.
+ */
+@Component
+public class ItemViewCache {
+
+    private final Duration ttl;
+    private final CommitEvictedCache<Integer, ItemView> cache;
+
+    @Autowired
+    public ItemViewCache(MeterRegistry meterRegistry,
+                         @Value("${shareit.item.cache.ttl:PT10M}") Duration ttl,
+                         @Value("${shareit.item.cache.items:1000}") int maxItems) {
+        this.ttl = ttl;
+        this.cache = new CommitEvictedCache<>("items", maxItems, 1);
+        this.cache.bindTo(meterRegistry);
+    }
+
+    public ItemView get(Integer itemId, Function<Integer, ItemView> loader) {
+        return cache.get(itemId, () -> CommitEvictedCache.Loaded.of(loader.apply(itemId), ttl));
+    }
+
+    public ItemView reload(Integer itemId, Function<Integer, ItemView> loader) {
+        return cache.reload(itemId, () -> CommitEvictedCache.Loaded.of(loader.apply(itemId), ttl));
+    }
+
+    public void invalidate(Collection<Integer> itemIds) {
+        cache.invalidate(itemIds);
+    }
+}
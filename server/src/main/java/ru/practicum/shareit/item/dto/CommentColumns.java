@@ -0,0 +1,16 @@
+package ru.practicum.shareit.item.dto;
+
+import java.time.LocalDateTime;
+
+public interface CommentColumns {
+
+    Integer getId();
+
+    String getText();
+
+    Integer getItemId();
+
+    String getAuthorName();
+
+    LocalDateTime getCreated();
+}
@@ -0,0 +1,18 @@
+package ru.practicum.shareit.item.dto;
+
+import java.time.LocalDateTime;
+
+public interface CommentSummaryColumns {
+
+    Integer getId();
+
+    Long getCommentCount();
+
+    Integer getLastCommentId();
+
+    String getLastCommentText();
+
+    String getLastCommentAuthor();
+
+    LocalDateTime getLastCommentCreated();
+}
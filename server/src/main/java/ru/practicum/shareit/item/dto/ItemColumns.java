@@ -0,0 +1,14 @@
+package ru.practicum.shareit.item.dto;
+
+public interface ItemColumns {
+
+    Integer getId();
+
+    String getName();
+
+    String getDescription();
+
+    Boolean getAvailable();
+
+    Integer getRequestId();
+}
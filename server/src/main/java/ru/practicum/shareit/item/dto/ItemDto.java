@@ -20,4 +20,10 @@ public class ItemDto {
     private BookingDtoShort nextBooking;
     private List<CommentDto> comments;
     private Integer requestId;
+    private Long commentCount;
+    private CommentDto lastComment;
+
+    public ItemDto(Integer id, String name, String description, Boolean available, Integer requestId) {
+        this(id, name, description, available, null, null, null, requestId, null, null);
+    }
 }
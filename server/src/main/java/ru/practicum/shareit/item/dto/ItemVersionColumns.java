@@ -0,0 +1,10 @@
+package ru.practicum.shareit.item.dto;
+
+public interface ItemVersionColumns {
+
+    Integer getOwnerId();
+
+    Long getVersion();
+
+    Long getCommentCount();
+}
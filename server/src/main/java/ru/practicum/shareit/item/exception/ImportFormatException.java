@@ -0,0 +1,11 @@
+package ru.practicum.shareit.item.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpStatusCodeException;
+
+public class ImportFormatException extends HttpStatusCodeException {
+
+    public ImportFormatException(String msg) {
+        super(HttpStatus.BAD_REQUEST, msg);
+    }
+}
@@ -0,0 +1,131 @@
+package ru.practicum.shareit.item.imports;
+
+import ru.practicum.shareit.item.dto.CreateItemRequest;
+import ru.practicum.shareit.item.exception.ImportFormatException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Comma separated values as in RFC 4180, the first record names the columns.
+ */
+class CsvRowReader implements ItemRowReader {
+
+    private static final String NAME = "name";
+    private static final String DESCRIPTION = "description";
+    private static final String AVAILABLE = "available";
+    private static final String REQUEST_ID = "requestid";
+
+    private final BufferedReader reader;
+    private final Map<String, Integer> columns = new HashMap<>();
+    private long lineNumber;
+    private boolean tooLong;
+
+    CsvRowReader(BufferedReader reader) {
+        this.reader = reader;
+    }
+
+    @Override
+    public ImportRow next() throws IOException {
+        if (columns.isEmpty() && !readHeader()) return null;
+        List<String> fields;
+        long row;
+        do {
+            row = lineNumber + 1;
+            fields = readRecord();
+            if (fields == null) return null;
+        } while (fields.size() == 1 && fields.get(0).isBlank());
+        if (tooLong) return ImportRow.failed(row, "Row is longer than " + MAX_ROW_LENGTH + " characters.");
+        if (fields.size() != columns.size())
+            return ImportRow.failed(row, "Expected " + columns.size() + " fields, found " + fields.size() + ".");
+        CreateItemRequest item = new CreateItemRequest();
+        item.setName(fields.get(columns.get(NAME)));
+        item.setDescription(fields.get(columns.get(DESCRIPTION)));
+        String available = fields.get(columns.get(AVAILABLE)).trim();
+        if (!available.isEmpty()) {
+            if (!available.equalsIgnoreCase("true") && !available.equalsIgnoreCase("false"))
+                return ImportRow.failed(row, "Field available must be true or false.");
+            item.setAvailable(Boolean.valueOf(available));
+        }
+        if (columns.containsKey(REQUEST_ID)) {
+            String requestId = fields.get(columns.get(REQUEST_ID)).trim();
+            try {
+                if (!requestId.isEmpty()) item.setRequestId(Integer.valueOf(requestId));
+            } catch (NumberFormatException e) {
+                return ImportRow.failed(row, "Field requestId must be a number.");
+            }
+        }
+        return ImportRow.of(row, item);
+    }
+
+    private boolean readHeader() throws IOException {
+        List<String> header = readRecord();
+        if (header == null) return false;
+        for (int i = 0; i < header.size(); i++) {
+            //Excel начинает UTF-8 файлы с BOM
+            String column = header.get(i).replace("\uFEFF", "").trim().toLowerCase(Locale.ROOT);
+            if (columns.put(column, i) != null) throw new ImportFormatException("Column " + column + " is repeated.");
+        }
+        for (String required : List.of(NAME, DESCRIPTION, AVAILABLE)) {
+            if (!columns.containsKey(required))
+                throw new ImportFormatException("The first row must name the columns, " + required + " is missing.");
+        }
+        return true;
+    }
+
+    private List<String> readRecord() throws IOException {
+        int c = reader.read();
+        if (c == -1) return null;
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        int length = 0;
+        tooLong = false;
+        while (c != -1) {
+            if (c == '\n') lineNumber++;
+            if (quoted) {
+                if (c == '"') {
+                    c = reader.read();
+                    //Одиночная кавычка закрывает поле, символ за ней разбираем как обычный
+                    if (c != '"') {
+                        quoted = false;
+                        continue;
+                    }
+                }
+            } else if (c == '"' && field.length() == 0) {
+                quoted = true;
+                c = reader.read();
+                continue;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+                c = reader.read();
+                continue;
+            } else if (c == '\n') {
+                break;
+            } else if (c == '\r') {
+                c = reader.read();
+                continue;
+            }
+            if (++length > MAX_ROW_LENGTH) {
+                tooLong = true;
+            } else {
+                field.append((char) c);
+            }
+            c = reader.read();
+        }
+        if (c == -1) lineNumber++;
+        fields.add(field.toString());
+        return fields;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
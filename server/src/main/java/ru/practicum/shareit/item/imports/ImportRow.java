@@ -0,0 +1,22 @@
+package ru.practicum.shareit.item.imports;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import ru.practicum.shareit.item.dto.CreateItemRequest;
+
+@Getter
+@AllArgsConstructor
+public class ImportRow {
+
+    private final long row;
+    private final CreateItemRequest item;
+    private final String error;
+
+    static ImportRow of(long row, CreateItemRequest item) {
+        return new ImportRow(row, item, null);
+    }
+
+    static ImportRow failed(long row, String error) {
+        return new ImportRow(row, null, error);
+    }
+}
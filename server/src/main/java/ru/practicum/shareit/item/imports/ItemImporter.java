@@ -0,0 +1,132 @@
+package ru.practicum.shareit.item.imports;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.handler.exception.NotFoundException;
+import ru.practicum.shareit.item.ItemRepository;
+import ru.practicum.shareit.item.dto.CreateItemRequest;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemImportReport;
+import ru.practicum.shareit.item.mapper.ItemMapper;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.search.ItemSearchEngine;
+import ru.practicum.shareit.outbox.Outbox;
+import ru.practicum.shareit.outbox.OutboxEvent;
+import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.UserRepository;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Every batch is committed before the next rows are read, so a broken payload keeps the rows saved before it.
+ */
+@Slf4j
+@Component
+public class ItemImporter {
+
+    private static final int MAX_NAME_LENGTH = 255;
+
+    private final ItemRepository itemRepository;
+    private final UserRepository userRepository;
+    private final ItemMapper itemMapper;
+    private final ItemSearchEngine searchEngine;
+    private final Outbox outbox;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final int maxErrors;
+
+    @Autowired
+    public ItemImporter(ItemRepository itemRepository, UserRepository userRepository, ItemMapper itemMapper,
+                        ItemSearchEngine searchEngine, Outbox outbox, ObjectMapper objectMapper,
+                        TransactionTemplate transactionTemplate,
+                        @Value("${shareit.item.import.batch-size:500}") int batchSize,
+                        @Value("${shareit.item.import.max-errors:100}") int maxErrors) {
+        this.itemRepository = itemRepository;
+        this.userRepository = userRepository;
+        this.itemMapper = itemMapper;
+        this.searchEngine = searchEngine;
+        this.outbox = outbox;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.maxErrors = maxErrors;
+    }
+
+    public ItemImportReport importItems(InputStream body, MediaType contentType, Integer ownerId) throws IOException {
+        if (!userRepository.existsById(ownerId)) throw new NotFoundException("Owner not found.");
+        ItemImportReport report = new ItemImportReport();
+        List<ImportRow> batch = new ArrayList<>(batchSize);
+        try (ItemRowReader rows = ItemRowReader.of(contentType, body, objectMapper)) {
+            ImportRow row;
+            while ((row = rows.next()) != null) {
+                String error = row.getError() == null ? validate(row.getItem()) : row.getError();
+                if (error != null) {
+                    fail(report, row, error);
+                    continue;
+                }
+                batch.add(row);
+                if (batch.size() == batchSize) {
+                    save(batch, ownerId, report);
+                    batch.clear();
+                }
+            }
+        }
+        if (!batch.isEmpty()) save(batch, ownerId, report);
+        log.info("Imported {} items of owner id:{}, {} rows failed.", report.getImported(), ownerId,
+                report.getFailed());
+        return report;
+    }
+
+    private void save(List<ImportRow> batch, Integer ownerId, ItemImportReport report) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                User owner = userRepository.getReferenceById(ownerId);
+                List<Item> items = new ArrayList<>(batch.size());
+                for (ImportRow row : batch) {
+                    Item item = itemMapper.toEntity(row.getItem());
+                    item.setId(null);
+                    item.setOwner(owner);
+                    items.add(item);
+                }
+                itemRepository.saveAll(items);
+                itemRepository.flush();
+                items.forEach(searchEngine::itemChanged);
+                List<ItemDto> created = items.stream().map(itemMapper::toDto).collect(Collectors.toList());
+                outbox.publishAll(OutboxEvent.AggregateType.ITEM, OutboxEvent.EventType.ITEM_CREATED, created,
+                        ItemDto::getId);
+            });
+            report.setImported(report.getImported() + batch.size());
+        } catch (DataAccessException e) {
+            log.warn("Batch of {} imported items not saved: {}", batch.size(), e.getMessage());
+            batch.forEach(row -> fail(report, row, "Not saved: " + e.getMostSpecificCause().getMessage()));
+        }
+    }
+
+    private void fail(ItemImportReport report, ImportRow row, String error) {
+        report.setFailed(report.getFailed() + 1);
+        if (report.getErrors().size() < maxErrors)
+            report.getErrors().add(new ItemImportReport.RowError(row.getRow(), error));
+    }
+
+    private static String validate(CreateItemRequest item) {
+        if (item == null) return "Row is not an item.";
+        if (item.getName() == null || item.getName().isBlank()) return "Field name must not be blank.";
+        if (item.getName().length() > MAX_NAME_LENGTH)
+            return "Field name is longer than " + MAX_NAME_LENGTH + " characters.";
+        if (item.getDescription() == null || item.getDescription().isBlank())
+            return "Field description must not be blank.";
+        if (item.getAvailable() == null) return "Field available must not be null.";
+        return null;
+    }
+}
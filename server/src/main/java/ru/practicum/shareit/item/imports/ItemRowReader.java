@@ -0,0 +1,30 @@
+package ru.practicum.shareit.item.imports;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.MediaType;
+import ru.practicum.shareit.item.exception.ImportFormatException;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+public interface ItemRowReader extends Closeable {
+
+    MediaType TEXT_CSV = MediaType.valueOf("text/csv");
+    int MAX_ROW_LENGTH = 64 * 1024;
+
+    ImportRow next() throws IOException;
+
+    static ItemRowReader of(MediaType contentType, InputStream body, ObjectMapper objectMapper) throws IOException {
+        Charset charset = contentType.getCharset() == null ? StandardCharsets.UTF_8 : contentType.getCharset();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, charset));
+        if (MediaType.APPLICATION_NDJSON.includes(contentType)) return new NdjsonRowReader(reader, objectMapper);
+        if (TEXT_CSV.includes(contentType)) return new CsvRowReader(reader);
+        throw new ImportFormatException("Items are imported from " + MediaType.APPLICATION_NDJSON + " or "
+                + TEXT_CSV + ", not " + contentType + ".");
+    }
+}
@@ -0,0 +1,61 @@
+package ru.practicum.shareit.item.imports;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import ru.practicum.shareit.item.dto.CreateItemRequest;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+
+class NdjsonRowReader implements ItemRowReader {
+
+    private final BufferedReader reader;
+    private final ObjectReader objectReader;
+    private final StringBuilder line = new StringBuilder();
+    private long lineNumber;
+    private boolean tooLong;
+
+    NdjsonRowReader(BufferedReader reader, ObjectMapper objectMapper) {
+        this.reader = reader;
+        this.objectReader = objectMapper.readerFor(CreateItemRequest.class);
+    }
+
+    @Override
+    public ImportRow next() throws IOException {
+        while (readLine()) {
+            lineNumber++;
+            if (tooLong) return ImportRow.failed(lineNumber, "Row is longer than " + MAX_ROW_LENGTH + " characters.");
+            if (line.toString().isBlank()) continue;
+            try {
+                return ImportRow.of(lineNumber, objectReader.readValue(line.toString()));
+            } catch (JsonProcessingException e) {
+                return ImportRow.failed(lineNumber, "Malformed JSON: " + e.getOriginalMessage());
+            }
+        }
+        return null;
+    }
+
+    private boolean readLine() throws IOException {
+        line.setLength(0);
+        tooLong = false;
+        int c = reader.read();
+        if (c == -1) return false;
+        while (c != -1 && c != '\n') {
+            if (c != '\r') {
+                if (line.length() < MAX_ROW_LENGTH) {
+                    line.append((char) c);
+                } else {
+                    tooLong = true;
+                }
+            }
+            c = reader.read();
+        }
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
@@ -2,6 +2,7 @@ package ru.practicum.shareit.item.mapper;
 
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
+import ru.practicum.shareit.item.dto.CommentColumns;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.model.Comment;
 
@@ -16,6 +17,8 @@ public interface CommentMapper {
     @Mapping(target = "itemId", source = "item.id")
     CommentDto toDto(Comment comment);
 
+    CommentDto toDto(CommentColumns comment);
+
     List<CommentDto> toDtoList(List<Comment> comments);
 
 }
@@ -3,8 +3,10 @@ package ru.practicum.shareit.item.mapper;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 import ru.practicum.shareit.item.dto.CreateItemRequest;
+import ru.practicum.shareit.item.dto.ItemColumns;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.search.IndexedItem;
 
 import java.util.List;
 
@@ -16,7 +18,13 @@ public interface ItemMapper {
     Item toEntity(CreateItemRequest createItemRequest);
 
     @Mapping(target = "comments", ignore = true)
+    @Mapping(target = "commentCount", ignore = true)
+    @Mapping(target = "lastComment", ignore = true)
     ItemDto toDto(Item item);
 
     List<ItemDto> toDtoList(List<Item> items);
+
+    ItemDto toDto(IndexedItem item);
+
+    ItemDto toDto(ItemColumns item);
 }
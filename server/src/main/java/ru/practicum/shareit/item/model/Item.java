@@ -15,8 +15,10 @@ import java.util.Objects;
 @Table(name = "items")
 public class Item {
 
+    //Ключи берутся из последовательности блоками (pooled), иначе Hibernate не может пакетировать вставки
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "items_seq")
+    @SequenceGenerator(name = "items_seq", sequenceName = "items_seq", allocationSize = 50)
     private Integer id;
     @Column(name = "name", length = 255, nullable = false)
     private String name;
@@ -24,11 +26,18 @@ public class Item {
     private String description;
     @Column(name = "is_available")
     private Boolean available;
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "owner_id", referencedColumnName = "id")
     private User owner;
     @Column(name = "request_id")
     private Integer requestId;
+    @Version
+    @Column(name = "version")
+    private Long version;
+
+    public Item(Integer id, String name, String description, Boolean available, User owner, Integer requestId) {
+        this(id, name, description, available, owner, requestId, null);
+    }
 
     @Override
     public boolean equals(Object o) {
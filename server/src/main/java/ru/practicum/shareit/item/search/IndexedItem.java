@@ -0,0 +1,52 @@
+package ru.practicum.shareit.item.search;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.ToString;
+import ru.practicum.shareit.item.model.Item;
+
+import java.util.Locale;
+
+@Getter
+@ToString
+public class IndexedItem {
+
+    private final Integer id;
+    private final String name;
+    private final String description;
+    private final Boolean available;
+    private final Integer requestId;
+    @Getter(AccessLevel.PACKAGE)
+    @ToString.Exclude
+    private final String searchableName;
+    @Getter(AccessLevel.PACKAGE)
+    @ToString.Exclude
+    private final String searchableDescription;
+
+    public IndexedItem(Integer id, String name, String description, Boolean available, Integer requestId) {
+        this.id = id;
+        this.name = name;
+        this.description = description;
+        this.available = available;
+        this.requestId = requestId;
+        this.searchableName = normalize(name);
+        this.searchableDescription = normalize(description);
+    }
+
+    public static IndexedItem of(Item item) {
+        return new IndexedItem(item.getId(), item.getName(), item.getDescription(),
+                item.getAvailable(), item.getRequestId());
+    }
+
+    static String normalize(String text) {
+        return text == null ? "" : text.toLowerCase(Locale.ROOT);
+    }
+
+    boolean isAvailable() {
+        return Boolean.TRUE.equals(available);
+    }
+
+    boolean contains(String normalizedText) {
+        return searchableName.contains(normalizedText) || searchableDescription.contains(normalizedText);
+    }
+}
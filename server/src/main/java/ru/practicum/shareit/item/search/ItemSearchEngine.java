@@ -0,0 +1,69 @@
+package ru.practicum.shareit.item.search;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.item.ItemRepository;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.mapper.ItemMapper;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.paging.Cursor;
+import ru.practicum.shareit.paging.PageResult;
+
+@Slf4j
+@Component
+public class ItemSearchEngine {
+
+    private final ItemSearchIndex searchIndex;
+    private final ItemRepository itemRepository;
+    private final ItemMapper itemMapper;
+    private final SearchStatistics statistics;
+    private final SearchMode mode;
+    private final boolean fullText;
+
+    @Autowired
+    public ItemSearchEngine(ItemSearchIndex searchIndex, ItemRepository itemRepository, ItemMapper itemMapper,
+                            SearchStatistics statistics,
+                            @Value("${shareit.search.mode:database}") SearchMode mode,
+                            @Value("${shareit.search.full-text:false}") boolean fullText) {
+        this.searchIndex = searchIndex;
+        this.itemRepository = itemRepository;
+        this.itemMapper = itemMapper;
+        this.statistics = statistics;
+        this.mode = mode;
+        this.fullText = fullText;
+        log.info("Item search mode: {}, full-text: {}", mode, fullText);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startIndex() {
+        if (mode == SearchMode.INDEX) searchIndex.start();
+    }
+
+    public PageResult<ItemDto> search(String text, Cursor cursor, Pageable pageable, boolean approximate) {
+        int afterId = cursor == null ? 0 : cursor.getId();
+        Slice<ItemDto> slice;
+        if (mode == SearchMode.INDEX && searchIndex.isReady()) {
+            slice = searchIndex.search(text, afterId, pageable).map(itemMapper::toDto);
+        } else if (fullText) {
+            slice = itemRepository.fullTextSearch(text, afterId, pageable).map(itemMapper::toDto);
+        } else {
+            slice = itemRepository.search(text, afterId, pageable);
+        }
+        return PageResult.of(slice, item -> Cursor.of(item.getId()), approximate ? estimateMatches(text) : null);
+    }
+
+    private Long estimateMatches(String text) {
+        if (mode == SearchMode.INDEX && searchIndex.isReady()) return searchIndex.estimateMatches(text);
+        return statistics.estimateMatches(text, fullText);
+    }
+
+    public void itemChanged(Item item) {
+        if (mode == SearchMode.INDEX) searchIndex.index(item);
+    }
+}
@@ -0,0 +1,235 @@
+package ru.practicum.shareit.item.search;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.item.ItemRepository;
+import ru.practicum.shareit.item.model.Item;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Trigram index of item names and descriptions, rebuilt in the background every refresh period.
+ */
+@Slf4j
+@Component
+public class ItemSearchIndex {
+
+    private static final int GRAM = 3;
+
+    private final ItemRepository itemRepository;
+    private final int loadBatchSize;
+    private final Duration refresh;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Snapshot snapshot = new Snapshot();
+    private List<IndexedItem> changedDuringBuild;
+    private volatile boolean ready;
+    private ScheduledExecutorService builder;
+
+    @Autowired
+    public ItemSearchIndex(ItemRepository itemRepository,
+                           @Value("${shareit.search.index.batch-size:1000}") int loadBatchSize,
+                           @Value("${shareit.search.index.refresh:PT5M}") Duration refresh) {
+        this.itemRepository = itemRepository;
+        this.loadBatchSize = loadBatchSize;
+        this.refresh = refresh;
+    }
+
+    public synchronized void start() {
+        if (builder != null) return;
+        builder = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "search-index");
+            thread.setDaemon(true);
+            return thread;
+        });
+        builder.scheduleWithFixedDelay(this::rebuildQuietly, 0, refresh.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        if (builder != null) builder.shutdownNow();
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public Slice<IndexedItem> search(String text, int afterId, Pageable pageable) {
+        String query = IndexedItem.normalize(text);
+        lock.readLock().lock();
+        try {
+            Iterable<IndexedItem> candidates = query.length() < GRAM
+                    ? snapshot.items.tailMap(afterId, false).values()
+                    : snapshot.candidates(query, afterId);
+            List<IndexedItem> result = new ArrayList<>(pageable.getPageSize() + 1);
+            long skip = pageable.getOffset();
+            for (IndexedItem item : candidates) {
+                if (!item.isAvailable() || !item.contains(query)) continue;
+                if (skip > 0) {
+                    skip--;
+                    continue;
+                }
+                result.add(item);
+                if (result.size() > pageable.getPageSize()) break;
+            }
+            boolean hasNext = result.size() > pageable.getPageSize();
+            if (hasNext) result.remove(pageable.getPageSize());
+            return new SliceImpl<>(result, pageable, hasNext);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * An upper bound of the search total: availability and the exact substring are not checked.
+     */
+    public long estimateMatches(String text) {
+        String query = IndexedItem.normalize(text);
+        lock.readLock().lock();
+        try {
+            return query.length() < GRAM ? snapshot.items.size() : snapshot.candidateIds(query).size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void index(Item item) {
+        IndexedItem indexed = IndexedItem.of(item);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply(indexed);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                apply(indexed);
+            }
+        });
+    }
+
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            changedDuringBuild = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        Snapshot fresh = new Snapshot();
+        boolean built = false;
+        try {
+            int lastId = 0;
+            List<IndexedItem> batch;
+            do {
+                batch = itemRepository.findIndexedItems(lastId, PageRequest.of(0, loadBatchSize));
+                batch.forEach(fresh::put);
+                if (!batch.isEmpty()) lastId = batch.get(batch.size() - 1).getId();
+            } while (batch.size() == loadBatchSize);
+            built = true;
+        } finally {
+            lock.writeLock().lock();
+            try {
+                //Изменения этого узла во время чтения могли не попасть в уже прочитанные пачки
+                if (built) {
+                    changedDuringBuild.forEach(fresh::put);
+                    snapshot = fresh;
+                    ready = true;
+                }
+                changedDuringBuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        log.info("Search index built: {} items, {} trigrams.", fresh.items.size(), fresh.postings.size());
+    }
+
+    private void rebuildQuietly() {
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            log.warn("Search index build failed, will retry: {}", e.getMessage());
+        }
+    }
+
+    private void apply(IndexedItem item) {
+        lock.writeLock().lock();
+        try {
+            snapshot.put(item);
+            if (changedDuringBuild != null) changedDuringBuild.add(item);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static Set<String> grams(IndexedItem item) {
+        Set<String> grams = grams(item.getSearchableName());
+        grams.addAll(grams(item.getSearchableDescription()));
+        return grams;
+    }
+
+    private static Set<String> grams(String text) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM <= text.length(); i++) {
+            grams.add(text.substring(i, i + GRAM));
+        }
+        return grams;
+    }
+
+    private static class Snapshot {
+
+        private final NavigableMap<Integer, IndexedItem> items = new TreeMap<>();
+        private final Map<String, Set<Integer>> postings = new HashMap<>();
+
+        private Iterable<IndexedItem> candidates(String query, int afterId) {
+            List<Integer> ids = candidateIds(query);
+            Collections.sort(ids);
+            List<IndexedItem> result = new ArrayList<>(ids.size());
+            for (Integer id : ids) {
+                if (id > afterId) result.add(items.get(id));
+            }
+            return result;
+        }
+
+        private List<Integer> candidateIds(String query) {
+            List<Set<Integer>> lists = new ArrayList<>();
+            for (String gram : grams(query)) {
+                Set<Integer> ids = postings.get(gram);
+                if (ids == null) return new ArrayList<>();
+                lists.add(ids);
+            }
+            lists.sort(Comparator.comparingInt(Set::size));
+            List<Integer> ids = new ArrayList<>();
+            for (Integer id : lists.get(0)) {
+                if (lists.stream().allMatch(list -> list.contains(id))) ids.add(id);
+            }
+            return ids;
+        }
+
+        private void put(IndexedItem item) {
+            IndexedItem previous = items.put(item.getId(), item);
+            if (previous != null) {
+                for (String gram : grams(previous)) {
+                    Set<Integer> ids = postings.get(gram);
+                    ids.remove(previous.getId());
+                    if (ids.isEmpty()) postings.remove(gram);
+                }
+            }
+            for (String gram : grams(item)) {
+                postings.computeIfAbsent(gram, k -> new HashSet<>()).add(item.getId());
+            }
+        }
+    }
+}
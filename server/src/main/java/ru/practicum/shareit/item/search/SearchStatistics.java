@@ -0,0 +1,55 @@
+package ru.practicum.shareit.item.search;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+/**
+ * Estimates search totals from the planner statistics of PostgreSQL.
+ */
+@Slf4j
+@Component
+public class SearchStatistics {
+
+    private static final String EXPLAIN = "explain (format json) select i.id from items i where i.is_available and ";
+    private static final String FULL_TEXT_PREDICATE = "(i.search_vector @@ plainto_tsquery('russian', ?) " +
+            "or i.name ilike '%' || ? || '%' or i.description ilike '%' || ? || '%')";
+    private static final String LIKE_PREDICATE = "(upper(i.name) like upper('%' || ? || '%') " +
+            "or upper(i.description) like upper('%' || ? || '%'))";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final boolean supported;
+
+    @Autowired
+    public SearchStatistics(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper,
+                            @Value("${spring.sql.init.platform:}") String platform) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.supported = "postgresql".equals(platform);
+    }
+
+    /**
+     * @return estimated number of matching items or null, when the database keeps no usable statistics
+     */
+    public Long estimateMatches(String text, boolean fullText) {
+        if (!supported) return null;
+        try {
+            String plan = fullText
+                    ? jdbcTemplate.queryForObject(EXPLAIN + FULL_TEXT_PREDICATE, String.class, text, text, text)
+                    : jdbcTemplate.queryForObject(EXPLAIN + LIKE_PREDICATE, String.class, text, text);
+            JsonNode rows = objectMapper.readTree(plan).path(0).path("Plan").path("Plan Rows");
+            return rows.isMissingNode() ? null : rows.asLong();
+        } catch (DataAccessException | IOException e) {
+            log.warn("Could not estimate search total: {}", e.getMessage());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package ru.practicum.shareit.outbox;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Events come in id order and at least once.
+ */
+public interface EventSink {
+
+    /**
+     * Key of the delivery offset, must stay the same between restarts.
+     */
+    String name();
+
+    void deliver(List<OutboxEvent> events) throws IOException;
+}
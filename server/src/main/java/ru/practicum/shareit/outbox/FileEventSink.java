@@ -0,0 +1,51 @@
+package ru.practicum.shareit.outbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+@Component
+@ConditionalOnProperty("shareit.outbox.file.path")
+public class FileEventSink implements EventSink {
+
+    private final Path path;
+    private final ObjectMapper objectMapper;
+
+    @Autowired
+    public FileEventSink(@Value("${shareit.outbox.file.path}") Path path, ObjectMapper objectMapper) {
+        this.path = path;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public String name() {
+        return "file";
+    }
+
+    @Override
+    public void deliver(List<OutboxEvent> events) throws IOException {
+        List<String> lines = new ArrayList<>(events.size());
+        for (OutboxEvent event : events) {
+            ObjectNode line = objectMapper.createObjectNode()
+                    .put("id", event.getId())
+                    .put("type", event.getEventType().name())
+                    .put("aggregateType", event.getAggregateType().name())
+                    .put("aggregateId", event.getAggregateId())
+                    .put("created", event.getCreated().toString());
+            line.set("payload", objectMapper.readTree(event.getPayload()));
+            lines.add(objectMapper.writeValueAsString(line));
+        }
+        Files.write(path, lines, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+}
@@ -0,0 +1,68 @@
+package ru.practicum.shareit.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * An event is stored if and only if the change is committed.
+ */
+@Slf4j
+@Component
+public class Outbox {
+
+    private final OutboxRepository outboxRepository;
+    private final ObjectMapper objectMapper;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public Outbox(OutboxRepository outboxRepository, ObjectMapper objectMapper, JdbcTemplate jdbcTemplate) {
+        this.outboxRepository = outboxRepository;
+        this.objectMapper = objectMapper;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publish(OutboxEvent.AggregateType aggregateType, Integer aggregateId,
+                        OutboxEvent.EventType eventType, Object payload) {
+        OutboxEvent event = outboxRepository.save(new OutboxEvent(null, aggregateType, aggregateId.longValue(),
+                eventType, serialize(eventType, payload), LocalDateTime.now()));
+        log.trace("Event {} of {} id:{} written to the outbox.", event.getId(), aggregateType, aggregateId);
+    }
+
+    /**
+     * Goes past Hibernate, which would insert events with identity ids one by one.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public <T> void publishAll(OutboxEvent.AggregateType aggregateType, OutboxEvent.EventType eventType,
+                               List<T> payloads, Function<T, Integer> aggregateId) {
+        Timestamp created = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>(payloads.size());
+        for (T payload : payloads) {
+            rows.add(new Object[]{aggregateType.name(), aggregateId.apply(payload).longValue(), eventType.name(),
+                    serialize(eventType, payload), created});
+        }
+        jdbcTemplate.batchUpdate("insert into outbox_events (aggregate_type, aggregate_id, event_type, payload, " +
+                "creation_date) values (?, ?, ?, ?, ?)", rows);
+        log.trace("{} events of {} written to the outbox.", rows.size(), aggregateType);
+    }
+
+    private String serialize(OutboxEvent.EventType eventType, Object payload) {
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize " + eventType + " payload", e);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package ru.practicum.shareit.outbox;
+
+import lombok.*;
+import org.hibernate.Hibernate;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+@Getter
+@Setter
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "outbox_events")
+public class OutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "aggregate_type")
+    private AggregateType aggregateType;
+
+    @Column(name = "aggregate_id")
+    private Long aggregateId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "event_type")
+    private EventType eventType;
+
+    @Column(name = "payload")
+    @ToString.Exclude
+    private String payload;
+
+    @Column(name = "creation_date")
+    private LocalDateTime created;
+
+    public enum AggregateType {
+        BOOKING, ITEM
+    }
+
+    public enum EventType {
+        BOOKING_CREATED, BOOKING_APPROVED, BOOKING_REJECTED, ITEM_CREATED, ITEM_UPDATED
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || Hibernate.getClass(this) != Hibernate.getClass(o)) return false;
+        OutboxEvent event = (OutboxEvent) o;
+        return id != null && Objects.equals(id, event.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return getClass().hashCode();
+    }
+}
@@ -0,0 +1,37 @@
+package ru.practicum.shareit.outbox;
+
+import lombok.*;
+
+import javax.persistence.*;
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "outbox_gaps")
+@IdClass(OutboxGap.Key.class)
+public class OutboxGap {
+
+    @Id
+    @Column(name = "sink")
+    private String sink;
+
+    @Id
+    @Column(name = "event_id")
+    private Long eventId;
+
+    @Column(name = "skipped_at")
+    private LocalDateTime skippedAt;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private String sink;
+        private Long eventId;
+    }
+}
@@ -0,0 +1,13 @@
+package ru.practicum.shareit.outbox;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface OutboxGapRepository extends JpaRepository<OutboxGap, OutboxGap.Key> {
+
+    List<OutboxGap> findBySink(String sink);
+
+    Optional<OutboxGap> findFirstByOrderByEventId();
+}
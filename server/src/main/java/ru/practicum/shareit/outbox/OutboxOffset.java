@@ -0,0 +1,25 @@
+package ru.practicum.shareit.outbox;
+
+import lombok.*;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+@Getter
+@Setter
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "outbox_offsets")
+public class OutboxOffset {
+
+    @Id
+    @Column(name = "sink")
+    private String sink;
+
+    @Column(name = "last_event_id")
+    private Long lastEventId;
+}
@@ -0,0 +1,15 @@
+package ru.practicum.shareit.outbox;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+
+import javax.persistence.LockModeType;
+import java.util.Optional;
+
+public interface OutboxOffsetRepository extends JpaRepository<OutboxOffset, String> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select o from OutboxOffset o where o.sink = ?1")
+    Optional<OutboxOffset> findForUpdate(String sink);
+}
@@ -0,0 +1,177 @@
+package ru.practicum.shareit.outbox;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Drains the outbox to every {@link EventSink}, each sink has an offset of its own.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(value = "shareit.outbox.relay.enabled", havingValue = "true", matchIfMissing = true)
+public class OutboxRelay {
+
+    private final OutboxRepository outboxRepository;
+    private final OutboxOffsetRepository offsetRepository;
+    private final OutboxGapRepository gapRepository;
+    private final List<EventSink> sinks;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final Duration gapTimeout;
+    private final Duration gapHorizon;
+    private final Counter gapsSkipped;
+    private final Counter gapsFilled;
+    private final Counter gapsLost;
+
+    @Autowired
+    public OutboxRelay(OutboxRepository outboxRepository, OutboxOffsetRepository offsetRepository,
+                       OutboxGapRepository gapRepository, ObjectProvider<EventSink> sinks,
+                       TransactionTemplate transactionTemplate, MeterRegistry meterRegistry,
+                       @Value("${shareit.outbox.relay.batch-size:100}") int batchSize,
+                       @Value("${shareit.outbox.relay.gap-timeout:PT10S}") Duration gapTimeout,
+                       @Value("${shareit.outbox.relay.gap-horizon:PT1H}") Duration gapHorizon) {
+        this.outboxRepository = outboxRepository;
+        this.offsetRepository = offsetRepository;
+        this.gapRepository = gapRepository;
+        this.sinks = sinks.orderedStream().collect(Collectors.toList());
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.gapTimeout = gapTimeout;
+        this.gapHorizon = gapHorizon;
+        this.gapsSkipped = gapCounter(meterRegistry, "skipped");
+        this.gapsFilled = gapCounter(meterRegistry, "filled");
+        this.gapsLost = gapCounter(meterRegistry, "lost");
+        log.info("Outbox relay delivers to {}.",
+                this.sinks.stream().map(EventSink::name).collect(Collectors.toList()));
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.outbox.relay.interval:PT1S}")
+    public void run() {
+        if (sinks.isEmpty()) return;
+        for (EventSink sink : sinks) {
+            try {
+                int delivered;
+                do {
+                    delivered = transactionTemplate.execute(status -> relay(sink));
+                } while (delivered == batchSize);
+            } catch (RuntimeException e) {
+                log.warn("Outbox delivery to {} failed, will retry: {}", sink.name(), e.getMessage());
+            }
+        }
+        transactionTemplate.executeWithoutResult(status -> deleteDelivered());
+    }
+
+    int relay(EventSink sink) {
+        OutboxOffset offset = offsetRepository.findForUpdate(sink.name())
+                .orElseGet(() -> offsetRepository.saveAndFlush(new OutboxOffset(sink.name(), 0L)));
+        LocalDateTime now = LocalDateTime.now();
+        List<OutboxEvent> late = fillGaps(sink, now);
+        List<Long> skipped = new ArrayList<>();
+        List<OutboxEvent> events = deliverable(
+                outboxRepository.findByIdGreaterThanOrderById(offset.getLastEventId(), PageRequest.of(0, batchSize)),
+                offset.getLastEventId(), now.minus(gapTimeout), skipped);
+        if (late.isEmpty() && events.isEmpty()) return 0;
+        List<OutboxEvent> delivered = new ArrayList<>(late);
+        delivered.addAll(events);
+        try {
+            sink.deliver(delivered);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        gapsFilled.increment(late.size());
+        if (!skipped.isEmpty()) {
+            gapRepository.saveAll(skipped.stream().map(id -> new OutboxGap(sink.name(), id, now))
+                    .collect(Collectors.toList()));
+            gapsSkipped.increment(skipped.size());
+            log.warn("Outbox events {} are missing, {} went past them and will deliver them if they appear " +
+                    "within {}.", skipped, sink.name(), gapHorizon);
+        }
+        if (!events.isEmpty()) offset.setLastEventId(events.get(events.size() - 1).getId());
+        log.debug("Delivered {} events to {} up to id:{}.", delivered.size(), sink.name(), offset.getLastEventId());
+        return events.size();
+    }
+
+    private List<OutboxEvent> fillGaps(EventSink sink, LocalDateTime now) {
+        List<OutboxGap> gaps = gapRepository.findBySink(sink.name());
+        if (gaps.isEmpty()) return List.of();
+        List<OutboxEvent> late = new ArrayList<>(outboxRepository.findAllById(
+                gaps.stream().map(OutboxGap::getEventId).collect(Collectors.toList())));
+        late.sort(Comparator.comparing(OutboxEvent::getId));
+        Set<Long> found = late.stream().map(OutboxEvent::getId).collect(Collectors.toSet());
+        LocalDateTime horizon = now.minus(gapHorizon);
+        List<OutboxGap> lost = gaps.stream()
+                .filter(gap -> !found.contains(gap.getEventId()) && gap.getSkippedAt().isBefore(horizon))
+                .collect(Collectors.toList());
+        if (!lost.isEmpty()) {
+            gapsLost.increment(lost.size());
+            log.warn("Outbox events {} did not appear within {}, {} stops waiting for them.",
+                    lost.stream().map(OutboxGap::getEventId).collect(Collectors.toList()), gapHorizon, sink.name());
+        }
+        List<OutboxGap> closed = gaps.stream()
+                .filter(gap -> found.contains(gap.getEventId()) || lost.contains(gap))
+                .collect(Collectors.toList());
+        if (!closed.isEmpty()) gapRepository.deleteAll(closed);
+        return late;
+    }
+
+    /**
+     * Ids become visible at commit, so a missing id is a transaction still running or rolled back.
+     */
+    static List<OutboxEvent> deliverable(List<OutboxEvent> events, long afterId, LocalDateTime gapDeadline,
+                                         List<Long> skipped) {
+        List<OutboxEvent> result = new ArrayList<>(events.size());
+        long expected = afterId + 1;
+        for (OutboxEvent event : events) {
+            if (event.getId() != expected) {
+                if (event.getCreated().isAfter(gapDeadline)) break;
+                for (long id = expected; id < event.getId(); id++) {
+                    skipped.add(id);
+                }
+            }
+            result.add(event);
+            expected = event.getId() + 1;
+        }
+        return result;
+    }
+
+    private void deleteDelivered() {
+        Map<String, Long> offsets = offsetRepository.findAllById(
+                        sinks.stream().map(EventSink::name).collect(Collectors.toList())).stream()
+                .collect(Collectors.toMap(OutboxOffset::getSink, OutboxOffset::getLastEventId));
+        if (offsets.size() < sinks.size()) return;
+        long delivered = offsets.values().stream().mapToLong(Long::longValue).min().orElse(0L);
+        //Событие пропуска, появившееся позже, ещё не доставлено, поэтому удаляем только до первого пропуска
+        Optional<OutboxGap> gap = gapRepository.findFirstByOrderByEventId();
+        if (gap.isPresent()) delivered = Math.min(delivered, gap.get().getEventId() - 1);
+        int deleted = outboxRepository.deleteUpTo(delivered);
+        if (deleted > 0) log.debug("Deleted {} delivered outbox events.", deleted);
+    }
+
+    private static Counter gapCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("shareit.outbox.gaps")
+                .description("Missing outbox ids the relay went past, and how they ended")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
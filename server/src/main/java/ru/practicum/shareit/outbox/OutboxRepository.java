@@ -0,0 +1,17 @@
+package ru.practicum.shareit.outbox;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
+
+public interface OutboxRepository extends JpaRepository<OutboxEvent, Long> {
+
+    List<OutboxEvent> findByIdGreaterThanOrderById(Long afterId, Pageable pageable);
+
+    @Modifying
+    @Query("delete from OutboxEvent e where e.id <= ?1")
+    int deleteUpTo(Long lastId);
+}
@@ -0,0 +1,59 @@
+package ru.practicum.shareit.paging;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position right after the last row of a page, sent to clients as an opaque token.
+ */
+@Getter
+@ToString
+@EqualsAndHashCode
+public class Cursor {
+
+    private static final String SEPARATOR = "_";
+
+    private final LocalDateTime key;
+    private final Integer id;
+
+    private Cursor(LocalDateTime key, Integer id) {
+        this.key = key;
+        this.id = id;
+    }
+
+    public static Cursor of(Integer id) {
+        return new Cursor(null, id);
+    }
+
+    public static Cursor of(LocalDateTime key, Integer id) {
+        return new Cursor(key, id);
+    }
+
+    public String encode() {
+        String value = key == null ? String.valueOf(id) : key + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static Cursor decode(String token) {
+        if (token == null || token.isBlank()) return null;
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int split = value.lastIndexOf(SEPARATOR);
+            if (split < 0) return of(Integer.valueOf(value));
+            return of(LocalDateTime.parse(value.substring(0, split)), Integer.valueOf(value.substring(split + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new InvalidCursorException("Invalid cursor: " + token);
+        }
+    }
+
+    public LocalDateTime requireKey() {
+        if (key == null) throw new InvalidCursorException("Cursor does not belong to this list.");
+        return key;
+    }
+}
@@ -0,0 +1,11 @@
+package ru.practicum.shareit.paging;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpStatusCodeException;
+
+public class InvalidCursorException extends HttpStatusCodeException {
+
+    public InvalidCursorException(String msg) {
+        super(HttpStatus.BAD_REQUEST, msg);
+    }
+}
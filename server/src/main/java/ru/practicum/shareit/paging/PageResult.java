@@ -0,0 +1,58 @@
+package ru.practicum.shareit.paging;
+
+import lombok.Getter;
+import lombok.ToString;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * One page of a list without its exact total.
+ */
+@Getter
+@ToString
+public class PageResult<T> {
+
+    public static final String HAS_MORE_HEADER = "X-Has-More";
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    public static final String APPROXIMATE_TOTAL_HEADER = "X-Total-Count-Approximate";
+
+    private final List<T> content;
+    private final boolean hasMore;
+    private final String nextCursor;
+    private final Long approximateTotal;
+
+    public PageResult(List<T> content, boolean hasMore, String nextCursor, Long approximateTotal) {
+        this.content = content;
+        this.hasMore = hasMore;
+        this.nextCursor = nextCursor;
+        this.approximateTotal = approximateTotal;
+    }
+
+    public static <T> PageResult<T> of(Slice<T> slice, Function<T, Cursor> cursorOf, Long approximateTotal) {
+        List<T> content = slice.getContent();
+        String nextCursor = slice.hasNext() && !content.isEmpty()
+                ? cursorOf.apply(content.get(content.size() - 1)).encode()
+                : null;
+        return new PageResult<>(content, slice.hasNext(), nextCursor, approximateTotal);
+    }
+
+    public static <T> PageResult<T> of(Slice<T> slice, Function<T, Cursor> cursorOf) {
+        return of(slice, cursorOf, null);
+    }
+
+    public static <T> PageResult<T> empty() {
+        return new PageResult<>(Collections.emptyList(), false, null, null);
+    }
+
+    public HttpHeaders headers() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HAS_MORE_HEADER, String.valueOf(hasMore));
+        if (nextCursor != null) headers.set(NEXT_CURSOR_HEADER, nextCursor);
+        if (approximateTotal != null) headers.set(APPROXIMATE_TOTAL_HEADER, String.valueOf(approximateTotal));
+        return headers;
+    }
+}
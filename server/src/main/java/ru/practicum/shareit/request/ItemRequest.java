@@ -21,11 +21,18 @@ public class ItemRequest {
     private Integer id;
     @Column(name = "description")
     private String description;
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "requester_id", referencedColumnName = "id")
     private User requester;
     @Column(name = "creation_date")
     private LocalDateTime created;
+    @Version
+    @Column(name = "version")
+    private Long version;
+
+    public ItemRequest(Integer id, String description, User requester, LocalDateTime created) {
+        this(id, description, requester, created, null);
+    }
 
     @Override
     public boolean equals(Object o) {
@@ -3,8 +3,12 @@ package ru.practicum.shareit.request;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
+import ru.practicum.shareit.paging.Cursor;
+import ru.practicum.shareit.paging.PageResult;
 import ru.practicum.shareit.request.dto.ItemRequestShort;
 
 import java.util.List;
@@ -37,19 +41,22 @@ public class ItemRequestController {
     }
 
     @GetMapping("/all") //getAll
-    @ResponseStatus(HttpStatus.OK)
-    public List<ItemRequestDto> getAll(@RequestHeader("X-Sharer-User-Id") Integer userId,
-                                       @RequestParam(value = "from") Integer from,
-                                       @RequestParam(value = "size") Integer size) {
+    public ResponseEntity<List<ItemRequestDto>> getAll(@RequestHeader("X-Sharer-User-Id") Integer userId,
+                                                       @RequestParam(value = "from") Integer from,
+                                                       @RequestParam(value = "size") Integer size,
+                                                       @RequestParam(value = "cursor", required = false)
+                                                       String cursor) {
         log.debug("GET-request at /requests/all?form={}&size={}, user: {}", from, size, userId);
-        return service.getAll(userId, from, size);
+        PageResult<ItemRequestDto> result = service.getAll(userId, from, size, Cursor.decode(cursor));
+        return ResponseEntity.ok().headers(result.headers()).body(result.getContent());
     }
 
     @GetMapping("/{requestId}") //getById
-    @ResponseStatus(HttpStatus.OK)
-    public ItemRequestDto getById(@RequestHeader("X-Sharer-User-Id") Integer userId,
-                                  @PathVariable("requestId") Integer requestId) {
+    public ResponseEntity<ItemRequestDto> getById(@RequestHeader("X-Sharer-User-Id") Integer userId,
+                                                  @PathVariable("requestId") Integer requestId,
+                                                  WebRequest request) {
         log.debug("GET-request at /requests/{}", requestId);
-        return service.getById(userId, requestId);
+        if (request.checkNotModified(service.getETag(userId, requestId))) return null;
+        return ResponseEntity.ok(service.getById(userId, requestId));
     }
 }
@@ -1,14 +1,35 @@
 package ru.practicum.shareit.request;
 
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import ru.practicum.shareit.request.dto.ItemRequestDto;
+import ru.practicum.shareit.request.dto.RequestItemVersion;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 public interface ItemRequestRepository extends JpaRepository<ItemRequest, Integer> {
-    List<ItemRequest> findAllByRequesterId(Integer requesterId, Sort sort);
+    String REQUEST_DTO = "select new ru.practicum.shareit.request.dto.ItemRequestDto(r.id, r.description, " +
+            "r.created) from ItemRequest r ";
 
-    Page<ItemRequest> findAllByRequesterIdNot(Integer requesterId, Pageable pageable);
+    @Query(REQUEST_DTO + "where r.requester.id = ?1")
+    List<ItemRequestDto> findAllByRequesterId(Integer requesterId, Sort sort);
+
+    @Query(REQUEST_DTO + "where r.requester.id <> ?1")
+    Slice<ItemRequestDto> findAllByRequesterIdNot(Integer requesterId, Pageable pageable);
+
+    @Query(REQUEST_DTO + "where r.requester.id <> ?1 " +
+            "and (r.created > ?2 or (r.created = ?2 and r.id > ?3))")
+    Slice<ItemRequestDto> findAllByRequesterIdNotAfter(Integer requesterId, LocalDateTime created, Integer id,
+                                                    Pageable pageable);
+
+    @Query("select r.version from ItemRequest r where r.id = ?1")
+    Optional<Long> findVersion(Integer requestId);
+
+    @Query("select i.id as id, i.version as version from Item i where i.requestId = ?1 order by i.id")
+    List<RequestItemVersion> findItemVersions(Integer requestId);
 }
@@ -2,20 +2,27 @@ package ru.practicum.shareit.request;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.etag.ETags;
 import ru.practicum.shareit.item.ItemRepository;
 import ru.practicum.shareit.item.dto.ItemDto;
-import ru.practicum.shareit.item.mapper.ItemMapper;
+import ru.practicum.shareit.paging.Cursor;
+import ru.practicum.shareit.paging.OffsetPageRequest;
+import ru.practicum.shareit.paging.PageResult;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.dto.ItemRequestShort;
+import ru.practicum.shareit.request.dto.RequestItemVersion;
 import ru.practicum.shareit.user.User;
 import ru.practicum.shareit.handler.exception.NotFoundException;
 import ru.practicum.shareit.user.UserRepository;
 
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.LocalDateTime;
 import java.util.*;
 
@@ -30,17 +37,14 @@ public class ItemRequestService {
     private final UserRepository userRepository;
     private final ItemRequestMapper mapper;
     private final ItemRepository itemRepository;
-    private final ItemMapper itemMapper;
 
     @Autowired
     public ItemRequestService(ItemRequestRepository repository, UserRepository userRepository,
-                              ItemRepository itemRepository, ItemRequestMapper mapper,
-                              ItemMapper itemMapper) {
+                              ItemRepository itemRepository, ItemRequestMapper mapper) {
         this.repository = repository;
         this.userRepository = userRepository;
         this.mapper = mapper;
         this.itemRepository = itemRepository;
-        this.itemMapper = itemMapper;
     }
 
     @Transactional
@@ -58,16 +62,18 @@ public class ItemRequestService {
     public List<ItemRequestDto> getByUser(Integer userId) {
         findUser(userId); //Просто проверка, т.к. не требуется никуда его передавать.
         Sort sort = Sort.by("created").ascending();
-        return addItems(mapper.toListDto(repository.findAllByRequesterId(userId, sort)));
+        return addItems(repository.findAllByRequesterId(userId, sort));
     }
 
     @Transactional(readOnly = true)
-    public List<ItemRequestDto> getAll(Integer userId, Integer from, Integer size) {
+    public PageResult<ItemRequestDto> getAll(Integer userId, Integer from, Integer size, Cursor cursor) {
         findUser(userId);
-        Pageable page = PageRequest.of(from / size, size, Sort.by("created").ascending());
-        List<ItemRequestDto> requests = mapper.toListDto(
-                repository.findAllByRequesterIdNot(userId, page).getContent());
-        return addItems(requests);
+        Pageable page = OffsetPageRequest.of(cursor, from, size, Sort.by("created", "id").ascending());
+        Slice<ItemRequestDto> dtos = cursor == null
+                ? repository.findAllByRequesterIdNot(userId, page)
+                : repository.findAllByRequesterIdNotAfter(userId, cursor.requireKey(), cursor.getId(), page);
+        addItems(dtos.getContent());
+        return PageResult.of(dtos, request -> Cursor.of(request.getCreated(), request.getId()));
     }
 
     @Transactional(readOnly = true)
@@ -78,6 +84,30 @@ public class ItemRequestService {
         return addItems(mapper.toDto(request.get()));
     }
 
+    @Transactional(readOnly = true)
+    public String getETag(Integer userId, Integer requestId) {
+        findUser(userId);
+        Optional<Long> version = repository.findVersion(requestId);
+        if (version.isEmpty()) throw new NotFoundException("Request not found.");
+        return ETags.weak(version.get(), fingerprint(repository.findItemVersions(requestId)));
+    }
+
+    //Хеш упорядоченных пар (id, version): у разных наборов предметов совпадают количества и суммы, но не он
+    private static String fingerprint(List<RequestItemVersion> items) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        ByteBuffer pair = ByteBuffer.allocate(Integer.BYTES + Long.BYTES);
+        for (RequestItemVersion item : items) {
+            pair.clear();
+            digest.update(pair.putInt(item.getId()).putLong(item.getVersion()).array());
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(digest.digest(), 12));
+    }
+
     private User findUser(Integer userId) {
         Optional<User> user = userRepository.findById(userId);
         if (user.isEmpty()) throw new NotFoundException("Owner not found.");
@@ -86,7 +116,7 @@ public class ItemRequestService {
 
     private List<ItemRequestDto> addItems(List<ItemRequestDto> requests) {
         List<Integer> requestsId = requests.stream().map(ItemRequestDto::getId).collect(toList());
-        List<ItemDto> items = itemMapper.toDtoList(itemRepository.findAllByRequestIdIn(requestsId));
+        List<ItemDto> items = itemRepository.findAllByRequestIdIn(requestsId);
         if (items == null || items.isEmpty()) return requests;
         Map<Integer, List<ItemDto>> itemsMap = items.stream().collect(groupingBy(ItemDto::getRequestId, toList()));
         return requests.stream().peek(r -> r.setItems(itemsMap.getOrDefault(r.getId(), Collections.emptyList())))
@@ -94,7 +124,7 @@ public class ItemRequestService {
     }
 
     private ItemRequestDto addItems(ItemRequestDto request) {
-        List<ItemDto> items = itemMapper.toDtoList(itemRepository.findAllByRequestId(request.getId()));
+        List<ItemDto> items = itemRepository.findAllByRequestId(request.getId());
         if (items == null || items.isEmpty()) return request;
         request.setItems(items);
         return request;
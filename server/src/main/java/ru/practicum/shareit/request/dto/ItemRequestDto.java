@@ -18,4 +18,10 @@ public class ItemRequestDto {
     private String description;
     private LocalDateTime created;
     private List<ItemDto> items = new ArrayList<>();
+
+    public ItemRequestDto(Integer id, String description, LocalDateTime created) {
+        this.id = id;
+        this.description = description;
+        this.created = created;
+    }
 }
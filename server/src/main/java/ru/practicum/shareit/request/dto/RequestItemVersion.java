@@ -0,0 +1,8 @@
+package ru.practicum.shareit.request.dto;
+
+public interface RequestItemVersion {
+
+    Integer getId();
+
+    Long getVersion();
+}
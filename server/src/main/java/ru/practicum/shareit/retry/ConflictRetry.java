@@ -0,0 +1,83 @@
+package ru.practicum.shareit.retry;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.handler.exception.ConcurrentUpdateException;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Runs a unit of work in a transaction of its own and again when a versioned entity was changed concurrently.
+ */
+@Slf4j
+@Component
+public class ConflictRetry {
+
+    private static final String CONFLICTS = "shareit.optimistic.conflicts";
+
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final int maxAttempts;
+    private final Duration backoff;
+
+    @Autowired
+    public ConflictRetry(TransactionTemplate transactionTemplate, MeterRegistry meterRegistry,
+                         @Value("${shareit.retry.max-attempts:3}") int maxAttempts,
+                         @Value("${shareit.retry.backoff:PT0.02S}") Duration backoff) {
+        this.transactionTemplate = transactionTemplate;
+        this.meterRegistry = meterRegistry;
+        this.maxAttempts = maxAttempts;
+        this.backoff = backoff;
+    }
+
+    /**
+     * Must be called outside a transaction: a retry inside one would see the same stale state.
+     */
+    public <T> T execute(String operation, Supplier<T> work) {
+        if (TransactionSynchronizationManager.isActualTransactionActive())
+            throw new IllegalStateException("Retried work must start its own transaction.");
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> work.get());
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt >= maxAttempts) {
+                    counter(operation, "failed").increment();
+                    log.warn("{} gave up after {} conflicting attempts.", operation, attempt);
+                    throw new ConcurrentUpdateException("The data was changed concurrently, please try again.");
+                }
+                counter(operation, "retried").increment();
+                log.debug("{} conflicted on attempt {}: {}", operation, attempt, e.getMessage());
+                pause(attempt);
+            }
+        }
+    }
+
+    private Counter counter(String operation, String outcome) {
+        return Counter.builder(CONFLICTS)
+                .description("Optimistic locking conflicts")
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    private void pause(int attempt) {
+        long millis = backoff.toMillis();
+        if (millis == 0) return;
+        //Случайная добавка разводит повторы столкнувшихся запросов
+        try {
+            Thread.sleep(millis * attempt + ThreadLocalRandom.current().nextLong(millis + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConcurrentUpdateException("Interrupted while retrying a concurrent update.");
+        }
+    }
+}
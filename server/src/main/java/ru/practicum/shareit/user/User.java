@@ -21,6 +21,13 @@ public class User {
     private String name;
     @Column(name = "email", length = 512, nullable = false, unique = true)
     private String email;
+    @Version
+    @Column(name = "version")
+    private Long version;
+
+    public User(Integer id, String name, String email) {
+        this(id, name, email, null);
+    }
 
     @Override
     public boolean equals(Object o) {
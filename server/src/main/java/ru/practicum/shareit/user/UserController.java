@@ -3,7 +3,9 @@ package ru.practicum.shareit.user;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import ru.practicum.shareit.user.dto.DeleteResponse;
 import ru.practicum.shareit.user.dto.UserDto;
 
@@ -46,10 +48,10 @@ public class UserController {
     }
 
     @GetMapping("/{userId}") //getById
-    @ResponseStatus(HttpStatus.OK)
-    public UserDto getById(@PathVariable Integer userId) {
+    public ResponseEntity<UserDto> getById(@PathVariable Integer userId, WebRequest request) {
         log.debug("GET-request at /users/{}", userId);
-        return userService.getUser(userId);
+        if (request.checkNotModified(userService.getUserETag(userId))) return null;
+        return ResponseEntity.ok(userService.getUser(userId));
     }
 
     @DeleteMapping("/{userId}") //deleteById
@@ -1,9 +1,13 @@
 package ru.practicum.shareit.user;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Integer> {
     Optional<User> findUserByEmail(String email);
+
+    @Query("select u.version from User u where u.id = ?1")
+    Optional<Long> findVersion(Integer userId);
 }
@@ -4,10 +4,16 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.etag.ETags;
+import ru.practicum.shareit.item.CommentRepository;
+import ru.practicum.shareit.item.ItemRepository;
+import ru.practicum.shareit.item.cache.ItemViewCache;
+import ru.practicum.shareit.retry.ConflictRetry;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.handler.exception.NotFoundException;
 
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 
 @Slf4j
@@ -16,11 +22,20 @@ public class UserService {
 
     private final UserRepository userStorage;
     private final UserMapper userMapper;
+    private final CommentRepository commentRepository;
+    private final ItemRepository itemRepository;
+    private final ItemViewCache itemViewCache;
+    private final ConflictRetry conflictRetry;
 
     @Autowired
-    public UserService(UserRepository userStorage, UserMapper userMapper) {
+    public UserService(UserRepository userStorage, UserMapper userMapper, CommentRepository commentRepository,
+                       ItemRepository itemRepository, ItemViewCache itemViewCache, ConflictRetry conflictRetry) {
         this.userStorage = userStorage;
         this.userMapper = userMapper;
+        this.commentRepository = commentRepository;
+        this.itemRepository = itemRepository;
+        this.itemViewCache = itemViewCache;
+        this.conflictRetry = conflictRetry;
     }
 
     @Transactional
@@ -29,17 +44,25 @@ public class UserService {
         return userMapper.toDto(userStorage.save(userMapper.toEntity(user)));
     }
 
-    @Transactional
     public UserDto patch(UserDto user) {
-        Optional<User> oldUser = userStorage.findById(user.getId());
-        if (oldUser.isPresent()) {
-            log.debug("User with id: {} exists.", user.getId());
-            User patchedUser = patchUser(oldUser.get(), user);
-            return userMapper.toDto(patchedUser);
-        } else {
-            log.warn("User with such ID not found.");
-            throw new NotFoundException("User with ID: " + user.getId() + " not found.");
-        }
+        return conflictRetry.execute("user.patch", () -> {
+            Optional<User> oldUser = userStorage.findById(user.getId());
+            if (oldUser.isPresent()) {
+                log.debug("User with id: {} exists.", user.getId());
+                String oldName = oldUser.get().getName();
+                User patchedUser = patchUser(oldUser.get(), user);
+                //Имя автора показывается в комментариях закэшированных вещей
+                if (!Objects.equals(patchedUser.getName(), oldName)) {
+                    itemViewCache.invalidate(commentRepository.findItemIdsByAuthorId(patchedUser.getId()));
+                    itemRepository.renameLastCommentAuthor(patchedUser.getId(), patchedUser.getName());
+                    itemRepository.touchCommentedBy(patchedUser.getId());
+                }
+                return userMapper.toDto(patchedUser);
+            } else {
+                log.warn("User with such ID not found.");
+                throw new NotFoundException("User with ID: " + user.getId() + " not found.");
+            }
+        });
     }
 
     @Transactional(readOnly = true)
@@ -58,6 +81,13 @@ public class UserService {
         }
     }
 
+    @Transactional(readOnly = true)
+    public String getUserETag(Integer userId) {
+        Optional<Long> version = userStorage.findVersion(userId);
+        if (version.isEmpty()) throw new NotFoundException("User with ID: " + userId + " not found.");
+        return ETags.weak(version.get());
+    }
+
     @Transactional
     public void deleteUser(Integer userId) {
         userStorage.deleteById(userId);
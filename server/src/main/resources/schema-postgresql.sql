@@ -0,0 +1,37 @@
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+ALTER TABLE items
+    ADD COLUMN IF NOT EXISTS search_vector TSVECTOR
+        GENERATED ALWAYS AS (to_tsvector('russian', name || ' ' || description)) STORED;
+
+CREATE INDEX IF NOT EXISTS idx_items_search_vector ON items USING GIN (search_vector);
+CREATE INDEX IF NOT EXISTS idx_items_name_trgm ON items USING GIN (name gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_items_description_trgm ON items USING GIN (description gin_trgm_ops);
+
+-- Monthly partitions by start_date are created and moved to the archive by BookingPartitions
+DROP TABLE IF EXISTS bookings_archive CASCADE;
+DROP TABLE bookings;
+
+CREATE TABLE bookings
+(
+    id         BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
+    start_date TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    end_date   TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    item_id    BIGINT REFERENCES items (id),
+    booker_id  BIGINT REFERENCES users (id),
+    status     VARCHAR(9),
+    version    BIGINT DEFAULT 0 NOT NULL,
+    CONSTRAINT pk_booking PRIMARY KEY (id, start_date)
+) PARTITION BY RANGE (start_date);
+
+CREATE INDEX IF NOT EXISTS idx_bookings_item_end ON bookings (item_id, end_date);
+CREATE INDEX IF NOT EXISTS idx_bookings_booker_start ON bookings (booker_id, start_date, id);
+CREATE INDEX IF NOT EXISTS idx_bookings_item_status ON bookings (item_id, status);
+CREATE INDEX IF NOT EXISTS idx_bookings_end ON bookings (end_date);
+CREATE INDEX IF NOT EXISTS idx_bookings_status_start ON bookings (status, start_date);
+
+-- Same columns as indexes of the hot partitions, so moving a partition reuses them instead of building new ones
+CREATE TABLE bookings_archive (LIKE bookings) PARTITION BY RANGE (start_date);
+
+CREATE INDEX IF NOT EXISTS idx_bookings_archive_booker_start ON bookings_archive (booker_id, start_date, id);
+CREATE INDEX IF NOT EXISTS idx_bookings_archive_item_status ON bookings_archive (item_id, status);
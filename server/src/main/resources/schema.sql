@@ -1,14 +1,19 @@
+DROP TABLE IF EXISTS outbox_gaps cascade;
+DROP TABLE IF EXISTS outbox_offsets cascade;
+DROP TABLE IF EXISTS outbox_events cascade;
 DROP TABLE IF EXISTS comments cascade;
 DROP TABLE IF EXISTS requests cascade;
 DROP TABLE IF EXISTS bookings cascade;
 DROP TABLE IF EXISTS items cascade;
 DROP TABLE IF EXISTS users cascade;
+DROP SEQUENCE IF EXISTS items_seq;
 
 CREATE TABLE IF NOT EXISTS users
 (
     id    BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
     name  VARCHAR(255)                            NOT NULL,
     email VARCHAR(512)                            NOT NULL,
+    version BIGINT DEFAULT 0                      NOT NULL,
     CONSTRAINT pk_user PRIMARY KEY (id),
     CONSTRAINT UQ_USER_EMAIL UNIQUE (email)
 );
@@ -19,17 +24,28 @@ CREATE TABLE IF NOT EXISTS requests
     description   VARCHAR                                 NOT NULL,
     requester_id  BIGINT REFERENCES users (id),
     creation_date TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    version       BIGINT DEFAULT 0                        NOT NULL,
     CONSTRAINT pk_request PRIMARY KEY (id)
 );
 
+-- Hibernate takes ids of items in blocks of 50 (pooled optimizer), so inserts of many items can be batched
+CREATE SEQUENCE IF NOT EXISTS items_seq START WITH 1 INCREMENT BY 50;
+
 CREATE TABLE IF NOT EXISTS items
 (
-    id           BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
+    id           BIGINT DEFAULT nextval('items_seq')     NOT NULL,
     name         VARCHAR(255)                            NOT NULL,
     description  VARCHAR                                 NOT NULL,
     is_available BOOLEAN                                 NOT NULL,
     owner_id     BIGINT REFERENCES users (id),
     request_id   BIGINT,
+    version      BIGINT DEFAULT 0                        NOT NULL,
+    -- Kept by ItemService.createComment for list views, not mapped by the Item entity
+    comment_count        BIGINT DEFAULT 0                NOT NULL,
+    last_comment_id      BIGINT,
+    last_comment_text    VARCHAR,
+    last_comment_author  VARCHAR(255),
+    last_comment_created TIMESTAMP WITHOUT TIME ZONE,
     CONSTRAINT pk_item PRIMARY KEY (id)
 );
 
@@ -41,6 +57,7 @@ CREATE TABLE IF NOT EXISTS bookings
     item_id    BIGINT REFERENCES items (id),
     booker_id  BIGINT REFERENCES users (id),
     status     VARCHAR(9),
+    version    BIGINT DEFAULT 0 NOT NULL,
     CONSTRAINT pk_booking PRIMARY KEY (id)
 );
 
@@ -52,4 +69,39 @@ CREATE TABLE IF NOT EXISTS comments
     author_id     BIGINT REFERENCES users (id),
     creation_date TIMESTAMP WITHOUT TIME ZONE NOT NULL,
     CONSTRAINT pk_comment PRIMARY KEY (id)
-);
\ No newline at end of file
+);
+
+CREATE TABLE IF NOT EXISTS outbox_events
+(
+    id             BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
+    aggregate_type VARCHAR(16)                             NOT NULL,
+    aggregate_id   BIGINT                                  NOT NULL,
+    event_type     VARCHAR(32)                             NOT NULL,
+    payload        VARCHAR                                 NOT NULL,
+    creation_date  TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    CONSTRAINT pk_outbox_event PRIMARY KEY (id)
+);
+
+CREATE TABLE IF NOT EXISTS outbox_offsets
+(
+    sink          VARCHAR(64) NOT NULL,
+    last_event_id BIGINT      NOT NULL,
+    CONSTRAINT pk_outbox_offset PRIMARY KEY (sink)
+);
+
+CREATE TABLE IF NOT EXISTS outbox_gaps
+(
+    sink       VARCHAR(64)                 NOT NULL,
+    event_id   BIGINT                      NOT NULL,
+    skipped_at TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    CONSTRAINT pk_outbox_gap PRIMARY KEY (sink, event_id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_items_owner ON items (owner_id, id);
+CREATE INDEX IF NOT EXISTS idx_items_request ON items (request_id, id);
+CREATE INDEX IF NOT EXISTS idx_bookings_item_end ON bookings (item_id, end_date);
+CREATE INDEX IF NOT EXISTS idx_bookings_booker_start ON bookings (booker_id, start_date, id);
+CREATE INDEX IF NOT EXISTS idx_bookings_item_status ON bookings (item_id, status);
+CREATE INDEX IF NOT EXISTS idx_bookings_end ON bookings (end_date);
+CREATE INDEX IF NOT EXISTS idx_bookings_status_start ON bookings (status, start_date);
+CREATE INDEX IF NOT EXISTS idx_comments_item_created ON comments (item_id, creation_date, id);
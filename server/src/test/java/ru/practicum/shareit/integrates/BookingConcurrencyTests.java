@@ -0,0 +1,138 @@
+package ru.practicum.shareit.integrates;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.booking.BookingService;
+import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.booking.dto.BookingRequest;
+import ru.practicum.shareit.booking.exception.BookingOverlapException;
+import ru.practicum.shareit.booking.exception.BookingStatusChangeException;
+import ru.practicum.shareit.item.ItemService;
+import ru.practicum.shareit.item.dto.CreateItemRequest;
+import ru.practicum.shareit.user.UserService;
+import ru.practicum.shareit.user.dto.UserDto;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class BookingConcurrencyTests {
+
+    private static final int THREADS = 16;
+
+    private final BookingService bookingService;
+    private final BookingRepository bookingRepository;
+    private final ItemService itemService;
+    private final UserService userService;
+
+    @Test
+    void testOnlyOneOfConcurrentOverlappingBookingsSucceeds() throws Exception {
+        Integer ownerId = userService.create(new UserDto(null, "owner", "concurrency-owner@ya.ru")).getId();
+        Integer itemId = itemService.create(
+                new CreateItemRequest(null, "Дрель", "Простая дрель", Boolean.TRUE, null), ownerId).getId();
+        List<Integer> bookers = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            bookers.add(userService.create(new UserDto(null, "booker" + i, "concurrency" + i + "@ya.ru")).getId());
+        }
+        LocalDateTime start = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.SECONDS);
+
+        AtomicInteger created = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        CountDownLatch ready = new CountDownLatch(THREADS);
+        CountDownLatch go = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                //Все интервалы пересекаются со всеми: сдвиг меньше длины брони
+                BookingRequest request = new BookingRequest(itemId, start.plusHours(i), start.plusHours(i + THREADS));
+                Integer bookerId = bookers.get(i);
+                futures.add(executor.submit(() -> {
+                    ready.countDown();
+                    go.await();
+                    try {
+                        bookingService.create(request, bookerId);
+                        created.incrementAndGet();
+                    } catch (BookingOverlapException e) {
+                        rejected.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            ready.await();
+            go.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(created.get(), equalTo(1));
+        assertThat(rejected.get(), equalTo(THREADS - 1));
+        assertThat(bookingRepository.findByItemIdAndStatusInAndEndIsAfterOrderByStart(itemId,
+                List.of(BookingStatus.WAITING, BookingStatus.APPROVED), start).size(), equalTo(1));
+    }
+
+    @Test
+    void testOnlyOneOfConcurrentApprovalsSucceeds() throws Exception {
+        Integer ownerId = userService.create(new UserDto(null, "owner", "approval-owner@ya.ru")).getId();
+        Integer bookerId = userService.create(new UserDto(null, "booker", "approval-booker@ya.ru")).getId();
+        Integer itemId = itemService.create(
+                new CreateItemRequest(null, "Пила", "Ручная пила", Boolean.TRUE, null), ownerId).getId();
+        LocalDateTime start = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.SECONDS);
+        Integer bookingId = bookingService.create(new BookingRequest(itemId, start, start.plusDays(1)), bookerId)
+                .getId();
+
+        AtomicInteger approved = new AtomicInteger();
+        AtomicInteger refused = new AtomicInteger();
+        runConcurrently(() -> {
+            try {
+                bookingService.changeStatusByOwner(bookingId, Boolean.TRUE, ownerId);
+                approved.incrementAndGet();
+            } catch (BookingStatusChangeException e) {
+                refused.incrementAndGet();
+            }
+        });
+
+        //Без версии все потоки прочитали бы WAITING и одобрили бронь каждый
+        assertThat(approved.get(), equalTo(1));
+        assertThat(refused.get(), equalTo(THREADS - 1));
+        assertThat(bookingRepository.findById(bookingId).orElseThrow().getVersion(), equalTo(1L));
+    }
+
+    private void runConcurrently(Runnable task) throws Exception {
+        CountDownLatch ready = new CountDownLatch(THREADS);
+        CountDownLatch go = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                futures.add(executor.submit(() -> {
+                    ready.countDown();
+                    go.await();
+                    task.run();
+                    return null;
+                }));
+            }
+            ready.await();
+            go.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
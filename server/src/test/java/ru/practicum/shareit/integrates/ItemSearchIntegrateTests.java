@@ -0,0 +1,39 @@
+package ru.practicum.shareit.integrates;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.practicum.shareit.item.ItemService;
+import ru.practicum.shareit.item.dto.CreateItemRequest;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.user.UserService;
+import ru.practicum.shareit.user.dto.UserDto;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class ItemSearchIntegrateTests {
+
+    private final ItemService itemService;
+    private final UserService userService;
+
+    @Test
+    void testSearchInDatabaseByLike() {
+        Integer ownerId = userService.create(new UserDto(null, "owner", "search-owner@ya.ru")).getId();
+        Integer drillId = itemService.create(
+                new CreateItemRequest(null, "Перфоратор", "Мощный перфоратор", Boolean.TRUE, null), ownerId).getId();
+        itemService.create(new CreateItemRequest(null, "Перфоратор ударный", "Сломан", Boolean.FALSE, null), ownerId);
+        itemService.create(new CreateItemRequest(null, "Клей", "Тюбик клея", Boolean.TRUE, null), ownerId);
+
+        //Индекс в тестовом профиле не строится: ответ даёт запрос к базе, без учёта регистра
+        List<Integer> found = itemService.search("пЕрФоРаТоР", 0, 20, null, false).getContent().stream()
+                .map(ItemDto::getId).collect(Collectors.toList());
+        assertThat(found, contains(drillId));
+    }
+}
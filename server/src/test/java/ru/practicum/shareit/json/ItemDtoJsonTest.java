@@ -25,7 +25,7 @@ public class ItemDtoJsonTest {
         ItemDto itemDto = new ItemDto(1, "item", "desc", Boolean.TRUE,
                 new BookingDtoShort(1, time.plusHours(1), time.plusHours(2), "WAITING", 2),
                 new BookingDtoShort(1, time.plusHours(4), time.plusHours(5), "APPROVED", 2),
-                new ArrayList<>(), 4);
+                new ArrayList<>(), 4, 0L, null);
 
         JsonContent<ItemDto> result = json.write(itemDto);
 
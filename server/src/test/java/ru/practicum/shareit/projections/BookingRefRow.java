@@ -0,0 +1,13 @@
+package ru.practicum.shareit.projections;
+
+import lombok.Value;
+import ru.practicum.shareit.booking.BookingRef;
+
+@Value
+public class BookingRefRow implements BookingRef {
+
+    Integer id;
+    Integer itemId;
+    Integer bookerId;
+    Integer ownerId;
+}
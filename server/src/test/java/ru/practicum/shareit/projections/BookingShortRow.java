@@ -0,0 +1,29 @@
+package ru.practicum.shareit.projections;
+
+import lombok.Value;
+import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.dto.BookingShortColumns;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Value
+public class BookingShortRow implements BookingShortColumns {
+
+    Integer id;
+    Integer itemId;
+    LocalDateTime start;
+    LocalDateTime end;
+    String status;
+    Integer bookerId;
+
+    public static BookingShortRow of(Booking booking) {
+        return new BookingShortRow(booking.getId(), booking.getItem().getId(), booking.getStart(), booking.getEnd(),
+                booking.getStatus().name(), booking.getBooker() == null ? null : booking.getBooker().getId());
+    }
+
+    public static List<BookingShortColumns> of(List<Booking> bookings) {
+        return bookings.stream().map(BookingShortRow::of).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,11 @@
+package ru.practicum.shareit.projections;
+
+import lombok.Value;
+import ru.practicum.shareit.item.dto.CommentCount;
+
+@Value
+public class CommentCountRow implements CommentCount {
+
+    Integer itemId;
+    Long total;
+}
@@ -0,0 +1,22 @@
+package ru.practicum.shareit.projections;
+
+import lombok.Value;
+import ru.practicum.shareit.item.dto.CommentColumns;
+import ru.practicum.shareit.item.model.Comment;
+
+import java.time.LocalDateTime;
+
+@Value
+public class CommentRow implements CommentColumns {
+
+    Integer id;
+    String text;
+    Integer itemId;
+    String authorName;
+    LocalDateTime created;
+
+    public static CommentRow of(Comment comment) {
+        return new CommentRow(comment.getId(), comment.getText(), comment.getItem().getId(),
+                comment.getAuthor() == null ? null : comment.getAuthor().getName(), comment.getCreated());
+    }
+}
@@ -0,0 +1,24 @@
+package ru.practicum.shareit.projections;
+
+import lombok.Value;
+import ru.practicum.shareit.item.dto.CommentSummaryColumns;
+import ru.practicum.shareit.item.model.Comment;
+
+import java.time.LocalDateTime;
+
+@Value
+public class CommentSummaryRow implements CommentSummaryColumns {
+
+    Integer id;
+    Long commentCount;
+    Integer lastCommentId;
+    String lastCommentText;
+    String lastCommentAuthor;
+    LocalDateTime lastCommentCreated;
+
+    public static CommentSummaryRow of(Integer itemId, Long commentCount, Comment last) {
+        if (last == null) return new CommentSummaryRow(itemId, commentCount, null, null, null, null);
+        return new CommentSummaryRow(itemId, commentCount, last.getId(), last.getText(),
+                last.getAuthor() == null ? null : last.getAuthor().getName(), last.getCreated());
+    }
+}
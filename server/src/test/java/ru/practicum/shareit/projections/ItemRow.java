@@ -0,0 +1,20 @@
+package ru.practicum.shareit.projections;
+
+import lombok.Value;
+import ru.practicum.shareit.item.dto.ItemColumns;
+import ru.practicum.shareit.item.model.Item;
+
+@Value
+public class ItemRow implements ItemColumns {
+
+    Integer id;
+    String name;
+    String description;
+    Boolean available;
+    Integer requestId;
+
+    public static ItemRow of(Item item) {
+        return new ItemRow(item.getId(), item.getName(), item.getDescription(), item.getAvailable(),
+                item.getRequestId());
+    }
+}
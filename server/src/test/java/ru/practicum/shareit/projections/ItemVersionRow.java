@@ -0,0 +1,12 @@
+package ru.practicum.shareit.projections;
+
+import lombok.Value;
+import ru.practicum.shareit.item.dto.ItemVersionColumns;
+
+@Value
+public class ItemVersionRow implements ItemVersionColumns {
+
+    Integer ownerId;
+    Long version;
+    Long commentCount;
+}
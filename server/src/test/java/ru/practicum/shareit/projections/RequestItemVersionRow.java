@@ -0,0 +1,11 @@
+package ru.practicum.shareit.projections;
+
+import lombok.Value;
+import ru.practicum.shareit.request.dto.RequestItemVersion;
+
+@Value
+public class RequestItemVersionRow implements RequestItemVersion {
+
+    Integer id;
+    Long version;
+}
@@ -0,0 +1,215 @@
+package ru.practicum.shareit.repositories;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.booking.StateMode;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingShortColumns;
+import ru.practicum.shareit.booking.summary.BookingCounts;
+import ru.practicum.shareit.item.ItemRepository;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.paging.Cursor;
+import ru.practicum.shareit.paging.OffsetPageRequest;
+import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.UserRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static ru.practicum.shareit.booking.BookingSpecifications.*;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class BookingRepositoryTests {
+
+    private static final Sort ORDER = Sort.by("start", "id").descending();
+
+    @Autowired
+    private BookingRepository bookingRepository;
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private User owner;
+    private User booker;
+    private Item item;
+    private final List<Integer> expectedOrder = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        owner = userRepository.save(new User(null, "owner", "owner@ya.ru"));
+        booker = userRepository.save(new User(null, "booker", "booker@ya.ru"));
+        item = itemRepository.save(new Item(null, "Дрель", "Простая дрель", true, owner, null));
+        LocalDateTime moment = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        List<Booking> bookings = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            //Две пары бронирований начинаются одновременно, порядок между ними задаёт id
+            LocalDateTime start = moment.plusDays(i / 2);
+            bookings.add(bookingRepository.save(new Booking(null, start, start.plusHours(1), item, booker,
+                    BookingStatus.WAITING)));
+        }
+        bookings.sort((a, b) -> a.getStart().equals(b.getStart())
+                ? b.getId().compareTo(a.getId())
+                : b.getStart().compareTo(a.getStart()));
+        bookings.forEach(booking -> expectedOrder.add(booking.getId()));
+    }
+
+    @Test
+    void testCursorWalksAllBookingsInOrder() {
+        List<Integer> walked = new ArrayList<>();
+        Cursor cursor = null;
+        Slice<BookingDto> slice;
+        do {
+            slice = bookingRepository.findSlice(bookerIs(booker.getId())
+                            .and(inState(StateMode.ALL, LocalDateTime.now(), Duration.ofDays(365)))
+                            .and(after(cursor)),
+                    OffsetPageRequest.of(0, 2, ORDER));
+            slice.forEach(booking -> walked.add(booking.getId()));
+            BookingDto last = slice.getContent().get(slice.getNumberOfElements() - 1);
+            cursor = Cursor.decode(Cursor.of(last.getStart(), last.getId()).encode());
+        } while (slice.hasNext());
+        assertThat(walked, equalTo(expectedOrder));
+    }
+
+    @Test
+    void testOffsetNotMultipleOfSize() {
+        Slice<BookingDto> slice = bookingRepository.findSlice(bookerIs(booker.getId()),
+                OffsetPageRequest.of(3, 2, ORDER));
+        assertThat(slice.getContent().stream().map(BookingDto::getId).collect(Collectors.toList()),
+                equalTo(expectedOrder.subList(3, 5)));
+        assertFalse(slice.hasNext());
+    }
+
+    @Test
+    void testOwnerBookingsSelectedByJoin() {
+        User stranger = userRepository.save(new User(null, "stranger", "stranger@ya.ru"));
+        Item strangerItem = itemRepository.save(new Item(null, "Отвертка", "Крестовая", true, stranger, null));
+        LocalDateTime start = LocalDateTime.now().plusDays(10).truncatedTo(ChronoUnit.SECONDS);
+        Booking strangerBooking = bookingRepository.save(new Booking(null, start, start.plusHours(1), strangerItem,
+                booker, BookingStatus.WAITING));
+
+        Slice<BookingDto> slice = bookingRepository.findSlice(itemOwnerIs(owner.getId()),
+                OffsetPageRequest.of(0, 10, ORDER));
+        assertThat(slice.getContent().stream().map(BookingDto::getId).collect(Collectors.toList()),
+                equalTo(expectedOrder));
+        List<BookingDto> strangers = bookingRepository.findSlice(itemOwnerIs(stranger.getId()),
+                OffsetPageRequest.of(0, 10, ORDER)).getContent();
+        assertThat(strangers.size(), equalTo(1));
+        //Имена вещи и арендатора приходят в проекции, сущности не загружаются
+        assertThat(strangers.get(0), equalTo(new BookingDto(strangerBooking.getId(), strangerBooking.getStart(),
+                strangerBooking.getEnd(), BookingStatus.WAITING, strangerItem.getId(), "Отвертка", booker.getId(),
+                "booker")));
+    }
+
+    @Test
+    void testLastAndNextBookingPerItem() {
+        LocalDateTime moment = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        Item other = itemRepository.save(new Item(null, "Отвертка", "Крестовая", true, item.getOwner(), null));
+        save(item, moment.minusDays(3), BookingStatus.APPROVED);
+        Booking last = save(item, moment.minusDays(1), BookingStatus.APPROVED);
+        save(item, moment.minusHours(1), BookingStatus.REJECTED);
+        //Идущая сейчас бронь ни прошлая, ни следующая
+        save(item, moment.minusMinutes(30), BookingStatus.APPROVED);
+        Booking next = save(item, moment.plusDays(6), BookingStatus.APPROVED);
+        save(item, moment.plusDays(7), BookingStatus.APPROVED);
+        Booking otherNext = save(other, moment.plusDays(1), BookingStatus.APPROVED);
+
+        List<BookingShortColumns> found = bookingRepository.findLastAndNext(List.of(item.getId(), other.getId()),
+                moment);
+        assertThat(found.stream().map(BookingShortColumns::getId).sorted().collect(Collectors.toList()),
+                equalTo(List.of(last.getId(), next.getId(), otherNext.getId())));
+        BookingShortColumns nextColumns = found.stream().filter(b -> b.getId().equals(next.getId())).findFirst()
+                .orElseThrow();
+        assertThat(List.of(nextColumns.getItemId(), nextColumns.getBookerId()),
+                equalTo(List.of(item.getId(), booker.getId())));
+        assertThat(nextColumns.getStart(), equalTo(next.getStart()));
+        assertThat(nextColumns.getEnd(), equalTo(next.getEnd()));
+        assertThat(nextColumns.getStatus(), equalTo(BookingStatus.APPROVED.name()));
+    }
+
+    @Test
+    void testCountsMatchListStates() {
+        LocalDateTime moment = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        Duration longest = Duration.ofDays(365);
+        save(item, moment.minusDays(2), BookingStatus.APPROVED);
+        save(item, moment.minusMinutes(30), BookingStatus.APPROVED);
+        save(item, moment.minusDays(3), BookingStatus.REJECTED);
+
+        BookingCounts byBooker = bookingRepository.countByBooker(booker.getId(), moment, moment.minus(longest));
+        BookingCounts byOwner = bookingRepository.countByOwner(owner.getId(), moment, moment.minus(longest));
+        List<Long> expected = new ArrayList<>();
+        for (StateMode state : StateMode.values()) {
+            expected.add(bookingRepository.count(bookerIs(booker.getId()).and(inState(state, moment, longest))));
+        }
+        assertThat(List.of(byBooker.getAll(), byBooker.getCurrent(), byBooker.getPast(), byBooker.getFuture(),
+                byBooker.getWaiting(), byBooker.getRejected()), equalTo(expected));
+        assertThat(List.of(byOwner.getAll(), byOwner.getCurrent(), byOwner.getPast(), byOwner.getFuture(),
+                byOwner.getWaiting(), byOwner.getRejected()), equalTo(expected));
+        //Раньше всех сменит состояние текущая бронь, закончившись
+        assertThat(byBooker.getNextChange(), equalTo(moment.plusMinutes(30)));
+        assertThat(bookingRepository.countByBooker(owner.getId(), moment, moment.minus(longest)).getAll(),
+                equalTo(0L));
+    }
+
+    @Test
+    void testBookingListsReadInOneStatement() {
+        LocalDateTime start = LocalDateTime.now().plusDays(10).truncatedTo(ChronoUnit.SECONDS);
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            //У каждой брони своя вещь и свой арендатор: при N+1 это дало бы по два запроса на бронь
+            Item bookedItem = itemRepository.save(new Item(null, "Вещь" + i, "Вещь", true, owner, null));
+            User bookedBy = userRepository.save(new User(null, "booker" + i, "booker" + i + "@ya.ru"));
+            ids.add(bookingRepository.save(new Booking(null, start.plusDays(i), start.plusDays(i).plusHours(1),
+                    bookedItem, bookedBy, BookingStatus.WAITING)).getId());
+        }
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        List<BookingDto> page = bookingRepository.findSlice(itemOwnerIs(owner.getId()),
+                OffsetPageRequest.of(0, 20, ORDER)).getContent();
+        assertThat(page.size(), equalTo(15));
+        page.forEach(booking -> {
+            assertThat(booking.getItem().getName(), notNullValue());
+            assertThat(booking.getBooker().getName(), notNullValue());
+        });
+        assertThat(statistics.getPrepareStatementCount(), equalTo(1L));
+        assertThat(statistics.getEntityLoadCount(), equalTo(0L));
+
+        List<Booking> owned = bookingRepository.findAllOwnedBy(ids, owner.getId());
+        owned.forEach(booking -> assertThat(booking.getBooker().getName() + booking.getItem().getName(),
+                equalTo("booker" + ids.indexOf(booking.getId()) + "Вещь" + ids.indexOf(booking.getId()))));
+        assertThat(statistics.getPrepareStatementCount(), equalTo(2L));
+
+        entityManager.clear();
+        Booking single = bookingRepository.findById(ids.get(0)).orElseThrow();
+        assertThat(single.getBooker().getName() + single.getItem().getName(), equalTo("booker0Вещь0"));
+        assertThat(statistics.getPrepareStatementCount(), equalTo(3L));
+    }
+
+    private Booking save(Item bookedItem, LocalDateTime start, BookingStatus status) {
+        return bookingRepository.save(new Booking(null, start, start.plusHours(1), bookedItem, booker, status));
+    }
+}
@@ -0,0 +1,90 @@
+package ru.practicum.shareit.repositories;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Slice;
+import ru.practicum.shareit.item.CommentRepository;
+import ru.practicum.shareit.item.dto.CommentColumns;
+import ru.practicum.shareit.item.dto.CommentCount;
+import ru.practicum.shareit.item.dto.CommentDto;
+import ru.practicum.shareit.item.model.Comment;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.paging.OffsetPageRequest;
+import ru.practicum.shareit.user.User;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+@DataJpaTest
+class CommentRepositoryTests {
+
+    @Autowired
+    private CommentRepository commentRepository;
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private Item drill;
+    private Item saw;
+    private final List<Integer> expectedOrder = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        User owner = entityManager.persist(new User(null, "owner", "owner@ya.ru"));
+        User author = entityManager.persist(new User(null, "author", "author@ya.ru"));
+        drill = entityManager.persist(new Item(null, "Дрель", "Дрель", true, owner, null));
+        saw = entityManager.persist(new Item(null, "Пила", "Пила", true, owner, null));
+        LocalDateTime moment = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        List<Comment> comments = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            //Пары комментариев написаны одновременно, порядок между ними задаёт id
+            comments.add(entityManager.persist(new Comment(null, "Отзыв " + i, drill, author,
+                    moment.minusDays(i / 2))));
+        }
+        entityManager.persist(new Comment(null, "Отзыв", saw, author, moment));
+        entityManager.flush();
+        comments.sort((a, b) -> a.getCreated().equals(b.getCreated())
+                ? b.getId().compareTo(a.getId())
+                : b.getCreated().compareTo(a.getCreated()));
+        comments.forEach(comment -> expectedOrder.add(comment.getId()));
+    }
+
+    @Test
+    void testNewestCommentsLimitedPerItem() {
+        List<CommentColumns> newest = commentRepository.findNewest(List.of(drill.getId(), saw.getId()), 2);
+
+        Map<Integer, List<Integer>> byItem = newest.stream().collect(Collectors.groupingBy(
+                CommentColumns::getItemId, Collectors.mapping(CommentColumns::getId, Collectors.toList())));
+        assertThat(byItem.get(drill.getId()), equalTo(expectedOrder.subList(0, 2)));
+        assertThat(byItem.get(saw.getId()).size(), equalTo(1));
+        assertThat(newest.get(0).getAuthorName(), equalTo("author"));
+
+        Map<Integer, Long> counts = commentRepository.countByItemIds(List.of(drill.getId(), saw.getId())).stream()
+                .collect(Collectors.toMap(CommentCount::getItemId, CommentCount::getTotal));
+        assertThat(counts, equalTo(Map.of(drill.getId(), 5L, saw.getId(), 1L)));
+    }
+
+    @Test
+    void testCursorWalksAllCommentsFromNewest() {
+        List<Integer> walked = new ArrayList<>();
+        Slice<CommentDto> page = commentRepository.findByItemId(drill.getId(), OffsetPageRequest.of(0, 2));
+        page.forEach(comment -> walked.add(comment.getId()));
+        while (page.hasNext()) {
+            CommentDto last = page.getContent().get(page.getContent().size() - 1);
+            page = commentRepository.findByItemIdBefore(drill.getId(), last.getCreated(), last.getId(),
+                    OffsetPageRequest.of(0, 2));
+            page.forEach(comment -> walked.add(comment.getId()));
+        }
+
+        assertThat(walked, equalTo(expectedOrder));
+    }
+}
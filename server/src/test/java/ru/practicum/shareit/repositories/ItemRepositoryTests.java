@@ -1,5 +1,6 @@
 package ru.practicum.shareit.repositories;
 
+import org.hibernate.Hibernate;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -8,18 +9,32 @@ import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import ru.practicum.shareit.item.ItemRepository;
+import ru.practicum.shareit.item.dto.CommentSummaryColumns;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemVersionColumns;
+import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.request.ItemRequest;
+import ru.practicum.shareit.request.ItemRequestRepository;
+import ru.practicum.shareit.request.dto.RequestItemVersion;
+import ru.practicum.shareit.user.User;
 
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
 
 @DataJpaTest
 class ItemRepositoryTests {
     @Autowired
     private ItemRepository itemRepository;
 
+    @Autowired
+    private ItemRequestRepository itemRequestRepository;
+
     @Autowired
     private TestEntityManager entityManager;
 
@@ -44,10 +59,87 @@ class ItemRepositoryTests {
     @Test
     void testSearch() {
         Pageable page = PageRequest.of(0, 20);
-        List<Item> result = itemRepository.search("Chair", page).getContent();
+        List<ItemDto> result = itemRepository.search("Chair", 0, page).getContent();
 
         assertThat(result.size(), equalTo(1));
         assertThat(result.get(0).getName(), equalTo("Chair brush"));
     }
-}
 
+    @Test
+    void testOwnerIsNotLoadedWithItem() {
+        User owner = entityManager.persist(new User(null, "owner", "owner@ya.ru"));
+        Item item = itemRepository.save(new Item(null, "Drill", "Drill", true, owner, null));
+        entityManager.flush();
+        entityManager.clear();
+
+        Item found = itemRepository.findById(item.getId()).orElseThrow();
+
+        assertThat(found.getOwner().getId(), equalTo(owner.getId()));
+        assertThat(Hibernate.isInitialized(found.getOwner()), is(false));
+    }
+
+    @Test
+    void testCommentSummaryKeepsLatestComment() {
+        User author = entityManager.persist(new User(null, "author", "author@ya.ru"));
+        Item item = itemRepository.save(new Item(null, "Drill", "Drill", true, null, null));
+        LocalDateTime moment = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        Comment last = entityManager.persist(new Comment(null, "Late", item, author, moment));
+        Comment earlier = entityManager.persist(new Comment(null, "Early", item, author, moment.minusHours(1)));
+        entityManager.flush();
+
+        itemRepository.addComment(item.getId(), last.getId(), last.getText(), author.getName(), last.getCreated());
+        //Комментарий, записанный позже, но созданный раньше, не вытесняет последний
+        itemRepository.addComment(item.getId(), earlier.getId(), earlier.getText(), author.getName(),
+                earlier.getCreated());
+        itemRepository.renameLastCommentAuthor(author.getId(), "renamed");
+        Long version = item.getVersion();
+        entityManager.clear();
+
+        CommentSummaryColumns summary = itemRepository.findCommentSummaries(List.of(item.getId())).get(0);
+        assertThat(summary.getCommentCount(), equalTo(2L));
+        assertThat(summary.getLastCommentId(), equalTo(last.getId()));
+        assertThat(summary.getLastCommentText(), equalTo("Late"));
+        assertThat(summary.getLastCommentAuthor(), equalTo("renamed"));
+        assertThat(summary.getLastCommentCreated(), equalTo(moment));
+        assertThat(itemRepository.findById(item.getId()).orElseThrow().getVersion(), equalTo(version));
+    }
+
+    @Test
+    void testItemVersionFollowsCommentsAndRenames() {
+        User author = entityManager.persist(new User(null, "author", "author@ya.ru"));
+        Item item = itemRepository.save(new Item(null, "Drill", "Drill", true, author, null));
+        Comment comment = entityManager.persist(new Comment(null, "Fine", item, author, LocalDateTime.now()));
+        entityManager.flush();
+        ItemVersionColumns before = itemRepository.findVersion(item.getId()).orElseThrow();
+
+        itemRepository.addComment(item.getId(), comment.getId(), comment.getText(), author.getName(),
+                comment.getCreated());
+        itemRepository.touchCommentedBy(author.getId());
+
+        ItemVersionColumns after = itemRepository.findVersion(item.getId()).orElseThrow();
+        assertThat(after.getOwnerId(), equalTo(author.getId()));
+        assertThat(after.getCommentCount(), equalTo(before.getCommentCount() + 1));
+        assertThat(after.getVersion(), equalTo(before.getVersion() + 1));
+    }
+
+    @Test
+    void testRequestItemVersionsInOrderOfIds() {
+        User requester = entityManager.persist(new User(null, "requester", "requester@ya.ru"));
+        ItemRequest request = entityManager.persist(new ItemRequest(null, "Need a drill", requester,
+                LocalDateTime.now()));
+        entityManager.flush();
+        Long version = itemRequestRepository.findVersion(request.getId()).orElseThrow();
+        assertThat(itemRequestRepository.findItemVersions(request.getId()).isEmpty(), is(true));
+
+        Item drill = itemRepository.saveAndFlush(new Item(null, "Drill", "Drill", true, null, request.getId()));
+        Item saw = itemRepository.saveAndFlush(new Item(null, "Saw", "Saw", true, null, request.getId()));
+        saw.setName("Better saw");
+        itemRepository.saveAndFlush(saw);
+        List<RequestItemVersion> items = itemRequestRepository.findItemVersions(request.getId());
+        assertThat(items.size(), equalTo(2));
+        assertThat(items.get(0).getId(), equalTo(drill.getId()));
+        assertThat(items.get(1).getId(), equalTo(saw.getId()));
+        assertThat(items.get(1).getVersion(), equalTo(items.get(0).getVersion() + 1));
+        assertThat(itemRequestRepository.findVersion(request.getId()).orElseThrow(), equalTo(version));
+    }
+}
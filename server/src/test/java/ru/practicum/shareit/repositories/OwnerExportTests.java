@@ -0,0 +1,135 @@
+package ru.practicum.shareit.repositories;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.booking.partition.BookingArchive;
+import ru.practicum.shareit.booking.partition.BookingPartitions;
+import ru.practicum.shareit.export.NdjsonExport;
+import ru.practicum.shareit.export.OwnerExport;
+import ru.practicum.shareit.handler.exception.NotFoundException;
+import ru.practicum.shareit.item.ItemRepository;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.UserRepository;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DataJpaTest(properties = {"shareit.export.fetch-size=2", "shareit.export.timeout=PT1M"})
+@Import({OwnerExport.class, NdjsonExport.class, BookingArchive.class, BookingPartitions.class})
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+class OwnerExportTests {
+
+    @Autowired
+    private OwnerExport ownerExport;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private BookingRepository bookingRepository;
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private User owner;
+    private final List<Item> items = new ArrayList<>();
+    private final List<Booking> bookings = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        owner = userRepository.save(new User(null, "owner", "owner@ya.ru"));
+        User other = userRepository.save(new User(null, "other", "other@ya.ru"));
+        User booker = userRepository.save(new User(null, "booker", "booker@ya.ru"));
+        for (int i = 0; i < 5; i++) {
+            items.add(itemRepository.save(new Item(null, "Дрель " + i, "Дрель\nномер " + i, i % 2 == 0, owner,
+                    null)));
+        }
+        Item foreign = itemRepository.save(new Item(null, "Пила", "Чужая пила", true, other, null));
+        LocalDateTime start = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.SECONDS);
+        for (int i = 0; i < 3; i++) {
+            bookings.add(bookingRepository.save(new Booking(null, start.plusDays(i), start.plusDays(i + 1),
+                    items.get(i), booker, BookingStatus.WAITING)));
+        }
+        bookingRepository.save(new Booking(null, start, start.plusDays(1), foreign, booker, BookingStatus.WAITING));
+        entityManager.flush();
+    }
+
+    @Test
+    void testItemsExportedLineByLine() throws Exception {
+        List<JsonNode> lines = export(ownerExport.items(owner.getId()));
+
+        assertThat(lines.size(), equalTo(items.size()));
+        for (int i = 0; i < items.size(); i++) {
+            assertThat(lines.get(i).get("id").asInt(), equalTo(items.get(i).getId()));
+            assertThat(lines.get(i).get("description").asText(), equalTo(items.get(i).getDescription()));
+            assertThat(lines.get(i).get("available").asBoolean(), equalTo(i % 2 == 0));
+        }
+    }
+
+    @Test
+    void testOwnerBookingsExported() throws Exception {
+        List<JsonNode> lines = export(ownerExport.bookings(owner.getId()));
+
+        assertThat(lines.size(), equalTo(bookings.size()));
+        for (int i = 0; i < bookings.size(); i++) {
+            assertThat(lines.get(i).get("id").asInt(), equalTo(bookings.get(i).getId()));
+            assertThat(lines.get(i).get("item").get("id").asInt(), equalTo(items.get(i).getId()));
+            assertThat(lines.get(i).get("booker").get("name").asText(), equalTo("booker"));
+            assertThat(lines.get(i).get("status").asText(), equalTo("WAITING"));
+        }
+    }
+
+    @Test
+    void testExportRespondsWithItsOwnTimeout() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        WebAsyncTask<Void> task = ownerExport.respond(ownerExport.items(owner.getId()), response);
+
+        assertThat(task.getTimeout(), equalTo(60_000L));
+        task.getCallable().call();
+        assertThat(response.getContentType(), equalTo(MediaType.APPLICATION_NDJSON_VALUE));
+        assertThat(response.getContentAsString(StandardCharsets.UTF_8).split("\n").length, equalTo(items.size()));
+    }
+
+    @Test
+    void testUnknownOwner() {
+        assertThrows(NotFoundException.class, () -> ownerExport.items(-1));
+        assertThrows(NotFoundException.class, () -> ownerExport.bookings(-1));
+    }
+
+    private List<JsonNode> export(StreamingResponseBody body) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        body.writeTo(out);
+        String text = out.toString(StandardCharsets.UTF_8);
+        assertThat(text.endsWith("\n"), equalTo(true));
+        List<JsonNode> lines = new ArrayList<>();
+        for (String line : text.split("\n")) {
+            lines.add(objectMapper.readTree(line));
+        }
+        return lines;
+    }
+}
@@ -17,6 +17,7 @@ import ru.practicum.shareit.booking.dto.BookingRequest;
 import ru.practicum.shareit.booking.exception.BookingBadRequest;
 import ru.practicum.shareit.booking.exception.BookingStatusChangeException;
 import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.paging.PageResult;
 
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
@@ -200,7 +201,8 @@ public class BookingControllerTests {
     @Test
     void testGetAll() throws Exception {
         when(service.getAllByUser(Mockito.anyString(), Mockito.anyInt(),
-                Mockito.anyInt(), Mockito.anyInt())).thenReturn(makeBookingDtoList());
+                Mockito.anyInt(), Mockito.anyInt(), Mockito.any()))
+                .thenReturn(new PageResult<>(makeBookingDtoList(), false, null, null));
         mvc.perform(get("/bookings")
                         .header("X-Sharer-User-Id", 1)
                         .accept(MediaType.APPLICATION_JSON))
@@ -211,7 +213,7 @@ public class BookingControllerTests {
     @Test
     void testGetAllBadState() throws Exception {
         when(service.getAllByUser(Mockito.anyString(), Mockito.anyInt(),
-                Mockito.anyInt(), Mockito.anyInt())).thenThrow(BookingBadRequest.class);
+                Mockito.anyInt(), Mockito.anyInt(), Mockito.any())).thenThrow(BookingBadRequest.class);
         mvc.perform(get("/bookings")
                         .header("X-Sharer-User-Id", 1)
                         .param("state", "RYHNSKDN")
@@ -264,7 +266,8 @@ public class BookingControllerTests {
     @Test
     void testGetOwnerBookings() throws Exception {
         when(service.getAllByUserOwner(Mockito.anyString(), Mockito.anyInt(),
-                Mockito.anyInt(), Mockito.anyInt())).thenReturn(makeBookingDtoList());
+                Mockito.anyInt(), Mockito.anyInt(), Mockito.any()))
+                .thenReturn(new PageResult<>(makeBookingDtoList(), false, null, null));
         mvc.perform(get("/bookings/owner")
                         .header("X-Sharer-User-Id", 1)
                         .accept(MediaType.APPLICATION_JSON))
@@ -20,6 +20,7 @@ import ru.practicum.shareit.item.exception.BadCommentException;
 import ru.practicum.shareit.item.exception.ItemBadRequestException;
 import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.item.mapper.ItemMapperImpl;
+import ru.practicum.shareit.paging.PageResult;
 
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
@@ -150,7 +151,7 @@ public class ItemControllerTests {
 
     @Test
     void testGetItem() throws Exception {
-        when(service.getItem(eq(5), Mockito.anyInt()))
+        when(service.getItem(eq(5), Mockito.anyInt(), Mockito.any()))
                 .thenReturn(makeItemDto(5));
         mvc.perform(get("/items/5")
                         .header("X-Sharer-User-Id", 1)
@@ -161,7 +162,7 @@ public class ItemControllerTests {
 
     @Test
     void testGetItemNotFound() throws Exception {
-        when(service.getItem(eq(5), Mockito.anyInt()))
+        when(service.getItem(eq(5), Mockito.anyInt(), Mockito.any()))
                 .thenThrow(NotFoundException.class);
         mvc.perform(get("/items/5")
                         .header("X-Sharer-User-Id", 1)
@@ -172,8 +173,8 @@ public class ItemControllerTests {
 
     @Test
     void testGetAll() throws Exception {
-        when(service.getAllByOwner(Mockito.anyInt(), Mockito.anyInt(), Mockito.anyInt()))
-                .thenReturn(makeItemDtoList());
+        when(service.getAllByOwner(Mockito.anyInt(), Mockito.anyInt(), Mockito.anyInt(), Mockito.any()))
+                .thenReturn(new PageResult<>(makeItemDtoList(), false, null, null));
         mvc.perform(get("/items")
                         .header("X-Sharer-User-Id", 1)
                         .accept(MediaType.APPLICATION_JSON))
@@ -224,8 +225,9 @@ public class ItemControllerTests {
 
     @Test
     void testSearch() throws Exception {
-        when(service.search(Mockito.anyString(), Mockito.anyInt(), Mockito.anyInt()))
-                .thenReturn(makeItemDtoList());
+        when(service.search(Mockito.anyString(), Mockito.anyInt(), Mockito.anyInt(), Mockito.any(),
+                Mockito.anyBoolean()))
+                .thenReturn(new PageResult<>(makeItemDtoList(), false, null, null));
         mvc.perform(get("/items/search")
                         .header("X-Sharer-User-Id", 1)
                         .param("text", "ok")
@@ -236,8 +238,9 @@ public class ItemControllerTests {
 
     @Test
     void testSearchTextBlank() throws Exception {
-        when(service.search(Mockito.anyString(), Mockito.anyInt(), Mockito.anyInt()))
-                .thenReturn(makeItemDtoList());
+        when(service.search(Mockito.anyString(), Mockito.anyInt(), Mockito.anyInt(), Mockito.any(),
+                Mockito.anyBoolean()))
+                .thenReturn(new PageResult<>(makeItemDtoList(), false, null, null));
         mvc.perform(get("/items/search")
                         .header("X-Sharer-User-Id", 1)
                         .param("text", "   ")
@@ -347,7 +350,7 @@ public class ItemControllerTests {
 
     private ItemDto makeItemDto(Integer id) {
         return new ItemDto(id, "test_item" + id, "test_desc", Boolean.TRUE,
-                null, null, null, null);
+                null, null, null, null, null, null);
     }
 
     private List<ItemDto> makeItemDtoList() {
@@ -13,6 +13,7 @@ import org.springframework.test.web.servlet.result.MockMvcResultHandlers;
 import ru.practicum.shareit.request.*;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.dto.ItemRequestShort;
+import ru.practicum.shareit.paging.PageResult;
 
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
@@ -126,7 +127,8 @@ public class ItemRequestTests {
 
     @Test
     void testGetAll() throws Exception {
-        when(service.getAll(Mockito.anyInt(), Mockito.anyInt(), Mockito.anyInt())).thenReturn(makeDtoList());
+        when(service.getAll(Mockito.anyInt(), Mockito.anyInt(), Mockito.anyInt(), Mockito.any()))
+                .thenReturn(new PageResult<>(makeDtoList(), false, null, null));
         mvc.perform(get("/requests/all")
                         .header("X-Sharer-User-Id", 1)
                         .accept(MediaType.APPLICATION_JSON))
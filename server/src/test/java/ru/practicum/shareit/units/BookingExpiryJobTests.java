@@ -0,0 +1,102 @@
+package ru.practicum.shareit.units;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.BookingRef;
+import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.booking.schedule.AvailabilityCalendar;
+import ru.practicum.shareit.booking.schedule.BookingExpiryJob;
+import ru.practicum.shareit.booking.schedule.BookingIntervalIndex;
+import ru.practicum.shareit.booking.schedule.ItemLocks;
+import ru.practicum.shareit.booking.summary.BookingSummaries;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.projections.BookingRefRow;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+@ExtendWith(MockitoExtension.class)
+public class BookingExpiryJobTests {
+
+    @Mock
+    BookingRepository mockBookingRepo;
+    @Mock
+    AvailabilityCalendar mockCalendar;
+    @Mock
+    ItemLocks mockItemLocks;
+    @Mock
+    BookingSummaries mockSummaries;
+    @Mock
+    PlatformTransactionManager mockTransactionManager;
+    MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    BookingExpiryJob job;
+
+    @BeforeEach
+    void makeJob() {
+        job = new BookingExpiryJob(mockBookingRepo, new BookingIntervalIndex(mockBookingRepo, false, 100), mockCalendar,
+                mockItemLocks, mockSummaries, new TransactionTemplate(mockTransactionManager), meterRegistry, 2, 1,
+                Duration.ZERO);
+    }
+
+    @Test
+    void testExpiresInChunks() {
+        Mockito.when(mockBookingRepo.findRefsByStatusAndStartBefore(Mockito.eq(BookingStatus.WAITING),
+                        Mockito.any(LocalDateTime.class), Mockito.any(Pageable.class)))
+                .thenReturn(List.of(ref(1, 7), ref(2, 3)))
+                .thenReturn(List.of(ref(3, 7)));
+        //Бронь 2 владелец успел отклонить, пока задача ждала блокировку
+        Mockito.when(mockBookingRepo.findAllByIdInAndStatus(List.of(2), BookingStatus.WAITING))
+                .thenReturn(List.of());
+        Mockito.when(mockBookingRepo.findAllByIdInAndStatus(List.of(1), BookingStatus.WAITING))
+                .thenReturn(List.of(booking(1, 7)));
+        Mockito.when(mockBookingRepo.findAllByIdInAndStatus(List.of(3), BookingStatus.WAITING))
+                .thenReturn(List.of(booking(3, 7)));
+        Mockito.when(mockBookingRepo.changeStatus(Mockito.anyList(), Mockito.eq(BookingStatus.WAITING),
+                Mockito.eq(BookingStatus.EXPIRED))).thenAnswer(i -> ((List<?>) i.getArgument(0)).size());
+
+        job.run();
+
+        //Каждая вещь истекает в своей короткой транзакции
+        InOrder inOrder = Mockito.inOrder(mockItemLocks);
+        inOrder.verify(mockItemLocks).lockAll(Set.of(3));
+        inOrder.verify(mockItemLocks, Mockito.times(2)).lockAll(Set.of(7));
+        Mockito.verify(mockTransactionManager, Mockito.times(3)).getTransaction(Mockito.any());
+        Mockito.verify(mockItemLocks, Mockito.never()).lock(Mockito.anyInt());
+        Mockito.verify(mockBookingRepo).changeStatus(List.of(1), BookingStatus.WAITING, BookingStatus.EXPIRED);
+        Mockito.verify(mockBookingRepo).changeStatus(List.of(3), BookingStatus.WAITING, BookingStatus.EXPIRED);
+        Mockito.verify(mockCalendar).invalidate(3);
+        Mockito.verify(mockSummaries).invalidate(11, 20);
+        Mockito.verify(mockSummaries).invalidate(13, 20);
+        Mockito.verify(mockSummaries, Mockito.never()).invalidate(12, 20);
+        assertThat(meterRegistry.counter("shareit.bookings.expired").count(), equalTo(2.0));
+        assertThat(meterRegistry.summary("shareit.bookings.expiry.rows").totalAmount(), equalTo(3.0));
+    }
+
+    private BookingRef ref(Integer id, Integer itemId) {
+        return new BookingRefRow(id, itemId, 10 + id, 20);
+    }
+
+    private Booking booking(Integer id, Integer itemId) {
+        Item item = new Item();
+        item.setId(itemId);
+        LocalDateTime start = LocalDateTime.now().minusHours(1);
+        return new Booking(id, start, start.plusDays(1), item, null, BookingStatus.WAITING);
+    }
+}
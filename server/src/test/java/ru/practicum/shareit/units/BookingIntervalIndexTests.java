@@ -0,0 +1,98 @@
+package ru.practicum.shareit.units;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.booking.exception.BookingOverlapException;
+import ru.practicum.shareit.booking.schedule.BookingIntervalIndex;
+import ru.practicum.shareit.item.model.Item;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@ExtendWith(MockitoExtension.class)
+public class BookingIntervalIndexTests {
+
+    @Mock
+    BookingRepository mockBookingRepo;
+    BookingIntervalIndex index;
+    LocalDateTime moment = LocalDateTime.now().plusDays(1);
+    Item item = new Item(1, "Дрель", "Простая дрель", true, null, null);
+
+    @BeforeEach
+    void makeIndex() {
+        index = new BookingIntervalIndex(mockBookingRepo, false, 2);
+        //Две старые брони пересекаются между собой: расписание должно занять всё их время
+        Mockito.when(mockBookingRepo.findByItemIdAndStatusInAndEndIsAfterOrderByStart(Mockito.eq(1), Mockito.any(),
+                Mockito.any())).thenReturn(List.of(
+                booking(1, 0, 2, BookingStatus.APPROVED),
+                booking(2, 1, 3, BookingStatus.WAITING),
+                booking(3, 5, 6, BookingStatus.APPROVED)));
+    }
+
+    @Test
+    void testReserveChecksNeighbours() {
+        expectOverlapInDatabase(true);
+        assertThrows(BookingOverlapException.class, () -> index.reserve(booking(4, 2, 4, BookingStatus.WAITING)));
+        assertThrows(BookingOverlapException.class, () -> index.reserve(booking(5, 4, 7, BookingStatus.WAITING)));
+        assertDoesNotThrow(() -> index.reserve(booking(6, 3, 5, BookingStatus.WAITING)));
+        assertThrows(BookingOverlapException.class, () -> index.reserve(booking(7, 4, 5, BookingStatus.WAITING)));
+        assertDoesNotThrow(() -> index.reserve(booking(8, 6, 8, BookingStatus.WAITING)));
+        Mockito.verify(mockBookingRepo, Mockito.times(1))
+                .findByItemIdAndStatusInAndEndIsAfterOrderByStart(Mockito.eq(1), Mockito.any(), Mockito.any());
+        //База спрашивается только о найденных в памяти пересечениях
+        Mockito.verify(mockBookingRepo, Mockito.times(3)).existsOverlap(Mockito.eq(1), Mockito.any(),
+                Mockito.any(), Mockito.any(), Mockito.any());
+    }
+
+    @Test
+    void testStaleIntervalDroppedWhenDatabaseIsFree() {
+        expectOverlapInDatabase(false);
+        //Бронь 3 отменили, пока загружалось расписание: в памяти она осталась, в базе её уже нет
+        assertDoesNotThrow(() -> index.reserve(booking(4, 5, 6, BookingStatus.WAITING)));
+        expectOverlapInDatabase(true);
+        assertThrows(BookingOverlapException.class, () -> index.reserve(booking(5, 5, 6, BookingStatus.WAITING)));
+    }
+
+    @Test
+    void testLeastRecentlyBookedItemsReloaded() {
+        Item other = new Item(2, "Пила", "Пила", true, null, null);
+        Item third = new Item(3, "Молоток", "Молоток", true, null, null);
+        index.reserve(booking(4, 8, 9, BookingStatus.WAITING));
+        index.reserve(new Booking(5, moment, moment.plusDays(1), other, null, BookingStatus.WAITING));
+        index.reserve(new Booking(6, moment, moment.plusDays(1), third, null, BookingStatus.WAITING));
+        index.reserve(booking(7, 9, 10, BookingStatus.WAITING));
+
+        Mockito.verify(mockBookingRepo, Mockito.times(2))
+                .findByItemIdAndStatusInAndEndIsAfterOrderByStart(Mockito.eq(1), Mockito.any(), Mockito.any());
+    }
+
+    @Test
+    void testReleaseFreesTime() {
+        expectOverlapInDatabase(true);
+        index.reserve(booking(9, 8, 9, BookingStatus.WAITING));
+        index.release(booking(3, 5, 6, BookingStatus.WAITING));
+        assertDoesNotThrow(() -> index.reserve(booking(4, 4, 6, BookingStatus.WAITING)));
+        //Слитые при загрузке брони не освобождаются по отдельности
+        index.release(booking(2, 1, 3, BookingStatus.WAITING));
+        assertThrows(BookingOverlapException.class, () -> index.reserve(booking(5, 2, 3, BookingStatus.WAITING)));
+    }
+
+    private void expectOverlapInDatabase(boolean overlap) {
+        Mockito.when(mockBookingRepo.existsOverlap(Mockito.eq(1), Mockito.any(), Mockito.any(), Mockito.any(),
+                Mockito.any())).thenReturn(overlap);
+    }
+
+    private Booking booking(Integer id, int startDay, int endDay, BookingStatus status) {
+        return new Booking(id, moment.plusDays(startDay), moment.plusDays(endDay), item, null, status);
+    }
+}
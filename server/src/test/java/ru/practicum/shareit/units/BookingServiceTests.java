@@ -1,5 +1,7 @@
 package ru.practicum.shareit.units;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -7,23 +9,47 @@ import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import ru.practicum.shareit.booking.*;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingDtoShort;
 import ru.practicum.shareit.booking.dto.BookingRequest;
+import ru.practicum.shareit.booking.dto.BookingSummaryDto;
+import ru.practicum.shareit.booking.dto.StatusDecision;
+import ru.practicum.shareit.booking.dto.StatusDecisionResult;
 import ru.practicum.shareit.booking.exception.BookingBadRequest;
 import ru.practicum.shareit.booking.exception.BookingCreateException;
+import ru.practicum.shareit.booking.exception.BookingOverlapException;
 import ru.practicum.shareit.booking.exception.BookingStatusChangeException;
+import ru.practicum.shareit.booking.partition.BookingArchive;
+import ru.practicum.shareit.booking.partition.BookingPartitions;
+import ru.practicum.shareit.booking.schedule.AvailabilityCalendar;
+import ru.practicum.shareit.booking.schedule.BookingIntervalIndex;
+import ru.practicum.shareit.booking.schedule.ItemLocks;
+import ru.practicum.shareit.booking.summary.BookingSummaries;
 import ru.practicum.shareit.handler.exception.NotFoundException;
 import ru.practicum.shareit.item.ItemRepository;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.outbox.Outbox;
+import ru.practicum.shareit.outbox.OutboxEvent;
+import ru.practicum.shareit.paging.Cursor;
+import ru.practicum.shareit.paging.InvalidCursorException;
+import ru.practicum.shareit.paging.PageResult;
+import ru.practicum.shareit.retry.ConflictRetry;
 import ru.practicum.shareit.user.User;
 import ru.practicum.shareit.user.UserRepository;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
@@ -38,6 +64,21 @@ public class BookingServiceTests {
     ItemRepository mockItemRepo;
     @Mock
     UserRepository mockUserRepo;
+    @Mock
+    ItemLocks mockItemLocks;
+    @Mock
+    AvailabilityCalendar mockCalendar;
+    @Mock
+    BookingPartitions mockPartitions;
+    @Mock
+    BookingArchive mockArchive;
+    @Mock
+    Outbox mockOutbox;
+    @Mock
+    BookingSummaries mockSummaries;
+    @Mock
+    PlatformTransactionManager mockTransactionManager;
+    MeterRegistry meterRegistry = new SimpleMeterRegistry();
     BookingService service;
     BookingMapper mapper = new BookingMapperImpl();
 
@@ -45,7 +86,11 @@ public class BookingServiceTests {
 
     @BeforeEach
     void createService() {
-        service = new BookingService(mockBookingRepo, mapper, mockUserRepo, mockItemRepo);
+        service = new BookingService(mockBookingRepo, mapper, mockUserRepo, mockItemRepo,
+                new BookingIntervalIndex(mockBookingRepo, false, 100), mockItemLocks, mockCalendar,
+                mockPartitions, mockArchive, mockOutbox,
+                new ConflictRetry(new TransactionTemplate(mockTransactionManager), meterRegistry, 3, Duration.ZERO),
+                mockSummaries, Duration.ofDays(365));
     }
 
     @Test
@@ -66,6 +111,39 @@ public class BookingServiceTests {
         assertThat(result.getItem().getName(), equalTo(item.getName()));
         assertThat(result.getBookerId(), equalTo(2));
         assertThat(result.getStatus(), equalTo(BookingStatus.WAITING.name()));
+        Mockito.verify(mockCalendar).invalidate(1);
+        Mockito.verify(mockSummaries).invalidate(2, 1);
+        Mockito.verify(mockOutbox).publish(Mockito.eq(OutboxEvent.AggregateType.BOOKING), Mockito.any(),
+                Mockito.eq(OutboxEvent.EventType.BOOKING_CREATED), Mockito.same(result));
+    }
+
+    @Test
+    void testCreateBookingTooLong() {
+        BookingRequest request = new BookingRequest(1, moment, moment.plusDays(366));
+        assertThrows(BookingCreateException.class, () -> service.create(request, 2));
+        Mockito.verifyNoInteractions(mockPartitions, mockItemRepo);
+    }
+
+    @Test
+    void testCreateBookingOverlaps() {
+        Item item = new Item(1, "testItem", "testing_1", Boolean.TRUE, makeItemOwner(1), null);
+        Booking approved = new Booking(7, moment.plusDays(1), moment.plusDays(3), item, makeBooker(3),
+                BookingStatus.APPROVED);
+        Mockito.when(mockItemRepo.findById(Mockito.anyInt())).thenReturn(Optional.of(item));
+        Mockito.when(mockUserRepo.findById(Mockito.anyInt())).thenReturn(Optional.of(makeBooker(2)));
+        Mockito.when(mockBookingRepo.findByItemIdAndStatusInAndEndIsAfterOrderByStart(Mockito.eq(1), Mockito.any(),
+                Mockito.any())).thenReturn(List.of(approved));
+        Mockito.when(mockBookingRepo.existsOverlap(Mockito.eq(1), Mockito.any(), Mockito.any(), Mockito.any(),
+                Mockito.any())).thenReturn(true);
+        Mockito.when(mockBookingRepo.save(Mockito.any(Booking.class))).thenAnswer(i -> {
+            Booking booking = i.getArgument(0);
+            booking.setId(8);
+            return booking;
+        });
+        assertThrows(BookingOverlapException.class, () -> service.create(
+                new BookingRequest(1, moment.plusDays(2), moment.plusDays(4)), 2));
+        assertThat(service.create(new BookingRequest(1, moment.plusDays(3), moment.plusDays(4)), 2).getId(),
+                equalTo(8));
     }
 
     @Test
@@ -121,12 +199,52 @@ public class BookingServiceTests {
         Mockito.when(mockBookingRepo.findById(Mockito.anyInt())).thenReturn(Optional.of(booking));
         BookingDto result = service.changeStatusByOwner(1, Boolean.FALSE, 49);
         assertThat(result.getStatus(), equalTo(BookingStatus.REJECTED.name()));
+        Mockito.verify(mockOutbox).publish(OutboxEvent.AggregateType.BOOKING, 1,
+                OutboxEvent.EventType.BOOKING_REJECTED, result);
+        Mockito.verify(mockSummaries).invalidate(1, 49);
+        Mockito.verifyNoInteractions(mockItemLocks);
+    }
+
+    @Test
+    void testConcurrentDecisionIsRetried() {
+        Item item = new Item(1, "testItem", "testing_1",
+                Boolean.TRUE, makeItemOwner(49), null);
+        Booking booking = new Booking(1, moment, moment.plusDays(1), item, makeBooker(1), BookingStatus.WAITING);
+        Mockito.when(mockBookingRepo.findById(1)).thenReturn(Optional.of(booking));
+        //Первая попытка проигрывает параллельному решению, повтор видит уже одобренную бронь
+        Mockito.doThrow(new ObjectOptimisticLockingFailureException(Booking.class, 1))
+                .when(mockTransactionManager).commit(Mockito.any());
+        assertThrows(BookingStatusChangeException.class, () -> service.changeStatusByOwner(1, Boolean.TRUE, 49));
+        assertThat(meterRegistry.get("shareit.optimistic.conflicts").tag("operation", "booking.status")
+                .tag("outcome", "retried").counter().count(), equalTo(1.0));
+    }
+
+    @Test
+    void testApproveRejectedOverlaps() {
+        Item item = new Item(1, "testItem", "testing_1",
+                Boolean.TRUE, makeItemOwner(49), null);
+        Booking approved = new Booking(1, moment.plusDays(1), moment.plusDays(3), item, makeBooker(1),
+                BookingStatus.APPROVED);
+        Booking rejected = new Booking(2, moment.plusDays(2), moment.plusDays(4), item, makeBooker(2),
+                BookingStatus.REJECTED);
+        Mockito.when(mockBookingRepo.findById(2)).thenReturn(Optional.of(rejected));
+        Mockito.when(mockBookingRepo.findByItemIdAndStatusInAndEndIsAfterOrderByStart(Mockito.eq(1), Mockito.any(),
+                Mockito.any())).thenReturn(List.of(approved));
+        Mockito.when(mockBookingRepo.existsOverlap(Mockito.eq(1), Mockito.eq(2), Mockito.any(), Mockito.any(),
+                Mockito.any())).thenReturn(true);
+        assertThrows(BookingOverlapException.class, () -> service.changeStatusByOwner(2, Boolean.TRUE, 49));
+        assertThat(rejected.getStatus(), equalTo(BookingStatus.REJECTED));
+        Mockito.verify(mockItemLocks).lock(1);
     }
 
     @Test
     void testChangeStatusBookingNotFound() {
-        Mockito.when(mockBookingRepo.findById(Mockito.anyInt())).thenReturn(Optional.empty());
-        assertThrows(NotFoundException.class, () -> service.changeStatusByOwner(1, Boolean.TRUE, 1));
+        Mockito.when(mockBookingRepo.findById(1)).thenReturn(Optional.empty());
+        NotFoundException e = assertThrows(NotFoundException.class,
+                () -> service.changeStatusByOwner(1, Boolean.TRUE, 1));
+        assertThat(e.getStatusText(), equalTo("Booking not found."));
+        Mockito.verify(mockBookingRepo).findById(1);
+        Mockito.verify(mockBookingRepo, Mockito.never()).save(Mockito.any());
     }
 
     @Test
@@ -167,6 +285,17 @@ public class BookingServiceTests {
         assertThrows(NotFoundException.class, () -> service.getById(1, 1));
     }
 
+    @Test
+    void testGetByIdFromArchive() {
+        Mockito.when(mockBookingRepo.findById(1)).thenReturn(Optional.empty());
+        BookingDto archived = new BookingDto(1, moment.minusYears(2), moment.minusYears(2).plusDays(1),
+                BookingStatus.APPROVED, 1, "testItem", 1, "booker");
+        Mockito.when(mockArchive.findById(1, 1)).thenReturn(Optional.of(archived));
+        assertThat(service.getById(1, 1), equalTo(archived));
+        //Чужую архивную бронь архив не отдаёт
+        assertThrows(NotFoundException.class, () -> service.getById(1, 35));
+    }
+
     @Test
     void testGetByIdNotBookerOrOwner() {
         Item item = new Item(1, "testItem", "testing_1",
@@ -181,39 +310,68 @@ public class BookingServiceTests {
         User user = makeBooker(1);
         List<BookingDto> plannedList = mapper.toDtoList(makeBookingsList());
         Mockito.when(mockUserRepo.findById(Mockito.anyInt())).thenReturn(Optional.of(user));
-        Mockito.when(mockBookingRepo.findByBookerId(Mockito.anyInt(), Mockito.any(Pageable.class)))
-                .thenReturn(makeBookingsList());
-        Mockito.when(mockBookingRepo.findByBookerIdAndStartIsBeforeAndEndIsAfter(Mockito.anyInt(),
-                        Mockito.any(), Mockito.any(), Mockito.any(Pageable.class)))
-                .thenReturn(makeBookingsList());
-        Mockito.when(mockBookingRepo.findByBookerIdAndEndIsBefore(Mockito.anyInt(),
-                        Mockito.any(), Mockito.any(Pageable.class)))
-                .thenReturn(makeBookingsList());
-        Mockito.when(mockBookingRepo.findByBookerIdAndStartIsAfter(Mockito.anyInt(),
-                        Mockito.any(), Mockito.any(Pageable.class)))
-                .thenReturn(makeBookingsList());
-        Mockito.when(mockBookingRepo.findByBookerIdAndStatusEquals(Mockito.anyInt(),
-                        Mockito.any(), Mockito.any(Pageable.class)))
-                .thenReturn(makeBookingsList());
-        assertThat(service.getAllByUser("ALL", 1, 0, 20), equalTo(plannedList));
-        assertThat(service.getAllByUser("CURRENT", 1, 0, 20), equalTo(plannedList));
-        assertThat(service.getAllByUser("PAST", 1, 0, 20), equalTo(plannedList));
-        assertThat(service.getAllByUser("FUTURE", 1, 0, 20), equalTo(plannedList));
-        assertThat(service.getAllByUser("WAITING", 1, 0, 20), equalTo(plannedList));
-        assertThat(service.getAllByUser("REJECTED", 1, 0, 20), equalTo(plannedList));
+        Mockito.when(mockBookingRepo.findSlice(Mockito.any(), Mockito.any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(plannedList));
+        assertThat(service.getAllByUser("ALL", 1, 0, 20, null).getContent(), equalTo(plannedList));
+        assertThat(service.getAllByUser("CURRENT", 1, 0, 20, null).getContent(), equalTo(plannedList));
+        assertThat(service.getAllByUser("PAST", 1, 0, 20, null).getContent(), equalTo(plannedList));
+        assertThat(service.getAllByUser("FUTURE", 1, 0, 20, null).getContent(), equalTo(plannedList));
+        assertThat(service.getAllByUser("WAITING", 1, 0, 20, null).getContent(), equalTo(plannedList));
+        assertThat(service.getAllByUser("REJECTED", 1, 0, 20, null).getContent(), equalTo(plannedList));
+    }
+
+    @Test
+    void testGetAllByUserContinuesInArchive() {
+        List<BookingDto> bookings = mapper.toDtoList(makeBookingsList());
+        Mockito.when(mockUserRepo.findById(Mockito.anyInt())).thenReturn(Optional.of(makeBooker(1)));
+        Mockito.when(mockArchive.holds(StateMode.PAST)).thenReturn(true);
+        Mockito.when(mockBookingRepo.findSlice(Mockito.any(), Mockito.any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(bookings.subList(0, 1)));
+        Mockito.when(mockArchive.findByBooker(Mockito.eq(1), Mockito.eq(StateMode.PAST), Mockito.any(),
+                Mockito.isNull(), Mockito.eq(0L), Mockito.eq(2))).thenReturn(bookings.subList(1, 3));
+        PageResult<BookingDto> page = service.getAllByUser("PAST", 1, 0, 2, null);
+        assertThat(page.getContent(), equalTo(bookings.subList(0, 2)));
+        assertTrue(page.isHasMore());
+
+        //Архив продолжается только по курсору
+        Cursor cursor = Cursor.decode(page.getNextCursor());
+        Mockito.when(mockBookingRepo.findSlice(Mockito.any(), Mockito.any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(List.of()));
+        Mockito.when(mockArchive.findByBooker(Mockito.eq(1), Mockito.eq(StateMode.PAST), Mockito.any(),
+                Mockito.eq(cursor), Mockito.eq(0L), Mockito.eq(3))).thenReturn(bookings.subList(2, 3));
+        page = service.getAllByUser("PAST", 1, 0, 2, cursor);
+        assertThat(page.getContent(), equalTo(bookings.subList(2, 3)));
+        assertFalse(page.isHasMore());
+        Mockito.verify(mockBookingRepo, Mockito.never()).count(Mockito.<Specification<Booking>>any());
+    }
+
+    @Test
+    void testGetAllByUserOffsetPastHotBookings() {
+        List<BookingDto> bookings = mapper.toDtoList(makeBookingsList());
+        Mockito.when(mockUserRepo.findById(Mockito.anyInt())).thenReturn(Optional.of(makeBooker(1)));
+        Mockito.when(mockArchive.holds(StateMode.PAST)).thenReturn(true);
+        Mockito.when(mockBookingRepo.findSlice(Mockito.any(), Mockito.any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(List.of()));
+        Mockito.when(mockArchive.findByBooker(Mockito.eq(1), Mockito.eq(StateMode.PAST), Mockito.any(),
+                Mockito.isNull(), Mockito.eq(0L), Mockito.eq(1))).thenReturn(bookings.subList(0, 1), List.of());
+        assertThrows(InvalidCursorException.class, () -> service.getAllByUser("PAST", 1, 4, 2, null));
+
+        //Без архивных броней это просто конец списка
+        assertTrue(service.getAllByUser("PAST", 1, 4, 2, null).getContent().isEmpty());
+        Mockito.verify(mockBookingRepo, Mockito.never()).count(Mockito.<Specification<Booking>>any());
     }
 
     @Test
     void testGetAllByUsersBookerNotFound() {
         Mockito.when(mockUserRepo.findById(Mockito.anyInt())).thenReturn(Optional.empty());
-        assertThrows(NotFoundException.class, () -> service.getAllByUser("ALL", 1, 0, 20));
+        assertThrows(NotFoundException.class, () -> service.getAllByUser("ALL", 1, 0, 20, null));
     }
 
     @Test
     void testGetAllByUserStateIllegal() {
         User user = makeBooker(1);
         Mockito.when(mockUserRepo.findById(Mockito.anyInt())).thenReturn(Optional.of(user));
-        assertThrows(BookingBadRequest.class, () -> service.getAllByUser("BRUH", 1, 0, 20));
+        assertThrows(BookingBadRequest.class, () -> service.getAllByUser("BRUH", 1, 0, 20, null));
     }
 
     @Test
@@ -221,38 +379,38 @@ public class BookingServiceTests {
         User user = makeBooker(1);
         Mockito.when(mockUserRepo.findById(Mockito.anyInt())).thenReturn(Optional.of(user));
         List<BookingDto> plannedList = mapper.toDtoList(makeBookingsList());
-        List<Item> itemsList = List.of(new Item(), new Item());
-        int i = 0;
-        for (Item item : itemsList) {
-            item.setId(i++);
-        }
-        Mockito.when(mockItemRepo.findByOwnerId(Mockito.any())).thenReturn(itemsList);
-        Mockito.when(mockBookingRepo.findByItemIdIn(Mockito.any(), Mockito.any(Pageable.class)))
-                .thenReturn(makeBookingsList());
-        Mockito.when(mockBookingRepo.findByItemIdInAndStartIsBeforeAndEndIsAfter(Mockito.any(),
-                        Mockito.any(), Mockito.any(), Mockito.any(Pageable.class)))
-                .thenReturn(makeBookingsList());
-        Mockito.when(mockBookingRepo.findByItemIdInAndEndIsBefore(Mockito.any(),
-                        Mockito.any(), Mockito.any(Pageable.class)))
-                .thenReturn(makeBookingsList());
-        Mockito.when(mockBookingRepo.findByItemIdInAndStartIsAfter(Mockito.any(),
-                        Mockito.any(), Mockito.any(Pageable.class)))
-                .thenReturn(makeBookingsList());
-        Mockito.when(mockBookingRepo.findByItemIdInAndStatusEquals(Mockito.any(),
-                        Mockito.any(), Mockito.any(Pageable.class)))
-                .thenReturn(makeBookingsList());
-        assertThat(service.getAllByUserOwner("ALL", 1, 0, 20), equalTo(plannedList));
-        assertThat(service.getAllByUserOwner("CURRENT", 1, 0, 20), equalTo(plannedList));
-        assertThat(service.getAllByUserOwner("PAST", 1, 0, 20), equalTo(plannedList));
-        assertThat(service.getAllByUserOwner("FUTURE", 1, 0, 20), equalTo(plannedList));
-        assertThat(service.getAllByUserOwner("WAITING", 1, 0, 20), equalTo(plannedList));
-        assertThat(service.getAllByUserOwner("REJECTED", 1, 0, 20), equalTo(plannedList));
+        Mockito.when(mockBookingRepo.findSlice(Mockito.any(), Mockito.any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(plannedList));
+        assertThat(service.getAllByUserOwner("ALL", 1, 0, 20, null).getContent(), equalTo(plannedList));
+        assertThat(service.getAllByUserOwner("CURRENT", 1, 0, 20, null).getContent(), equalTo(plannedList));
+        assertThat(service.getAllByUserOwner("PAST", 1, 0, 20, null).getContent(), equalTo(plannedList));
+        assertThat(service.getAllByUserOwner("FUTURE", 1, 0, 20, null).getContent(), equalTo(plannedList));
+        assertThat(service.getAllByUserOwner("WAITING", 1, 0, 20, null).getContent(), equalTo(plannedList));
+        assertThat(service.getAllByUserOwner("REJECTED", 1, 0, 20, null).getContent(), equalTo(plannedList));
     }
 
     @Test
     void testGetAllByUsersOwnerNotFound() {
         Mockito.when(mockUserRepo.findById(Mockito.anyInt())).thenReturn(Optional.empty());
-        assertThrows(NotFoundException.class, () -> service.getAllByUserOwner("ALL", 1, 0, 20));
+        assertThrows(NotFoundException.class, () -> service.getAllByUserOwner("ALL", 1, 0, 20, null));
+    }
+
+    @Test
+    void testGetSummaries() {
+        BookingSummaryDto summary = new BookingSummaryDto(3, 1, 1, 1, 2, 0);
+        Mockito.when(mockUserRepo.findById(1)).thenReturn(Optional.of(makeBooker(1)));
+        Mockito.when(mockSummaries.ofBooker(1)).thenReturn(summary);
+        Mockito.when(mockSummaries.ofOwner(1)).thenReturn(new BookingSummaryDto());
+        assertThat(service.getSummary(1), equalTo(summary));
+        assertThat(service.getOwnerSummary(1).getAll(), equalTo(0L));
+    }
+
+    @Test
+    void testGetSummaryUserNotFound() {
+        Mockito.when(mockUserRepo.findById(Mockito.anyInt())).thenReturn(Optional.empty());
+        assertThrows(NotFoundException.class, () -> service.getSummary(1));
+        assertThrows(NotFoundException.class, () -> service.getOwnerSummary(1));
+        Mockito.verifyNoInteractions(mockSummaries);
     }
 
     @Test
@@ -281,6 +439,39 @@ public class BookingServiceTests {
         assertThat(newBooking.getBooker().getName(), equalTo(miniBooker.getName()));
     }
 
+    @Test
+    void testChangeStatusBatch() {
+        User owner = makeItemOwner(49);
+        Item first = new Item(1, "testItem", "testing_1", Boolean.TRUE, owner, null);
+        Item second = new Item(2, "testItem", "testing_2", Boolean.TRUE, owner, null);
+        Booking approved = new Booking(1, moment.plusDays(1), moment.plusDays(2), first, makeBooker(2),
+                BookingStatus.APPROVED);
+        Booking waiting = new Booking(3, moment.plusDays(1), moment.plusDays(2), second, makeBooker(2),
+                BookingStatus.WAITING);
+        Booking rejected = new Booking(4, moment.plusDays(5), moment.plusDays(6), first, makeBooker(2),
+                BookingStatus.REJECTED);
+        Mockito.when(mockBookingRepo.findAllOwnedBy(Set.of(1, 3, 4, 5), 49))
+                .thenReturn(List.of(approved, waiting, rejected));
+
+        List<StatusDecisionResult> results = service.changeStatusBatch(List.of(new StatusDecision(3, true),
+                new StatusDecision(1, false), new StatusDecision(5, true), new StatusDecision(3, false),
+                new StatusDecision(4, true)), 49);
+
+        assertThat(results.stream().map(StatusDecisionResult::getBookingId).collect(Collectors.toList()),
+                equalTo(List.of(3, 1, 5, 3, 4)));
+        assertThat(results.stream().map(StatusDecisionResult::getStatus).collect(Collectors.toList()),
+                equalTo(List.of(200, 400, 404, 400, 200)));
+        assertThat(results.get(0).getBooking().getStatus(), equalTo(BookingStatus.APPROVED.name()));
+        assertThat(approved.getStatus(), equalTo(BookingStatus.APPROVED));
+        assertThat(rejected.getStatus(), equalTo(BookingStatus.APPROVED));
+        //Время занимает только одобрение отклонённой брони
+        Mockito.verify(mockItemLocks).lockAll(Set.of(1));
+        Mockito.verify(mockItemLocks, Mockito.atLeastOnce()).lock(1);
+        Mockito.verify(mockItemLocks, Mockito.never()).lock(2);
+        Mockito.verify(mockCalendar).invalidate(1);
+        Mockito.verify(mockCalendar).invalidate(2);
+    }
+
     private User makeItemOwner(Integer id) {
         return new User(id, "testOwner", "test@ya.ru");
     }
@@ -0,0 +1,86 @@
+package ru.practicum.shareit.units;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.booking.dto.BookingSummaryDto;
+import ru.practicum.shareit.booking.partition.BookingArchive;
+import ru.practicum.shareit.booking.summary.BookingCounts;
+import ru.practicum.shareit.booking.summary.BookingSummaries;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+@ExtendWith(MockitoExtension.class)
+public class BookingSummariesTests {
+
+    @Mock
+    BookingRepository mockBookingRepo;
+    @Mock
+    BookingArchive mockArchive;
+    MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    BookingSummaries summaries;
+
+    @BeforeEach
+    void makeSummaries() {
+        summaries = new BookingSummaries(mockBookingRepo, mockArchive, meterRegistry,
+                Duration.ofDays(365), Duration.ofHours(1), 10);
+    }
+
+    @Test
+    void testCachedUntilInvalidated() {
+        LocalDateTime later = LocalDateTime.now().plusDays(1);
+        Mockito.when(mockBookingRepo.countByBooker(Mockito.eq(1), Mockito.any(), Mockito.any()))
+                .thenReturn(new BookingCounts(2L, 0L, 0L, 2L, 2L, 0L, later, later));
+        Mockito.when(mockBookingRepo.countByOwner(Mockito.eq(1), Mockito.any(), Mockito.any()))
+                .thenReturn(new BookingCounts(0L, null, null, null, null, null, null, null));
+
+        assertThat(summaries.ofBooker(1), equalTo(new BookingSummaryDto(2, 0, 0, 2, 2, 0)));
+        assertThat(summaries.ofBooker(1), equalTo(new BookingSummaryDto(2, 0, 0, 2, 2, 0)));
+        assertThat(summaries.ofOwner(1), equalTo(new BookingSummaryDto()));
+        Mockito.verify(mockBookingRepo, Mockito.times(1)).countByBooker(Mockito.eq(1), Mockito.any(), Mockito.any());
+
+        //Бронирование пользователя 1 у владельца 2 сбрасывает только его счётчики как арендатора
+        summaries.invalidate(1, 2);
+        summaries.ofBooker(1);
+        summaries.ofOwner(1);
+        Mockito.verify(mockBookingRepo, Mockito.times(2)).countByBooker(Mockito.eq(1), Mockito.any(), Mockito.any());
+        Mockito.verify(mockBookingRepo, Mockito.times(1)).countByOwner(Mockito.eq(1), Mockito.any(), Mockito.any());
+        assertThat(meterRegistry.counter("cache.gets", "cache", "booking-summaries", "result", "hit").count(),
+                equalTo(2.0));
+        assertThat(meterRegistry.counter("cache.gets", "cache", "booking-summaries", "result", "miss").count(),
+                equalTo(3.0));
+    }
+
+    @Test
+    void testRecountedOnceBookingChangesState() {
+        LocalDateTime now = LocalDateTime.now();
+        Mockito.when(mockBookingRepo.countByBooker(Mockito.eq(1), Mockito.any(), Mockito.any()))
+                .thenReturn(new BookingCounts(1L, 0L, 0L, 1L, 0L, 0L, now, now.plusHours(1)));
+
+        summaries.ofBooker(1);
+        summaries.ofBooker(1);
+        Mockito.verify(mockBookingRepo, Mockito.times(2)).countByBooker(Mockito.eq(1), Mockito.any(), Mockito.any());
+    }
+
+    @Test
+    void testArchivedBookingsCountedAsPast() {
+        Mockito.when(mockBookingRepo.countByOwner(Mockito.eq(1), Mockito.any(), Mockito.any()))
+                .thenReturn(new BookingCounts(2L, 1L, 0L, 1L, 1L, 0L, null, null));
+        Mockito.when(mockArchive.countByOwner(1))
+                .thenReturn(Map.of(BookingStatus.APPROVED, 3L, BookingStatus.REJECTED, 1L));
+
+        assertThat(summaries.ofOwner(1), equalTo(new BookingSummaryDto(6, 1, 4, 1, 1, 1)));
+    }
+}
@@ -0,0 +1,96 @@
+package ru.practicum.shareit.units;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.cache.CommitEvictedCache;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+public class CommitEvictedCacheTests {
+
+    CommitEvictedCache<Integer, String> cache = new CommitEvictedCache<>("test", 2, 2);
+    AtomicInteger loads = new AtomicInteger();
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive())
+            TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    @Test
+    void testLoadFinishedAfterEvictionIsNotServed() {
+        //Ключ выбрасывают, пока значение ещё читается: прочитанное устарело и не должно остаться в кэше
+        assertThat(cache.get(1, () -> {
+            cache.invalidate(List.of(1));
+            return load("old");
+        }), equalTo("old"));
+        assertThat(cache.get(1, () -> load("new")), equalTo("new"));
+        assertThat(cache.get(1, () -> load("newer")), equalTo("new"));
+        assertThat(loads.get(), equalTo(2));
+    }
+
+    @Test
+    void testEvictedOnlyAfterCommit() {
+        cache.get(1, () -> load("old"));
+        TransactionSynchronizationManager.initSynchronization();
+        cache.invalidate(List.of(1));
+        //До фиксации другие читатели видят прежнее значение, как и база
+        assertThat(cache.get(1, () -> load("new")), equalTo("old"));
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+
+        synchronizations.forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        assertThat(cache.get(1, () -> load("new")), equalTo("old"));
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+        assertThat(cache.get(1, () -> load("new")), equalTo("new"));
+    }
+
+    @Test
+    void testReadAgainAfterLifetime() {
+        cache.get(1, () -> CommitEvictedCache.Loaded.of("old", Duration.ZERO));
+        assertThat(cache.get(1, () -> load("new")), equalTo("new"));
+    }
+
+    @Test
+    void testBoundedByKeysAndVariants() {
+        cache.get(1, () -> load("1"));
+        cache.get(2, () -> load("2"));
+        cache.get(1, () -> load("1"));
+        cache.get(3, () -> load("3"));
+        //Дольше всех не читали ключ 2
+        assertThat(cache.size(), equalTo(2));
+        assertThat(cache.get(1, () -> load("other")), equalTo("1"));
+        assertThat(cache.get(2, () -> load("2 again")), equalTo("2 again"));
+
+        cache.get(1, "a", () -> load("1a"));
+        cache.get(1, "b", () -> load("1b"));
+        assertThat(cache.get(1, "a", () -> load("1a again")), equalTo("1a again"));
+        cache.invalidate(List.of(1));
+        assertThat(cache.get(1, "a", () -> load("1a fresh")), equalTo("1a fresh"));
+    }
+
+    @Test
+    void testCountsHitsAndMisses() {
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        cache.bindTo(meterRegistry);
+        cache.get(1, () -> load("1"));
+        cache.get(1, () -> load("1"));
+        assertThat(meterRegistry.counter("cache.gets", "cache", "test", "result", "hit").count(), equalTo(1.0));
+        assertThat(meterRegistry.counter("cache.gets", "cache", "test", "result", "miss").count(), equalTo(1.0));
+        assertThat(meterRegistry.get("cache.size").tag("cache", "test").gauge().value(), equalTo(1.0));
+    }
+
+    private CommitEvictedCache.Loaded<String> load(String value) {
+        loads.incrementAndGet();
+        return CommitEvictedCache.Loaded.of(value, Duration.ofMinutes(1));
+    }
+}
@@ -0,0 +1,162 @@
+package ru.practicum.shareit.units;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.MediaType;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.handler.exception.NotFoundException;
+import ru.practicum.shareit.item.ItemRepository;
+import ru.practicum.shareit.item.dto.ItemImportReport;
+import ru.practicum.shareit.item.exception.ImportFormatException;
+import ru.practicum.shareit.item.imports.ItemImporter;
+import ru.practicum.shareit.item.mapper.ItemMapperImpl;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.search.ItemSearchEngine;
+import ru.practicum.shareit.outbox.Outbox;
+import ru.practicum.shareit.outbox.OutboxEvent;
+import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.UserRepository;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@ExtendWith(MockitoExtension.class)
+public class ItemImporterTests {
+
+    private static final MediaType CSV = MediaType.valueOf("text/csv");
+
+    @Mock
+    ItemRepository mockItemRepo;
+    @Mock
+    UserRepository mockUserRepo;
+    @Mock
+    ItemSearchEngine mockSearchEngine;
+    @Mock
+    Outbox mockOutbox;
+    @Mock
+    PlatformTransactionManager mockTransactionManager;
+    List<List<Item>> saved = new ArrayList<>();
+
+    @Test
+    void testNdjsonRowsSavedInBatches() throws Exception {
+        ItemImporter importer = makeImporter(2, 10);
+        expectOwner();
+        ItemImportReport report = importer.importItems(body(
+                "{\"name\":\"Дрель\",\"description\":\"Ударная\",\"available\":true}\n" +
+                "\n" +
+                "{\"name\":\" \",\"description\":\"Без имени\",\"available\":true}\n" +
+                "{\"name\":\"Пила\",\"description\":\"Ручная\",\"available\":true,\"requestId\":7}\r\n" +
+                "{\"name\":\"Молоток\",\n" +
+                "{\"name\":\"Отвертка\",\"description\":\"Крестовая\",\"available\":false}"),
+                MediaType.APPLICATION_NDJSON, 1);
+
+        assertThat(report.getImported(), equalTo(3L));
+        assertThat(report.getFailed(), equalTo(2L));
+        assertThat(report.getErrors().stream().map(ItemImportReport.RowError::getRow).collect(Collectors.toList()),
+                equalTo(List.of(3L, 5L)));
+        assertThat(report.getErrors().get(0).getMessage(), equalTo("Field name must not be blank."));
+        assertThat(saved.stream().map(List::size).collect(Collectors.toList()), equalTo(List.of(2, 1)));
+        assertThat(saved.get(0).get(1).getRequestId(), equalTo(7));
+        assertThat(saved.get(1).get(0).getOwner().getId(), equalTo(1));
+        Mockito.verify(mockItemRepo, Mockito.times(2)).flush();
+        Mockito.verify(mockSearchEngine, Mockito.times(3)).itemChanged(Mockito.any(Item.class));
+        ArgumentCaptor<List<Object>> events = ArgumentCaptor.forClass(List.class);
+        Mockito.verify(mockOutbox, Mockito.times(2)).publishAll(Mockito.eq(OutboxEvent.AggregateType.ITEM),
+                Mockito.eq(OutboxEvent.EventType.ITEM_CREATED), events.capture(), Mockito.any());
+        assertThat(events.getAllValues().get(0).size(), equalTo(2));
+    }
+
+    @Test
+    void testCsvQuotedFieldsAndColumnOrder() throws Exception {
+        ItemImporter importer = makeImporter(10, 10);
+        expectOwner();
+        ItemImportReport report = importer.importItems(body(
+                "\uFEFFavailable,Name,description,requestId\r\n" +
+                "true,\"Дрель, ударная\",\"Мощная\n\"\"дрель\"\"\",5\r\n" +
+                "maybe,Пила,Ручная,\n" +
+                "false,Молоток,Простой,\n" +
+                "true,Отвертка,Крестовая,x\n" +
+                "true,Клещи\n"),
+                CSV, 1);
+
+        assertThat(report.getImported(), equalTo(2L));
+        assertThat(report.getErrors().stream().map(ItemImportReport.RowError::getRow).collect(Collectors.toList()),
+                equalTo(List.of(4L, 6L, 7L)));
+        assertThat(report.getErrors().get(2).getMessage(), equalTo("Expected 4 fields, found 2."));
+        Item drill = saved.get(0).get(0);
+        assertThat(drill.getName(), equalTo("Дрель, ударная"));
+        assertThat(drill.getDescription(), equalTo("Мощная\n\"дрель\""));
+        assertThat(drill.getAvailable(), equalTo(true));
+        assertThat(drill.getRequestId(), equalTo(5));
+        Item hammer = saved.get(0).get(1);
+        assertThat(hammer.getAvailable(), equalTo(false));
+        assertThat(hammer.getRequestId(), equalTo(null));
+    }
+
+    @Test
+    void testErrorsListLimited() throws Exception {
+        ItemImporter importer = makeImporter(10, 1);
+        Mockito.when(mockUserRepo.existsById(1)).thenReturn(true);
+        ItemImportReport report = importer.importItems(body("name,description,available\n,,\n,,\n"), CSV, 1);
+
+        assertThat(report.getImported(), equalTo(0L));
+        assertThat(report.getFailed(), equalTo(2L));
+        assertThat(report.getErrors().size(), equalTo(1));
+        Mockito.verifyNoInteractions(mockItemRepo, mockOutbox);
+    }
+
+    @Test
+    void testCsvWithoutRequiredColumn() {
+        ItemImporter importer = makeImporter(10, 10);
+        Mockito.when(mockUserRepo.existsById(1)).thenReturn(true);
+        assertThrows(ImportFormatException.class,
+                () -> importer.importItems(body("name,available\nДрель,true\n"), CSV, 1));
+        assertThrows(ImportFormatException.class,
+                () -> importer.importItems(body("Дрель"), MediaType.TEXT_PLAIN, 1));
+        Mockito.verifyNoInteractions(mockItemRepo);
+    }
+
+    @Test
+    void testOwnerNotFound() {
+        ItemImporter importer = makeImporter(10, 10);
+        Mockito.when(mockUserRepo.existsById(1)).thenReturn(false);
+        assertThrows(NotFoundException.class,
+                () -> importer.importItems(body("name,description,available\n"), CSV, 1));
+    }
+
+    private ItemImporter makeImporter(int batchSize, int maxErrors) {
+        return new ItemImporter(mockItemRepo, mockUserRepo, new ItemMapperImpl(), mockSearchEngine, mockOutbox,
+                new ObjectMapper(), new TransactionTemplate(mockTransactionManager), batchSize, maxErrors);
+    }
+
+    private void expectOwner() {
+        Mockito.when(mockUserRepo.existsById(1)).thenReturn(true);
+        Mockito.when(mockUserRepo.getReferenceById(1)).thenReturn(new User(1, "owner", "owner@ya.ru"));
+        AtomicInteger ids = new AtomicInteger();
+        Mockito.when(mockItemRepo.saveAll(Mockito.anyList())).thenAnswer(invocation -> {
+            List<Item> items = new ArrayList<>(invocation.getArgument(0));
+            items.forEach(item -> item.setId(ids.incrementAndGet()));
+            saved.add(items);
+            return items;
+        });
+    }
+
+    private static InputStream body(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+}
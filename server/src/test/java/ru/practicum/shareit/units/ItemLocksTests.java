@@ -0,0 +1,72 @@
+package ru.practicum.shareit.units;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.booking.schedule.ItemLocks;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+@ExtendWith(MockitoExtension.class)
+public class ItemLocksTests {
+
+    private static final int ROUNDS = 2000;
+
+    @Mock
+    JdbcTemplate mockJdbcTemplate;
+
+    @Test
+    void testBatchesOnCollidingStripesDoNotDeadlock() {
+        ItemLocks locks = new ItemLocks(mockJdbcTemplate, 64, false);
+        //1 и 65 в полосе 1, 2 и 66 в полосе 2: по порядку id вещей пакеты брали бы полосы навстречу друг другу
+        assertTimeoutPreemptively(Duration.ofSeconds(20), () -> {
+            CyclicBarrier start = new CyclicBarrier(2);
+            ExecutorService executor = Executors.newFixedThreadPool(2);
+            try {
+                Future<?> first = executor.submit(() -> lockRepeatedly(locks, Set.of(1, 66), start));
+                Future<?> second = executor.submit(() -> lockRepeatedly(locks, Set.of(2, 65), start));
+                first.get(20, TimeUnit.SECONDS);
+                second.get(20, TimeUnit.SECONDS);
+            } finally {
+                executor.shutdownNow();
+            }
+        });
+    }
+
+    @Test
+    void testLockRequiresTransaction() {
+        ItemLocks locks = new ItemLocks(mockJdbcTemplate, 64, false);
+        assertThrows(IllegalStateException.class, () -> locks.lockAll(List.of(1)));
+    }
+
+    private static Void lockRepeatedly(ItemLocks locks, Set<Integer> itemIds, CyclicBarrier start) throws Exception {
+        for (int i = 0; i < ROUNDS; i++) {
+            start.await(10, TimeUnit.SECONDS);
+            TransactionSynchronizationManager.initSynchronization();
+            try {
+                locks.lockAll(itemIds);
+            } finally {
+                //Завершение транзакции снимает блокировки
+                List<TransactionSynchronization> synchronizations =
+                        TransactionSynchronizationManager.getSynchronizations();
+                TransactionSynchronizationManager.clearSynchronization();
+                synchronizations.forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+            }
+        }
+        return null;
+    }
+}
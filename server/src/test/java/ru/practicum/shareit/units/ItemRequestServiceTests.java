@@ -8,12 +8,19 @@ import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.domain.Sort;
 import ru.practicum.shareit.handler.exception.NotFoundException;
 import ru.practicum.shareit.item.ItemRepository;
+import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.item.mapper.ItemMapperImpl;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.paging.Cursor;
+import ru.practicum.shareit.paging.InvalidCursorException;
+import ru.practicum.shareit.paging.OffsetPageRequest;
+import ru.practicum.shareit.paging.PageResult;
+import ru.practicum.shareit.projections.RequestItemVersionRow;
 import ru.practicum.shareit.request.*;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.dto.ItemRequestShort;
@@ -46,7 +53,7 @@ public class ItemRequestServiceTests {
 
     @BeforeEach
     void makeService() {
-        service = new ItemRequestService(mockRepo, mockUserRepo, mockItemRepo, mapper, itemMapper);
+        service = new ItemRequestService(mockRepo, mockUserRepo, mockItemRepo, mapper);
     }
 
     @Test
@@ -104,7 +111,7 @@ public class ItemRequestServiceTests {
         when(mockRepo.findAllByRequesterIdNot(Mockito.anyInt(), Mockito.any(Pageable.class)))
                 .thenReturn(new PageImpl<>(makeRequestsList()));
         when(mockItemRepo.findAllByRequestIdIn(Mockito.anyList())).thenReturn(makeItemsList());
-        List<ItemRequestDto> result = service.getAll(1, 0, 20);
+        List<ItemRequestDto> result = service.getAll(1, 0, 20, null).getContent();
         assertThat(result.size(), equalTo(3));
         assertFalse(result.get(0).getItems().isEmpty());
     }
@@ -115,20 +122,38 @@ public class ItemRequestServiceTests {
         when(mockRepo.findAllByRequesterIdNot(Mockito.anyInt(), Mockito.any(Pageable.class)))
                 .thenReturn(new PageImpl<>(makeRequestsList()));
         when(mockItemRepo.findAllByRequestIdIn(Mockito.anyList())).thenReturn(List.of());
-        List<ItemRequestDto> result = service.getAll(1, 0, 20);
+        List<ItemRequestDto> result = service.getAll(1, 0, 20, null).getContent();
         assertThat(result.size(), equalTo(3));
         assertTrue(result.get(0).getItems().isEmpty());
 
         when(mockItemRepo.findAllByRequestIdIn(Mockito.anyList())).thenReturn(null);
-        List<ItemRequestDto> result2 = service.getAll(1, 0, 20);
+        List<ItemRequestDto> result2 = service.getAll(1, 0, 20, null).getContent();
         assertThat(result2.size(), equalTo(3));
         assertTrue(result2.get(0).getItems().isEmpty());
     }
 
+    @Test
+    void testGetAllByCursor() {
+        when(mockUserRepo.findById(1)).thenReturn(Optional.of(new User()));
+        List<ItemRequestDto> requests = makeRequestsList();
+        when(mockRepo.findAllByRequesterIdNotAfter(Mockito.anyInt(), Mockito.any(), Mockito.anyInt(),
+                Mockito.any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(requests.subList(1, 3), OffsetPageRequest.of(0, 2), true));
+        when(mockItemRepo.findAllByRequestIdIn(Mockito.anyList())).thenReturn(List.of());
+        Cursor cursor = Cursor.of(requests.get(0).getCreated(), requests.get(0).getId());
+        PageResult<ItemRequestDto> result = service.getAll(1, 0, 2, Cursor.decode(cursor.encode()));
+        assertThat(result.getContent().size(), equalTo(2));
+        assertTrue(result.isHasMore());
+        assertThat(Cursor.decode(result.getNextCursor()), equalTo(Cursor.of(requests.get(2).getCreated(), 3)));
+        Mockito.verify(mockRepo).findAllByRequesterIdNotAfter(Mockito.eq(1),
+                Mockito.eq(requests.get(0).getCreated()), Mockito.eq(1), Mockito.any(Pageable.class));
+        assertThrows(InvalidCursorException.class, () -> service.getAll(1, 0, 2, Cursor.decode("bm90LWEtY3Vyc29y")));
+    }
+
     @Test
     void testGetAllNotFound() {
         when(mockUserRepo.findById(Mockito.anyInt())).thenReturn(Optional.empty());
-        assertThrows(NotFoundException.class, () -> service.getAll(1, 0, 20));
+        assertThrows(NotFoundException.class, () -> service.getAll(1, 0, 20, null));
     }
 
     @Test
@@ -173,10 +198,34 @@ public class ItemRequestServiceTests {
         return new ItemRequest(id, "test_desc" + id, null, moment);
     }
 
-    private List<ItemRequest> makeRequestsList() {
-        List<ItemRequest> list = new ArrayList<>();
+    @Test
+    void testETagFollowsItemsOfRequest() {
+        when(mockUserRepo.findById(1)).thenReturn(Optional.of(makeUser(1)));
+        when(mockRepo.findVersion(Mockito.anyInt())).thenReturn(Optional.of(0L));
+        //Те же количество, сумма id и сумма версий, но другие предметы
+        when(mockRepo.findItemVersions(1)).thenReturn(List.of(
+                new RequestItemVersionRow(1, 2L), new RequestItemVersionRow(4, 1L)));
+        when(mockRepo.findItemVersions(2)).thenReturn(List.of(
+                new RequestItemVersionRow(2, 1L), new RequestItemVersionRow(3, 2L)));
+        when(mockRepo.findItemVersions(3)).thenReturn(List.of(
+                new RequestItemVersionRow(1, 2L), new RequestItemVersionRow(4, 1L)));
+
+        String eTag = service.getETag(1, 1);
+        assertNotEquals(eTag, service.getETag(1, 2));
+        assertThat(service.getETag(1, 3), equalTo(eTag));
+    }
+
+    @Test
+    void testETagRequestNotFound() {
+        when(mockUserRepo.findById(1)).thenReturn(Optional.of(makeUser(1)));
+        when(mockRepo.findVersion(1)).thenReturn(Optional.empty());
+        assertThrows(NotFoundException.class, () -> service.getETag(1, 1));
+    }
+
+    private List<ItemRequestDto> makeRequestsList() {
+        List<ItemRequestDto> list = new ArrayList<>();
         for (int i = 1; i <= 3; i++) {
-            list.add(makeRequest(i));
+            list.add(new ItemRequestDto(i, "test_desc" + i, moment));
         }
         return list;
     }
@@ -193,12 +242,12 @@ public class ItemRequestServiceTests {
         return new Item(id, "item" + id, "test_item", Boolean.TRUE, null, null);
     }
 
-    private List<Item> makeItemsList() {
-        List<Item> list = new ArrayList<>();
+    private List<ItemDto> makeItemsList() {
+        List<ItemDto> list = new ArrayList<>();
         for (int i = 1; i <= 3; i++) {
             Item item = makeItem(i);
             item.setRequestId(i);
-            list.add(item);
+            list.add(itemMapper.toDto(item));
         }
         return list;
     }
@@ -0,0 +1,102 @@
+package ru.practicum.shareit.units;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import ru.practicum.shareit.item.ItemRepository;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.search.IndexedItem;
+import ru.practicum.shareit.item.search.ItemSearchIndex;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ExtendWith(MockitoExtension.class)
+public class ItemSearchIndexTests {
+
+    @Mock
+    ItemRepository mockItemRepo;
+    ItemSearchIndex index;
+    List<IndexedItem> all = new ArrayList<>(List.of(
+            new IndexedItem(1, "Дрель", "Простая дрель", true, null),
+            new IndexedItem(2, "Отвертка", "Аккумуляторная отвертка", true, null),
+            new IndexedItem(3, "Клей Момент", "Тюбик суперклея марки Момент", true, null),
+            new IndexedItem(4, "Дрель ударная", "Аккумуляторная дрель", false, null)));
+
+    @BeforeEach
+    void makeIndex() {
+        index = new ItemSearchIndex(mockItemRepo, 2, Duration.ofMinutes(5));
+        Mockito.when(mockItemRepo.findIndexedItems(Mockito.anyInt(), Mockito.any(Pageable.class)))
+                .thenAnswer(i -> {
+                    Integer afterId = i.getArgument(0);
+                    return all.stream().filter(item -> item.getId() > afterId).limit(2)
+                            .collect(Collectors.toList());
+                });
+        assertFalse(index.isReady());
+        index.rebuild();
+        assertTrue(index.isReady());
+    }
+
+    @Test
+    void testSearchMatchesSubstringInAnyCase() {
+        assertThat(ids(index.search("аккУМУляторная", 0, PageRequest.of(0, 10))), contains(2));
+        assertThat(ids(index.search("оТверТ", 0, PageRequest.of(0, 10))), contains(2));
+        assertThat(ids(index.search("а", 0, PageRequest.of(0, 10))), contains(1, 2, 3));
+        assertThat(index.search("перфоратор", 0, PageRequest.of(0, 10)).getContent(), empty());
+    }
+
+    @Test
+    void testSearchPaging() {
+        Slice<IndexedItem> first = index.search("е", 0, PageRequest.of(0, 2));
+        assertThat(ids(first), contains(1, 2));
+        assertTrue(first.hasNext());
+        Slice<IndexedItem> second = index.search("е", 0, PageRequest.of(1, 2));
+        assertThat(ids(second), contains(3));
+        assertFalse(second.hasNext());
+    }
+
+    @Test
+    void testEstimateMatches() {
+        assertThat(index.estimateMatches("аккумуляторная"), equalTo(2L));
+        assertThat(index.estimateMatches("а"), equalTo(4L));
+        assertThat(index.estimateMatches("перфоратор"), equalTo(0L));
+    }
+
+    @Test
+    void testIndexUpdatesItem() {
+        assertThat(ids(index.search("дрель", 0, PageRequest.of(0, 10))), contains(1));
+        index.index(new Item(4, "Дрель ударная", "Аккумуляторная дрель", true, null, null));
+        index.index(new Item(1, "Шуруповерт", "Не сверлит", true, null, null));
+        index.index(new Item(5, "Дрель-миксер", "Для строительных смесей", true, null, null));
+        assertThat(ids(index.search("дрель", 0, PageRequest.of(0, 10))), contains(4, 5));
+        assertThat(ids(index.search("свер", 0, PageRequest.of(0, 10))), contains(1));
+    }
+
+    @Test
+    void testRebuildSeesChangesOfOtherInstances() {
+        //Вещь добавили через другой экземпляр сервера: локального события о ней не было
+        all.add(new IndexedItem(5, "Дрель-миксер", "Для строительных смесей", true, null));
+        assertThat(ids(index.search("дрель", 0, PageRequest.of(0, 10))), contains(1));
+        index.rebuild();
+        assertThat(ids(index.search("дрель", 0, PageRequest.of(0, 10))), contains(1, 5));
+    }
+
+    private List<Integer> ids(Slice<IndexedItem> items) {
+        return items.stream().map(IndexedItem::getId).collect(Collectors.toList());
+    }
+}
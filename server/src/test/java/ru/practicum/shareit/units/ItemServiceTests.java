@@ -1,22 +1,38 @@
 package ru.practicum.shareit.units;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import ru.practicum.shareit.booking.*;
+import ru.practicum.shareit.booking.dto.BookingDtoShort;
+import ru.practicum.shareit.booking.partition.BookingArchive;
+import ru.practicum.shareit.booking.schedule.AvailabilityCalendar;
+import ru.practicum.shareit.booking.schedule.BookingInterval;
 import ru.practicum.shareit.handler.exception.NotFoundException;
 import ru.practicum.shareit.item.CommentRepository;
+import ru.practicum.shareit.item.CommentsMode;
 import ru.practicum.shareit.item.ItemRepository;
 import ru.practicum.shareit.item.ItemService;
+import ru.practicum.shareit.item.cache.ItemViewCache;
+import ru.practicum.shareit.item.dto.AvailabilityPeriodDto;
+import ru.practicum.shareit.item.dto.CommentColumns;
+import ru.practicum.shareit.item.dto.CommentCount;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.CreateItemRequest;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.exception.BadCommentException;
+import ru.practicum.shareit.item.exception.InvalidRangeException;
 import ru.practicum.shareit.item.exception.ItemBadRequestException;
 import ru.practicum.shareit.item.mapper.CommentMapper;
 import ru.practicum.shareit.item.mapper.CommentMapperImpl;
@@ -24,13 +40,33 @@ import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.item.mapper.ItemMapperImpl;
 import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.search.IndexedItem;
+import ru.practicum.shareit.item.search.ItemSearchEngine;
+import ru.practicum.shareit.item.search.ItemSearchIndex;
+import ru.practicum.shareit.item.search.SearchMode;
+import ru.practicum.shareit.item.search.SearchStatistics;
+import ru.practicum.shareit.outbox.Outbox;
+import ru.practicum.shareit.outbox.OutboxEvent;
+import ru.practicum.shareit.paging.Cursor;
+import ru.practicum.shareit.paging.PageResult;
+import ru.practicum.shareit.projections.BookingShortRow;
+import ru.practicum.shareit.projections.CommentCountRow;
+import ru.practicum.shareit.projections.CommentRow;
+import ru.practicum.shareit.projections.CommentSummaryRow;
+import ru.practicum.shareit.projections.ItemRow;
+import ru.practicum.shareit.projections.ItemVersionRow;
+import ru.practicum.shareit.retry.ConflictRetry;
 import ru.practicum.shareit.user.User;
 import ru.practicum.shareit.user.UserRepository;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
@@ -47,16 +83,38 @@ public class ItemServiceTests {
     @Mock
     BookingRepository mockBookingRepo;
     BookingMapper bookingMapper = new BookingMapperImpl();
+    @Mock
+    BookingArchive mockArchive;
     CommentMapper commentMapper = new CommentMapperImpl();
     @Mock
     CommentRepository mockCommentRepo;
+    @Mock
+    SearchStatistics mockStatistics;
+    @Mock
+    Outbox mockOutbox;
+    @Mock
+    PlatformTransactionManager mockTransactionManager;
+    AvailabilityCalendar calendar;
+    ItemSearchIndex searchIndex;
+    MeterRegistry meterRegistry = new SimpleMeterRegistry();
     ItemService service;
     LocalDateTime moment = LocalDateTime.now();
 
     @BeforeEach
     void makeService() {
-        service = new ItemService(mockItemRepo, mockUserRepo, itemMapper, mockBookingRepo,
-                bookingMapper, commentMapper, mockCommentRepo);
+        service = makeService(SearchMode.INDEX, false);
+    }
+
+    ItemService makeService(SearchMode mode, boolean fullText) {
+        calendar = new AvailabilityCalendar(mockBookingRepo, meterRegistry, 10, 4, Duration.ofMinutes(1));
+        searchIndex = new ItemSearchIndex(mockItemRepo, 1000, Duration.ofMinutes(5));
+        ItemSearchEngine searchEngine = new ItemSearchEngine(searchIndex,
+                mockItemRepo, itemMapper, mockStatistics, mode, fullText);
+        return new ItemService(mockItemRepo, mockUserRepo, itemMapper, mockBookingRepo,
+                bookingMapper, mockArchive, commentMapper, mockCommentRepo, searchEngine, calendar,
+                mockOutbox, new ConflictRetry(new TransactionTemplate(mockTransactionManager),
+                new SimpleMeterRegistry(), 3, Duration.ZERO),
+                new ItemViewCache(meterRegistry, Duration.ofMinutes(10), 10), 2);
     }
 
     @Test
@@ -89,6 +147,8 @@ public class ItemServiceTests {
         ItemDto result = service.create(request, 1);
         assertThat(result.getId(), equalTo(1));
         assertThat(result.getName(), equalTo(request.getName()));
+        Mockito.verify(mockOutbox).publish(OutboxEvent.AggregateType.ITEM, 1, OutboxEvent.EventType.ITEM_CREATED,
+                result);
     }
 
     @Test
@@ -109,6 +169,8 @@ public class ItemServiceTests {
         assertThat(result.getName(), equalTo(newItem.getName()));
         assertThat(result.getDescription(), equalTo(newItem.getDescription()));
         assertThat(result.getAvailable(), equalTo(newItem.getAvailable()));
+        Mockito.verify(mockOutbox).publish(OutboxEvent.AggregateType.ITEM, 1, OutboxEvent.EventType.ITEM_UPDATED,
+                result);
     }
 
     @Test
@@ -130,10 +192,12 @@ public class ItemServiceTests {
         Item item = makeItem(1);
         item.setOwner(makeItemOwner(1));
         Mockito.when(mockItemRepo.findById(1)).thenReturn(Optional.of(item));
-        Mockito.when(mockCommentRepo.findAllByItemIdOrderByCreatedDesc(1)).thenReturn(makeCommentsList());
+        Mockito.when(mockItemRepo.findVersion(1)).thenReturn(Optional.of(new ItemVersionRow(1, 3L, 2L)));
+        expectComments(makeCommentsOfItem(1));
         ItemDto result = service.getItem(1, 2);
         assertThat(item.getName(), equalTo(result.getName()));
-        assertThat(result.getComments().size(), equalTo(3));
+        assertThat(result.getComments().size(), equalTo(2));
+        assertThat(result.getCommentCount(), equalTo(3L));
         assertNull(result.getNextBooking());
         assertNull(result.getLastBooking());
     }
@@ -143,18 +207,96 @@ public class ItemServiceTests {
         Item item = makeItem(1);
         item.setOwner(makeItemOwner(1));
         Mockito.when(mockItemRepo.findById(1)).thenReturn(Optional.of(item));
-        Mockito.when(mockCommentRepo.findAllByItemIdOrderByCreatedDesc(1)).thenReturn(makeCommentsList());
-        Mockito.when(mockBookingRepo.findTopByItemIdAndEndIsBefore(Mockito.anyInt(), Mockito.any()))
-                .thenReturn(makeBooking(1));
-        Mockito.when(mockBookingRepo.findTopByItemIdAndStartIsAfter(Mockito.anyInt(), Mockito.any()))
-                .thenReturn(makeBooking(2));
+        Mockito.when(mockItemRepo.findVersion(1)).thenReturn(Optional.of(new ItemVersionRow(1, 3L, 2L)));
+        expectComments(makeCommentsOfItem(1));
+        Booking next = new Booking(2, moment.plusHours(1), moment.plusHours(2 * 2), item, null,
+                BookingStatus.APPROVED);
+        Mockito.when(mockBookingRepo.findLastAndNext(Mockito.eq(Set.of(1)), Mockito.any()))
+                .thenReturn(BookingShortRow.of(List.of(makeEndedBooking(1), next)));
         ItemDto result = service.getItem(1, item.getOwner().getId());
         assertThat(item.getName(), equalTo(result.getName()));
-        assertThat(result.getComments().size(), equalTo(3));
+        assertThat(result.getComments().size(), equalTo(2));
         assertThat(result.getLastBooking().getStart(), equalTo(moment.minusDays(1)));
         assertThat(result.getNextBooking().getEnd(), equalTo(moment.plusHours(2 * 2)));
     }
 
+    @Test
+    void testGetItemByOwnerLastBookingArchived() {
+        Item item = makeItem(1);
+        item.setOwner(makeItemOwner(1));
+        Mockito.when(mockItemRepo.findById(1)).thenReturn(Optional.of(item));
+        Mockito.when(mockItemRepo.findVersion(1)).thenReturn(Optional.of(new ItemVersionRow(1, 3L, 2L)));
+        expectComments(makeCommentsOfItem(1));
+        BookingDtoShort archived = new BookingDtoShort(4, moment.minusYears(2), moment.minusYears(2).plusDays(1),
+                BookingStatus.APPROVED.name(), 3);
+        Mockito.when(mockArchive.findLast(Mockito.eq(Set.of(1)), Mockito.any())).thenReturn(Map.of(1, archived));
+        ItemDto result = service.getItem(1, item.getOwner().getId());
+        assertThat(result.getLastBooking(), equalTo(archived));
+        assertNull(result.getNextBooking());
+    }
+
+    @Test
+    void testItemETag() {
+        Mockito.when(mockItemRepo.findVersion(1)).thenReturn(Optional.of(new ItemVersionRow(1, 3L, 2L)));
+        assertThat(service.getItemETag(1, 2), equalTo("W/\"3-2\""));
+        //Бронирования владельца меняются со временем, его ответ тегом не помечается
+        assertNull(service.getItemETag(1, 1));
+        Mockito.verifyNoInteractions(mockCommentRepo, mockBookingRepo);
+
+        Mockito.when(mockItemRepo.findVersion(5)).thenReturn(Optional.empty());
+        assertThrows(NotFoundException.class, () -> service.getItemETag(5, 2));
+    }
+
+    @Test
+    void testGetItemCachedUntilCommented() {
+        Item item = makeItem(1);
+        item.setOwner(makeItemOwner(1));
+        Mockito.when(mockItemRepo.findById(1)).thenReturn(Optional.of(item));
+        Mockito.when(mockItemRepo.findVersion(1)).thenReturn(Optional.of(new ItemVersionRow(1, 3L, 2L)));
+        expectComments(makeCommentsOfItem(1));
+        Mockito.when(mockBookingRepo.findLastAndNext(Mockito.eq(Set.of(1)), Mockito.any()))
+                .thenReturn(BookingShortRow.of(List.of(makeEndedBooking(1))));
+
+        service.getItem(1, 2).getComments().clear();
+        ItemDto byOwner = service.getItem(1, 1);
+        ItemDto byOther = service.getItem(1, 2);
+        //Чужой запрос не видит ни бронирований владельца, ни изменений копии у прошлого читателя
+        assertThat(byOwner.getLastBooking().getId(), equalTo(1));
+        assertNull(byOther.getLastBooking());
+        assertThat(byOther.getComments().size(), equalTo(2));
+        Mockito.verify(mockItemRepo, Mockito.times(1)).findById(1);
+        assertThat(meterRegistry.counter("cache.gets", "cache", "items", "result", "hit").count(), equalTo(2.0));
+
+        User author = makeItemOwner(2);
+        Mockito.when(mockUserRepo.findById(2)).thenReturn(Optional.of(author));
+        Mockito.when(mockBookingRepo.findAllByBookerIdAndItemIdAndEndIsBefore(Mockito.anyInt(),
+                Mockito.anyInt(), Mockito.any())).thenReturn(List.of(new Booking(3, moment.minusDays(2),
+                moment.minusDays(1), item, author, BookingStatus.APPROVED)));
+        Mockito.when(mockCommentRepo.save(Mockito.any(Comment.class))).thenAnswer(i -> i.getArguments()[0]);
+        service.createComment(commentMapper.toDto(makeComment(1)), 2);
+        service.getItem(1, 2);
+        Mockito.verify(mockCommentRepo, Mockito.times(2)).findNewest(List.of(1), 2);
+    }
+
+    @Test
+    void testStaleCachedViewReloadedUnderNewerTag() {
+        Item item = makeItem(1);
+        item.setOwner(makeItemOwner(1));
+        Mockito.when(mockItemRepo.findById(1)).thenReturn(Optional.of(item));
+        expectComments(makeCommentsOfItem(1));
+        Mockito.when(mockItemRepo.findVersion(1)).thenReturn(Optional.of(new ItemVersionRow(1, 3L, 2L)));
+        service.getItem(1, 2);
+
+        //Вещь изменили в другом экземпляре сервера: в кэше остался вид версии 3, в базе уже версия 4
+        item.setName("renamed");
+        Mockito.when(mockItemRepo.findVersion(1)).thenReturn(Optional.of(new ItemVersionRow(1, 4L, 2L)));
+        String eTag = service.getItemETag(1, 2);
+        assertThat(eTag, equalTo("W/\"4-2\""));
+        assertThat(service.getItem(1, 2, eTag).getName(), equalTo("renamed"));
+        assertThat(service.getItem(1, 2, eTag).getName(), equalTo("renamed"));
+        Mockito.verify(mockItemRepo, Mockito.times(2)).findById(1);
+    }
+
     @Test
     void testGetItemNotFound() {
         Mockito.when(mockItemRepo.findById(1)).thenReturn(Optional.empty());
@@ -165,25 +307,116 @@ public class ItemServiceTests {
     void testGetAllByOwner() {
         User owner = makeItemOwner(1);
         Mockito.when(mockUserRepo.findById(1)).thenReturn(Optional.of(owner));
-        Mockito.when(mockItemRepo.findByOwnerId(Mockito.anyInt(), Mockito.any(Pageable.class))).thenReturn(makeItemsList());
-        Mockito.when(mockBookingRepo.findByItemIdInAndStatusIs(Mockito.anyList(), Mockito.any(), Mockito.any(Sort.class)))
-                .thenReturn(makeBookingsList());
-        Mockito.when(mockCommentRepo.findAllByItemIdInOrderByCreatedDesc(Mockito.anyList())).thenReturn(makeCommentsList());
-        List<ItemDto> result = service.getAllByOwner(1, 0, 20);
+        Mockito.when(mockItemRepo.findByOwnerIdAndIdGreaterThan(Mockito.anyInt(), Mockito.anyInt(),
+                Mockito.any(Pageable.class))).thenReturn(new SliceImpl<>(itemMapper.toDtoList(makeItemsList())));
+        Mockito.when(mockBookingRepo.findLastAndNext(Mockito.eq(Set.of(1, 2, 3)), Mockito.any()))
+                .thenReturn(BookingShortRow.of(List.of(makeEndedBooking(1), makeEndedBooking(2),
+                        makeEndedBooking(3))));
+        expectComments(makeCommentsList());
+        List<ItemDto> result = service.getAllByOwner(1, 0, 20, null).getContent();
         assertThat(result.get(2).getComments().size(), equalTo(1));
+        assertThat(result.get(2).getCommentCount(), equalTo(1L));
+        assertThat(result.get(1).getLastBooking().getId(), equalTo(2));
+        assertNull(result.get(1).getNextBooking());
+    }
+
+    @Test
+    void testGetAllByOwnerCommentSummaries() {
+        Mockito.when(mockUserRepo.findById(1)).thenReturn(Optional.of(makeItemOwner(1)));
+        Mockito.when(mockItemRepo.findByOwnerIdAndIdGreaterThan(Mockito.anyInt(), Mockito.anyInt(),
+                Mockito.any(Pageable.class))).thenReturn(new SliceImpl<>(itemMapper.toDtoList(makeItemsList())));
+        Mockito.when(mockItemRepo.findCommentSummaries(Set.of(1, 2, 3))).thenReturn(List.of(
+                CommentSummaryRow.of(1, 0L, null), CommentSummaryRow.of(2, 4L, makeComment(9))));
+        List<ItemDto> result = service.getAllByOwner(1, 0, 20, null, CommentsMode.SUMMARY).getContent();
+        assertNull(result.get(0).getLastComment());
+        assertThat(result.get(0).getCommentCount(), equalTo(0L));
+        assertThat(result.get(1).getCommentCount(), equalTo(4L));
+        assertThat(result.get(1).getLastComment().getText(), equalTo("text9"));
+        assertThat(result.get(1).getLastComment().getItemId(), equalTo(2));
+        assertNull(result.get(1).getComments());
+        Mockito.verifyNoInteractions(mockCommentRepo);
+    }
+
+    @Test
+    void testGetAllByOwnerWithoutComments() {
+        Mockito.when(mockUserRepo.findById(1)).thenReturn(Optional.of(makeItemOwner(1)));
+        Mockito.when(mockItemRepo.findByOwnerIdAndIdGreaterThan(Mockito.anyInt(), Mockito.anyInt(),
+                Mockito.any(Pageable.class))).thenReturn(new SliceImpl<>(itemMapper.toDtoList(makeItemsList())));
+        Mockito.when(mockCommentRepo.countByItemIds(Set.of(1, 2, 3))).thenReturn(List.of());
+        List<ItemDto> result = service.getAllByOwner(1, 0, 20, null).getContent();
+        assertTrue(result.get(0).getComments().isEmpty());
+        assertThat(result.get(0).getCommentCount(), equalTo(0L));
+        Mockito.verify(mockCommentRepo, Mockito.never()).findNewest(Mockito.anyCollection(), Mockito.anyInt());
+    }
+
+    @Test
+    void testGetCommentsPagedByCursor() {
+        LocalDateTime created = moment.minusDays(1);
+        Mockito.when(mockItemRepo.existsById(1)).thenReturn(true);
+        Mockito.when(mockCommentRepo.findByItemId(Mockito.eq(1), Mockito.any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(List.of(new CommentDto(7, "text", 1, "author", created)),
+                        PageRequest.of(0, 1), true));
+        PageResult<CommentDto> first = service.getComments(1, 0, 1, null);
+        assertTrue(first.isHasMore());
+        assertThat(first.getNextCursor(), equalTo(Cursor.of(created, 7).encode()));
+
+        Mockito.when(mockCommentRepo.findByItemIdBefore(Mockito.eq(1), Mockito.eq(created), Mockito.eq(7),
+                Mockito.any(Pageable.class))).thenReturn(new SliceImpl<>(List.of()));
+        PageResult<CommentDto> next = service.getComments(1, 0, 1, Cursor.decode(first.getNextCursor()));
+        assertFalse(next.isHasMore());
+        assertNull(next.getNextCursor());
+    }
+
+    @Test
+    void testGetCommentsItemNotFound() {
+        Mockito.when(mockItemRepo.existsById(1)).thenReturn(false);
+        assertThrows(NotFoundException.class, () -> service.getComments(1, 0, 10, null));
     }
 
     @Test
     void testGetAllByOwnerNotFound() {
         Mockito.when(mockUserRepo.findById(Mockito.anyInt())).thenReturn(Optional.empty());
-        assertThrows(NotFoundException.class, () -> service.getAllByOwner(1, 0, 20));
+        assertThrows(NotFoundException.class, () -> service.getAllByOwner(1, 0, 20, null));
     }
 
     @Test
     void testSearch() {
-        Mockito.when(mockItemRepo.search(Mockito.anyString(), Mockito.any(Pageable.class)))
-                .thenReturn(new PageImpl<>(makeItemsList()));
-        assertFalse(service.search("text", 0, 20).isEmpty());
+        List<IndexedItem> indexed = new ArrayList<>();
+        makeItemsList().forEach(item -> indexed.add(IndexedItem.of(item)));
+        Mockito.when(mockItemRepo.findIndexedItems(Mockito.anyInt(), Mockito.any(Pageable.class)))
+                .thenReturn(indexed);
+        searchIndex.rebuild();
+        PageResult<ItemDto> result = service.search("ITEM", 0, 2, null, true);
+        assertThat(result.getContent().size(), equalTo(2));
+        assertTrue(result.isHasMore());
+        assertThat(result.getApproximateTotal(), equalTo(3L));
+        result = service.search("ITEM", 2, 2, null, false);
+        assertThat(result.getContent().size(), equalTo(1));
+        assertFalse(result.isHasMore());
+        assertNull(result.getApproximateTotal());
+    }
+
+    @Test
+    void testSearchInDatabaseUntilIndexBuilt() {
+        Mockito.when(mockItemRepo.search(Mockito.anyString(), Mockito.anyInt(), Mockito.any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(itemMapper.toDtoList(makeItemsList())));
+        assertThat(service.search("text", 0, 20, null, false).getContent().size(), equalTo(3));
+        Mockito.verify(mockItemRepo, Mockito.never()).findIndexedItems(Mockito.anyInt(), Mockito.any());
+    }
+
+    @Test
+    void testSearchInDatabase() {
+        Mockito.when(mockItemRepo.search(Mockito.anyString(), Mockito.anyInt(), Mockito.any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(itemMapper.toDtoList(makeItemsList())));
+        assertThat(makeService(SearchMode.DATABASE, false).search("text", 0, 20, null, false).getContent().size(),
+                equalTo(3));
+        Mockito.when(mockItemRepo.fullTextSearch(Mockito.anyString(), Mockito.anyInt(), Mockito.any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(List.of(ItemRow.of(makeItem(1))), PageRequest.of(0, 1), true));
+        Mockito.when(mockStatistics.estimateMatches("text", true)).thenReturn(40L);
+        PageResult<ItemDto> result = makeService(SearchMode.DATABASE, true).search("text", 0, 1, null, true);
+        assertThat(result.getContent().size(), equalTo(1));
+        assertTrue(result.isHasMore());
+        assertThat(result.getApproximateTotal(), equalTo(40L));
     }
 
     @Test
@@ -202,6 +435,72 @@ public class ItemServiceTests {
         assertThat(result.getAuthorName(), equalTo(user.getName()));
         assertThat(result.getItemId(), equalTo(item.getId()));
         assertEquals(commentMapper.toEntity(result), makeComment(1));
+        Mockito.verify(mockItemRepo).addComment(1, 1, "text1", user.getName(), result.getCreated());
+    }
+
+    @Test
+    void testCreateCommentAfterArchivedBooking() {
+        User user = makeItemOwner(1);
+        Mockito.when(mockUserRepo.findById(1)).thenReturn(Optional.of(user));
+        //В горячей таблице броней автора нет, завершённая бронь лежит в архиве
+        Mockito.when(mockArchive.hasFinished(Mockito.eq(1), Mockito.eq(1), Mockito.any())).thenReturn(true);
+        Item item = makeItem(1);
+        item.setOwner(makeItemOwner(5));
+        Mockito.when(mockItemRepo.findById(Mockito.anyInt())).thenReturn(Optional.of(item));
+        Mockito.when(mockCommentRepo.save(Mockito.any(Comment.class))).thenAnswer(i -> i.getArguments()[0]);
+        CommentDto result = service.createComment(commentMapper.toDto(makeComment(1)), 1);
+        assertThat(result.getItemId(), equalTo(item.getId()));
+
+        Mockito.when(mockArchive.hasFinished(Mockito.eq(2), Mockito.eq(1), Mockito.any())).thenReturn(false);
+        Mockito.when(mockUserRepo.findById(2)).thenReturn(Optional.of(makeItemOwner(2)));
+        assertThrows(BadCommentException.class, () -> service.createComment(commentMapper.toDto(makeComment(1)), 2));
+    }
+
+    @Test
+    void testGetAvailabilityMergesBookings() {
+        LocalDateTime from = moment.plusDays(1);
+        LocalDateTime to = from.plusDays(10);
+        Mockito.when(mockItemRepo.existsById(1)).thenReturn(true);
+        Mockito.when(mockBookingRepo.findIntervals(Mockito.eq(1), Mockito.any(), Mockito.eq(from), Mockito.eq(to)))
+                .thenReturn(List.of(
+                        new BookingInterval(1, from.minusDays(1), from.plusDays(1)),
+                        new BookingInterval(2, from.plusDays(1), from.plusDays(2)),
+                        new BookingInterval(3, from.plusDays(4), from.plusDays(6)),
+                        new BookingInterval(4, from.plusDays(5), from.plusDays(5).plusHours(1))));
+        ItemAvailabilityDto result = service.getAvailability(1, from, to);
+        assertThat(result.getPeriods(), equalTo(List.of(
+                new AvailabilityPeriodDto(from, from.plusDays(2), false),
+                new AvailabilityPeriodDto(from.plusDays(2), from.plusDays(4), true),
+                new AvailabilityPeriodDto(from.plusDays(4), from.plusDays(6), false),
+                new AvailabilityPeriodDto(from.plusDays(6), to, true))));
+
+        service.getAvailability(1, from, to);
+        Mockito.verify(mockBookingRepo, Mockito.times(1))
+                .findIntervals(Mockito.eq(1), Mockito.any(), Mockito.eq(from), Mockito.eq(to));
+        calendar.invalidate(1);
+        service.getAvailability(1, from, to);
+        Mockito.verify(mockBookingRepo, Mockito.times(2))
+                .findIntervals(Mockito.eq(1), Mockito.any(), Mockito.eq(from), Mockito.eq(to));
+    }
+
+    @Test
+    void testGetAvailabilityWrongRange() {
+        assertThrows(InvalidRangeException.class, () -> service.getAvailability(1, moment, moment));
+        assertThrows(InvalidRangeException.class, () -> service.getAvailability(1, moment, moment.plusDays(367)));
+        Mockito.when(mockItemRepo.existsById(1)).thenReturn(false);
+        assertThrows(NotFoundException.class, () -> service.getAvailability(1, moment, moment.plusDays(1)));
+    }
+
+    @Test
+    void testAvailabilityReadAgainAfterTtl() {
+        //Брони другого сервера этот кэш не выбрасывают, их видно по истечении ttl
+        AvailabilityCalendar expiring = new AvailabilityCalendar(mockBookingRepo, new SimpleMeterRegistry(),
+                10, 4, Duration.ZERO);
+        LocalDateTime from = moment.plusDays(1);
+        expiring.periods(1, from, from.plusDays(1));
+        expiring.periods(1, from, from.plusDays(1));
+        Mockito.verify(mockBookingRepo, Mockito.times(2))
+                .findIntervals(Mockito.eq(1), Mockito.any(), Mockito.eq(from), Mockito.eq(from.plusDays(1)));
     }
 
     private User makeItemOwner(Integer id) {
@@ -238,6 +537,26 @@ public class ItemServiceTests {
         return list;
     }
 
+    private List<Comment> makeCommentsOfItem(Integer itemId) {
+        List<Comment> list = makeCommentsList();
+        list.forEach(comment -> comment.getItem().setId(itemId));
+        return list;
+    }
+
+    //Считает все комментарии, новейших отдаёт не больше, чем сервис встраивает в вещь
+    private void expectComments(List<Comment> comments) {
+        Map<Integer, List<Comment>> byItem = comments.stream()
+                .collect(Collectors.groupingBy(comment -> comment.getItem().getId()));
+        List<CommentCount> counts = new ArrayList<>();
+        List<CommentColumns> newest = new ArrayList<>();
+        byItem.forEach((itemId, itemComments) -> {
+            counts.add(new CommentCountRow(itemId, (long) itemComments.size()));
+            itemComments.stream().limit(2).map(CommentRow::of).forEach(newest::add);
+        });
+        Mockito.when(mockCommentRepo.countByItemIds(Mockito.anyCollection())).thenReturn(counts);
+        Mockito.when(mockCommentRepo.findNewest(Mockito.anyCollection(), Mockito.eq(2))).thenReturn(newest);
+    }
+
     private Booking makeBooking(Integer id) {
         Item item = new Item();
         item.setId(id);
@@ -245,6 +564,12 @@ public class ItemServiceTests {
                 item, null, BookingStatus.WAITING);
     }
 
+    private Booking makeEndedBooking(Integer id) {
+        Booking booking = makeBooking(id);
+        booking.setEnd(moment.minusHours(id));
+        return booking;
+    }
+
     private List<Booking> makeBookingsList() {
         List<Booking> list = new ArrayList<>();
         for (int i = 1; i <= 3; i++) {
@@ -0,0 +1,156 @@
+package ru.practicum.shareit.units;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.outbox.*;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+
+@ExtendWith(MockitoExtension.class)
+public class OutboxRelayTests {
+
+    @Mock
+    OutboxRepository mockOutboxRepo;
+    @Mock
+    OutboxOffsetRepository mockOffsetRepo;
+    @Mock
+    OutboxGapRepository mockGapRepo;
+    @Mock
+    PlatformTransactionManager mockTransactionManager;
+    @Mock
+    ObjectProvider<EventSink> mockSinks;
+    RecordingSink sink = new RecordingSink();
+    OutboxOffset offset = new OutboxOffset("recording", 0L);
+    List<OutboxGap> gaps = new ArrayList<>();
+    MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    OutboxRelay relay;
+    LocalDateTime moment = LocalDateTime.now();
+
+    @BeforeEach
+    void makeRelay() {
+        Mockito.when(mockSinks.orderedStream()).thenReturn(Stream.of(sink));
+        relay = new OutboxRelay(mockOutboxRepo, mockOffsetRepo, mockGapRepo, mockSinks,
+                new TransactionTemplate(mockTransactionManager), meterRegistry, 10, Duration.ofSeconds(10),
+                Duration.ofHours(1));
+        //Пропуски хранятся в списке, как в таблице
+        Mockito.lenient().when(mockGapRepo.findBySink("recording")).thenAnswer(i -> new ArrayList<>(gaps));
+        Mockito.lenient().when(mockGapRepo.findFirstByOrderByEventId())
+                .thenAnswer(i -> gaps.stream().min(Comparator.comparing(OutboxGap::getEventId)));
+        Mockito.lenient().when(mockGapRepo.saveAll(Mockito.anyList())).thenAnswer(i -> {
+            gaps.addAll(i.getArgument(0));
+            return i.getArgument(0);
+        });
+        Mockito.lenient().doAnswer(i -> gaps.removeAll(i.getArgument(0)))
+                .when(mockGapRepo).deleteAll(Mockito.anyList());
+        Mockito.when(mockOffsetRepo.findForUpdate("recording")).thenReturn(Optional.of(offset));
+        Mockito.when(mockOffsetRepo.findAllById(List.of("recording"))).thenReturn(List.of(offset));
+        Mockito.when(mockOutboxRepo.findByIdGreaterThanOrderById(Mockito.anyLong(), Mockito.any(Pageable.class)))
+                .thenAnswer(i -> {
+                    Long afterId = i.getArgument(0);
+                    return Stream.of(event(1, moment.minusMinutes(1)), event(2, moment.minusMinutes(1)),
+                                    event(4, moment))
+                            .filter(event -> event.getId() > afterId)
+                            .collect(Collectors.toList());
+                });
+    }
+
+    @Test
+    void testRelayWaitsForFreshGap() {
+        relay.run();
+        //Событие 3 может ещё появиться: его транзакция не завершена
+        assertThat(sink.delivered, contains(1L, 2L));
+        assertThat(offset.getLastEventId(), equalTo(2L));
+        Mockito.verify(mockOutboxRepo).deleteUpTo(2L);
+
+        //Пропуск перед давно записанным событием уже не заполнится
+        List<OutboxEvent> events = List.of(event(4, moment.minusMinutes(1)));
+        Mockito.when(mockOutboxRepo.findByIdGreaterThanOrderById(Mockito.eq(2L), Mockito.any(Pageable.class)))
+                .thenReturn(events);
+        relay.run();
+        assertThat(sink.delivered, contains(1L, 2L, 4L));
+        assertThat(offset.getLastEventId(), equalTo(4L));
+        //Пропущенный id запомнен, и событие 4 не удаляется, пока 3 может появиться
+        assertThat(gaps.stream().map(OutboxGap::getEventId).collect(Collectors.toList()), contains(3L));
+        assertThat(meterRegistry.counter("shareit.outbox.gaps", "result", "skipped").count(), equalTo(1.0));
+        Mockito.verify(mockOutboxRepo, Mockito.times(2)).deleteUpTo(2L);
+    }
+
+    @Test
+    void testLateEventOfGapDelivered() {
+        offset.setLastEventId(4L);
+        gaps.add(new OutboxGap("recording", 3L, moment.minusMinutes(1)));
+        Mockito.when(mockOutboxRepo.findAllById(List.of(3L))).thenReturn(List.of(event(3, moment.minusMinutes(2))));
+        relay.run();
+        assertThat(sink.delivered, contains(3L));
+        assertThat(offset.getLastEventId(), equalTo(4L));
+        assertThat(gaps, empty());
+        assertThat(meterRegistry.counter("shareit.outbox.gaps", "result", "filled").count(), equalTo(1.0));
+        Mockito.verify(mockOutboxRepo).deleteUpTo(4L);
+    }
+
+    @Test
+    void testGapGivenUpAfterHorizon() {
+        offset.setLastEventId(4L);
+        gaps.add(new OutboxGap("recording", 3L, moment.minusHours(2)));
+        Mockito.when(mockOutboxRepo.findAllById(List.of(3L))).thenReturn(List.of());
+        relay.run();
+        assertThat(sink.delivered, empty());
+        assertThat(gaps, empty());
+        assertThat(meterRegistry.counter("shareit.outbox.gaps", "result", "lost").count(), equalTo(1.0));
+        Mockito.verify(mockOutboxRepo).deleteUpTo(4L);
+    }
+
+    @Test
+    void testFailedDeliveryKeepsOffset() {
+        sink.failing = true;
+        relay.run();
+        assertThat(sink.delivered, empty());
+        assertThat(offset.getLastEventId(), equalTo(0L));
+        Mockito.verify(mockOutboxRepo).deleteUpTo(0L);
+    }
+
+    private OutboxEvent event(long id, LocalDateTime created) {
+        return new OutboxEvent(id, OutboxEvent.AggregateType.ITEM, 1L, OutboxEvent.EventType.ITEM_UPDATED,
+                "{}", created);
+    }
+
+    private static class RecordingSink implements EventSink {
+
+        private final List<Long> delivered = new ArrayList<>();
+        private boolean failing;
+
+        @Override
+        public String name() {
+            return "recording";
+        }
+
+        @Override
+        public void deliver(List<OutboxEvent> events) throws IOException {
+            if (failing) throw new IOException("Disk full");
+            events.forEach(event -> delivered.add(event.getId()));
+        }
+    }
+}
@@ -1,15 +1,23 @@
 package ru.practicum.shareit.units;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import ru.practicum.shareit.handler.exception.NotFoundException;
+import ru.practicum.shareit.item.CommentRepository;
+import ru.practicum.shareit.item.ItemRepository;
+import ru.practicum.shareit.item.cache.ItemViewCache;
+import ru.practicum.shareit.retry.ConflictRetry;
 import ru.practicum.shareit.user.*;
 import ru.practicum.shareit.user.dto.UserDto;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
@@ -23,6 +31,14 @@ public class UserServiceTests {
 
     @Mock
     UserRepository mockUserRepo;
+    @Mock
+    CommentRepository mockCommentRepo;
+    @Mock
+    ItemRepository mockItemRepo;
+    @Mock
+    ItemViewCache mockItemViewCache;
+    @Mock
+    PlatformTransactionManager mockTransactionManager;
     UserMapper userMapper = new UserMapperImpl();
     UserService service;
 
@@ -42,7 +58,9 @@ public class UserServiceTests {
 
     @BeforeEach
     void makeService() {
-        service = new UserService(mockUserRepo, userMapper);
+        service = new UserService(mockUserRepo, userMapper, mockCommentRepo, mockItemRepo, mockItemViewCache,
+                new ConflictRetry(new TransactionTemplate(mockTransactionManager), new SimpleMeterRegistry(), 3,
+                        Duration.ZERO));
     }
 
     @Test
@@ -57,6 +75,7 @@ public class UserServiceTests {
     void testPatchUser() {
         User user = makeUser(1);
         Mockito.when(mockUserRepo.findById(1)).thenReturn(Optional.of(user));
+        Mockito.when(mockCommentRepo.findItemIdsByAuthorId(1)).thenReturn(List.of(3, 4));
         UserDto newUser = new UserDto();
         newUser.setId(1);
         newUser.setName("notTestUser");
@@ -70,6 +89,10 @@ public class UserServiceTests {
         newUser2.setEmail("test49@ya.ru");
         UserDto resultUser2 = service.patch(newUser2);
         assertThat(resultUser2, equalTo(newUser2));
+        //Комментарии показывают имя автора, почта в них не видна
+        Mockito.verify(mockItemViewCache, Mockito.times(1)).invalidate(List.of(3, 4));
+        Mockito.verify(mockItemRepo, Mockito.times(1)).renameLastCommentAuthor(1, "notTestUser");
+        Mockito.verify(mockItemRepo, Mockito.times(1)).touchCommentedBy(1);
     }
 
     @Test
@@ -99,6 +122,14 @@ public class UserServiceTests {
         assertThrows(NotFoundException.class, () -> service.getUser(1));
     }
 
+    @Test
+    void testUserETag() {
+        Mockito.when(mockUserRepo.findVersion(2)).thenReturn(Optional.of(4L));
+        assertThat(service.getUserETag(2), equalTo("W/\"4\""));
+        Mockito.when(mockUserRepo.findVersion(3)).thenReturn(Optional.empty());
+        assertThrows(NotFoundException.class, () -> service.getUserETag(3));
+    }
+
     private User makeUser(Integer id) {
         return new User(id, "testUser" + id, "test" + id + "@ya.ru");
     }